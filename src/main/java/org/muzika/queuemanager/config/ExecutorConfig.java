@@ -0,0 +1,52 @@
+package org.muzika.queuemanager.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors for blocking background work. With {@code spring.threads.virtual.enabled=true}
+ * (which also moves Tomcat request handling and @Scheduled tasks to virtual threads) each
+ * task gets its own virtual thread, so JPA calls and slow share reads no longer hold a
+ * platform thread. Otherwise they use small platform pools.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    public static final String QUEUE_REFILL_EXECUTOR = "queueRefillExecutor";
+    public static final String QUEUE_EVENTS_EXECUTOR = "queueEventsExecutor";
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${queue.refill.threads:4}")
+    private int refillThreads;
+
+    @Value("${queue.events.heartbeat-threads:2}")
+    private int heartbeatThreads;
+
+    /**
+     * Runs the fire-and-forget queue refills triggered by requests and Kafka events.
+     */
+    @Bean(name = QUEUE_REFILL_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService queueRefillExecutor() {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("queue-refill-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(refillThreads, Thread.ofPlatform().name("queue-refill-", 0).daemon().factory());
+    }
+
+    /**
+     * Writes SSE heartbeats, so a slow client never holds the shared @Scheduled thread.
+     */
+    @Bean(name = QUEUE_EVENTS_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService queueEventsExecutor() {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("queue-events-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(heartbeatThreads, Thread.ofPlatform().name("queue-events-", 0).daemon().factory());
+    }
+}
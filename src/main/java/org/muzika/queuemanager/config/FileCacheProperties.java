@@ -0,0 +1,19 @@
+package org.muzika.queuemanager.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Local read-through cache tier in front of {@code music.storage.base-path}.
+ * Meant for node-local ephemeral disk in front of the network file share.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "music.storage.cache")
+@Data
+public class FileCacheProperties {
+    private boolean enabled = false;
+    private String directory = "/tmp/queuemanager-cache";
+    private long maxBytes = 10L * 1024 * 1024 * 1024;
+    private int fillThreads = 2;
+}
@@ -4,11 +4,16 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "jwt")
 @Data
 public class JwtConfig {
     private String secret;
     private Long expiration;
+    // Verified-token cache in JwtService; entries also end at the token's own expiry
+    private Duration cacheTtl = Duration.ofMinutes(5);
+    private int cacheMaxEntries = 10_000;
 }
 
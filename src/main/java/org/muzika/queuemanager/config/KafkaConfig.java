@@ -1,12 +1,12 @@
 package org.muzika.queuemanager.config;
 
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.UUIDSerializer;
-import org.muzika.queuemanager.kafkaMassages.LikedSongEvent;
-import org.muzika.queuemanager.kafkaMassages.RequestRandomSong;
-import org.muzika.queuemanager.kafkaMassages.UnlikedSongEvent;
+import org.muzika.queuemanager.kafkaMassages.codec.CompactBinarySerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,12 +14,17 @@ import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.DelegatingByTopicSerializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 @Configuration
 public class KafkaConfig {
@@ -27,6 +32,10 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    // Topics whose values are written in the compact binary format instead of JSON
+    @Value("${kafka.codec.binary-topics:}")
+    private List<String> binaryTopics;
+
     @Bean
     public KafkaAdmin admin() {
         Map<String, Object> configs = new HashMap<>();
@@ -34,46 +43,48 @@ public class KafkaConfig {
         return new KafkaAdmin(configs);
     }
 
+    /**
+     * Single producer shared by every outgoing event type. One producer means one
+     * set of batches per partition, so linger/compression actually pay off instead
+     * of being split across three mostly idle clients.
+     */
     @Bean
-    ProducerFactory<UUID, RequestRandomSong> randomSongProducerFactory() {
+    ProducerFactory<UUID, Object> eventProducerFactory(KafkaProducerProperties producerProperties, MeterRegistry meterRegistry) {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, UUIDSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(config);
-    }
-
-    @Bean
-    KafkaTemplate<UUID, RequestRandomSong> randomSongKafkaTemplate() {
-        return new KafkaTemplate<>(randomSongProducerFactory());
+        config.put(ProducerConfig.ACKS_CONFIG, producerProperties.getAcks());
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, producerProperties.isEnableIdempotence());
+        config.put(ProducerConfig.LINGER_MS_CONFIG, producerProperties.getLingerMs());
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, producerProperties.getBatchSize());
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producerProperties.getCompressionType());
+        config.put(ProducerConfig.BUFFER_MEMORY_CONFIG, producerProperties.getBufferMemory());
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, producerProperties.getMaxInFlightRequestsPerConnection());
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, producerProperties.getDeliveryTimeoutMs());
+        config.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, producerProperties.getRequestTimeoutMs());
+        DefaultKafkaProducerFactory<UUID, Object> factory =
+                new DefaultKafkaProducerFactory<>(config, new UUIDSerializer(), valueSerializer());
+        // Exposes the client's own kafka.producer.* metrics (record-queue-time, buffer-available-bytes, ...)
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
-    @Bean
-    ProducerFactory<UUID, LikedSongEvent> likedSongProducerFactory() {
-        Map<String, Object> config = new HashMap<>();
-        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, UUIDSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(config);
-    }
-
-    @Bean
-    KafkaTemplate<UUID, LikedSongEvent> likedSongKafkaTemplate() {
-        return new KafkaTemplate<>(likedSongProducerFactory());
-    }
-
-    @Bean
-    ProducerFactory<UUID, UnlikedSongEvent> unlikedSongProducerFactory() {
-        Map<String, Object> config = new HashMap<>();
-        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, UUIDSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(config);
+    private Serializer<Object> valueSerializer() {
+        Map<Pattern, Serializer<?>> delegates = new LinkedHashMap<>();
+        for (String topic : binaryTopics) {
+            if (!topic.isBlank()) {
+                // Retry and dead-letter copies of the topic use the same codec
+                delegates.put(Pattern.compile(Pattern.quote(topic.trim()) + "(-retry-\\d+|-dlt)?"), new CompactBinarySerializer());
+            }
+        }
+        if (delegates.isEmpty()) {
+            return new JsonSerializer<>();
+        }
+        return new DelegatingByTopicSerializer(delegates, new JsonSerializer<>());
     }
 
     @Bean
-    KafkaTemplate<UUID, UnlikedSongEvent> unlikedSongKafkaTemplate() {
-        return new KafkaTemplate<>(unlikedSongProducerFactory());
+    KafkaTemplate<UUID, Object> eventKafkaTemplate(ProducerFactory<UUID, Object> eventProducerFactory) {
+        return new KafkaTemplate<>(eventProducerFactory);
     }
 
     @Bean
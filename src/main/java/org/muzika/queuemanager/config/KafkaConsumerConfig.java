@@ -9,9 +9,11 @@ import org.apache.kafka.common.serialization.UUIDDeserializer;
 import org.muzika.queuemanager.kafkaMassages.LoadedSong;
 import org.muzika.queuemanager.kafkaMassages.RequestSlskdSong;
 import org.muzika.queuemanager.kafkaMassages.UserCreatedEvent;
+import org.muzika.queuemanager.kafkaMassages.codec.CompactBinaryDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
@@ -29,6 +31,12 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    @Value("${onboarding.batch-size:500}")
+    private int onboardingBatchSize;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean
     public ConsumerFactory<UUID, LoadedSong> loadedSongConsumerFactory() {
         Map<String, Object> props =FactoryConfig();
@@ -51,11 +59,12 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "queue-manager-group");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, CompactBinaryDeserializer.class);
         props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, UserCreatedEvent.class);
         props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "org.muzika.queuemanager.kafkaMassages,org.muzika.authorizationmanager.kafkaMessages");
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, onboardingBatchSize);
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
@@ -64,7 +73,7 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "group-id");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, UUIDDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, CompactBinaryDeserializer.class);
 
         props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
         return props;
@@ -74,6 +83,7 @@ public class KafkaConsumerConfig {
     public ConcurrentKafkaListenerContainerFactory<UUID, LoadedSong> loadedSongListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<UUID,LoadedSong> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(loadedSongConsumerFactory());
+        useVirtualThreads(factory);
         return factory;
     }
 
@@ -81,6 +91,7 @@ public class KafkaConsumerConfig {
     public ConcurrentKafkaListenerContainerFactory<UUID, RequestSlskdSong> songConcurrentKafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<UUID, RequestSlskdSong> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(songConsumerFactory());
+        useVirtualThreads(factory);
         return factory;
     }
 
@@ -88,9 +99,21 @@ public class KafkaConsumerConfig {
     public ConcurrentKafkaListenerContainerFactory<String, UserCreatedEvent> userCreatedListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, UserCreatedEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(userCreatedConsumerFactory());
+        useVirtualThreads(factory);
+        // Signup waves are onboarded a poll at a time, see KafkaConsumerService#consumeUserCreatedEvents
+        factory.setBatchListener(true);
         return factory;
     }
 
-
-
+    /**
+     * In virtual-thread mode the consumer threads (and the listeners they call, which block on
+     * JPA) run on virtual threads, like the Tomcat request threads.
+     */
+    private void useVirtualThreads(ConcurrentKafkaListenerContainerFactory<?, ?> factory) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-listener-");
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
+    }
 }
@@ -0,0 +1,25 @@
+package org.muzika.queuemanager.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tuning for the shared Kafka producer used for every outgoing event type.
+ * Defaults favour throughput (small linger, lz4 batches) while keeping
+ * idempotent, fully acknowledged delivery.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "kafka.producer")
+@Data
+public class KafkaProducerProperties {
+    private String acks = "all";
+    private boolean enableIdempotence = true;
+    private int lingerMs = 10;
+    private int batchSize = 64 * 1024;
+    private String compressionType = "lz4";
+    private long bufferMemory = 32L * 1024 * 1024;
+    private int maxInFlightRequestsPerConnection = 5;
+    private int deliveryTimeoutMs = 120_000;
+    private int requestTimeoutMs = 30_000;
+}
@@ -0,0 +1,65 @@
+package org.muzika.queuemanager.config;
+
+import org.muzika.queuemanager.services.DeadLetterMonitor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Non-blocking retry policy shared by every listener on {@code kafka.retry.topics}: failed
+ * records move to {@code <topic>-retry-N} with exponential backoff and, once every attempt
+ * failed, to {@code <topic>-dlt}, where {@code KafkaConsumerService#handleDeadLetter} picks
+ * them up. The same topic list drives the depth gauges in {@link DeadLetterMonitor}.
+ *
+ * A failed record is republished to the partition it came from, so the retry and DLT
+ * topics need at least as many partitions as their source topic. With
+ * {@code spring.kafka.admin.auto-create=false} (k8s) they are provisioned by
+ * {@code k8s/kafka-topics.yaml} instead of from here.
+ */
+@Configuration
+public class KafkaRetryConfig {
+
+    public static final String DLT_HANDLER_BEAN = "kafkaConsumerService";
+    public static final String DLT_HANDLER_METHOD = "handleDeadLetter";
+
+    @Value("${kafka.retry.topics:loaded-song,request-slskd-song}")
+    private List<String> topics;
+
+    @Value("${kafka.retry.attempts:4}")
+    private int attempts;
+
+    @Value("${kafka.retry.initial-delay-ms:2000}")
+    private long initialDelayMs;
+
+    @Value("${kafka.retry.multiplier:3}")
+    private double multiplier;
+
+    @Value("${kafka.retry.max-delay-ms:60000}")
+    private long maxDelayMs;
+
+    @Value("${kafka.retry.partitions:1}")
+    private int partitions;
+
+    @Value("${kafka.retry.replication-factor:1}")
+    private short replicationFactor;
+
+    @Bean
+    public RetryTopicConfiguration retryTopicConfiguration(KafkaTemplate<UUID, Object> eventKafkaTemplate) {
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopics(topics)
+                .maxAttempts(attempts)
+                .exponentialBackoff(initialDelayMs, multiplier, maxDelayMs)
+                .setTopicSuffixingStrategy(TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE)
+                .dltSuffix(DeadLetterMonitor.DLT_SUFFIX)
+                .dltHandlerMethod(DLT_HANDLER_BEAN, DLT_HANDLER_METHOD)
+                .autoCreateTopicsWith(partitions, replicationFactor)
+                .create(eventKafkaTemplate);
+    }
+}
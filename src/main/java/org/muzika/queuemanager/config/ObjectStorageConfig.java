@@ -0,0 +1,47 @@
+package org.muzika.queuemanager.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
+
+@Configuration
+@ConditionalOnProperty(prefix = "music.storage", name = "backend", havingValue = "s3")
+public class ObjectStorageConfig {
+
+    /**
+     * One client with a pooled Apache HTTP connection manager, shared by all requests
+     * and part fetches so connections (and TLS sessions) are reused.
+     */
+    @Bean(destroyMethod = "close")
+    public S3Client s3Client(ObjectStorageProperties properties) {
+        return buildClient(properties);
+    }
+
+    public static S3Client buildClient(ObjectStorageProperties properties) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(properties.getRegion()))
+                .forcePathStyle(properties.isPathStyleAccess())
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(properties.getMaxConnections())
+                        .tcpKeepAlive(true));
+        if (properties.getEndpoint() != null && !properties.getEndpoint().isBlank()) {
+            builder.endpointOverride(URI.create(properties.getEndpoint()));
+        }
+        if (properties.getAccessKey() != null && !properties.getAccessKey().isBlank()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(properties.getAccessKey(), properties.getSecretKey())));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.builder().build());
+        }
+        return builder.build();
+    }
+}
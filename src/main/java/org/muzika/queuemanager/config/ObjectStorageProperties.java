@@ -0,0 +1,33 @@
+package org.muzika.queuemanager.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * S3-compatible object store used when {@code music.storage.backend=s3}.
+ * Object keys are the song paths relative to {@code music.storage.base-path}, under {@code keyPrefix}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "music.storage.s3")
+@Data
+public class ObjectStorageProperties {
+    private String bucket;
+    private String region = "us-east-1";
+    // Non-AWS stores (MinIO, Azure gateways, ...); null means the AWS endpoint for the region
+    private String endpoint;
+    private boolean pathStyleAccess = false;
+    // Static credentials; when unset the default AWS credential chain is used
+    private String accessKey;
+    private String secretKey;
+    private String keyPrefix = "";
+    private int maxConnections = 64;
+    // Explicit ranges larger than parallelThreshold are fetched as partSize parts, partConcurrency at a time
+    private long partSize = 8L * 1024 * 1024;
+    private long parallelThreshold = 16L * 1024 * 1024;
+    private int partConcurrency = 4;
+    // Bytes a part fetched ahead of the writer may buffer before its GET waits for the writer
+    private long partBufferBytes = 1024 * 1024;
+    // Parts fetched ahead across all streams; without a permit the writer reads the part itself
+    private int maxPrefetchedParts = 32;
+}
@@ -1,5 +1,6 @@
 package org.muzika.queuemanager.config;
 
+import jakarta.servlet.DispatcherType;
 import org.muzika.queuemanager.filters.JwtAuthenticationFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -53,7 +54,12 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> {
-                auth.requestMatchers("/", "/health", "/actuator/health", "/actuator/**").permitAll();
+                // Only health is public; metrics and the other actuator endpoints need a token
+                auth.requestMatchers("/", "/health", "/actuator/health", "/actuator/health/**").permitAll();
+                // Signed stream URLs carry their own authorization (see StreamTokenService)
+                auth.requestMatchers(JwtAuthenticationFilter.STREAM_PATH_PREFIX + "**").permitAll();
+                // Async dispatches (end of an SSE stream) belong to a request that was already authorized
+                auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
                 // Allow Swagger UI endpoints without authentication on local profile (not k8s)
                 if (!isK8sProfile) {
                     auth.requestMatchers("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**", "/api-docs/**").permitAll();
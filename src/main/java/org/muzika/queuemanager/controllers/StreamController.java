@@ -0,0 +1,97 @@
+package org.muzika.queuemanager.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.muzika.queuemanager.services.AudioStreamingService;
+import org.muzika.queuemanager.services.FileStorageService;
+import org.muzika.queuemanager.services.SongResponseHeaders;
+import org.muzika.queuemanager.services.StreamTokenService;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Lean streaming path for signed stream URLs issued by POST /api/queue/songs/{id}/stream-token.
+ * Skips JWT authentication; a request costs one MAC check, and a song lookup only when the
+ * token was issued by another instance.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/stream")
+@Tag(name = "Stream", description = "Song streaming via signed URLs")
+public class StreamController {
+
+    private final StreamTokenService streamTokenService;
+    private final FileStorageService fileStorageService;
+    private final AudioStreamingService audioStreamingService;
+
+    public StreamController(StreamTokenService streamTokenService, FileStorageService fileStorageService,
+                            AudioStreamingService audioStreamingService) {
+        this.streamTokenService = streamTokenService;
+        this.fileStorageService = fileStorageService;
+        this.audioStreamingService = audioStreamingService;
+    }
+
+    @GetMapping("/{token}")
+    @Operation(
+        summary = "Stream song file",
+        description = "Serve the song file named by a signed stream token. Supports Range and conditional requests "
+                + "like GET /api/queue/songs/{id}, with the same ETag."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Song file"),
+        @ApiResponse(responseCode = "206", description = "Requested byte range(s) of the song file"),
+        @ApiResponse(responseCode = "304", description = "Client copy is still valid"),
+        @ApiResponse(responseCode = "403", description = "Token invalid or expired"),
+        @ApiResponse(responseCode = "404", description = "Song file missing or replaced since the token was issued"),
+        @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
+    })
+    public ResponseEntity<Resource> stream(
+        @Parameter(description = "Signed stream token", required = true)
+        @PathVariable String token,
+        HttpServletRequest request,
+        HttpServletResponse response) {
+        Optional<StreamTokenService.StreamGrant> verified = streamTokenService.verify(token);
+        if (verified.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        StreamTokenService.StreamGrant grant = verified.get();
+        Optional<String> filePath = streamTokenService.resolvePath(grant);
+        if (filePath.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            Resource resource = fileStorageService.getFile(filePath.get(), grant.sizeBytes());
+            audioStreamingService.serve(resource, grant.sizeBytes(),
+                    SongResponseHeaders.mediaType(grant.codec(), filePath.get()),
+                    SongResponseHeaders.headers(grant.songId(), filePath.get(), grant.sizeBytes(), grant.fileModifiedAt()),
+                    request, response);
+            return null;
+        } catch (IOException e) {
+            if (response.isCommitted()) {
+                log.debug("Streaming song {} aborted: {}", grant.songId(), e.getMessage());
+                return null;
+            }
+            log.error("Error retrieving file for song {}: {}", grant.songId(), e.getMessage());
+            response.reset();
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid file path for song {}: {}", grant.songId(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
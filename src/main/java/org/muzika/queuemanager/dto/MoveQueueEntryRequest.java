@@ -0,0 +1,16 @@
+package org.muzika.queuemanager.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Schema(description = "Request to move a queue entry to another position")
+public class MoveQueueEntryRequest {
+    @Schema(description = "Queue entry ID", example = "880e8400-e29b-41d4-a716-446655440003", required = true)
+    private UUID queueEntryId;
+
+    @Schema(description = "Target position in queue (0-based, counted without the moved entry)", example = "0", required = true)
+    private Integer position;
+}
@@ -0,0 +1,38 @@
+package org.muzika.queuemanager.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Something the player did with a song, recorded when it happened")
+public class PlayEvent {
+
+    public enum Type {
+        /** Played to the end: counts a listen and removes the song from the queue. */
+        FINISHED,
+        /** Skipped: marks the song skipped and removes it from the queue. */
+        SKIPPED,
+        /** Liked. */
+        LIKED
+    }
+
+    @Schema(description = "Event", example = "FINISHED", required = true)
+    private Type type;
+
+    @Schema(description = "Song UUID", example = "770e8400-e29b-41d4-a716-446655440002", required = true)
+    private UUID songId;
+
+    @Schema(description = "Optional queue entry the song was played from (FINISHED, SKIPPED); otherwise the first entry of the song is removed",
+            example = "880e8400-e29b-41d4-a716-446655440003")
+    private UUID queueEntryId;
+
+    @Schema(description = "When it happened on the player; time of receipt if omitted", example = "2025-01-01T12:00:00Z")
+    private Instant occurredAt;
+}
@@ -0,0 +1,13 @@
+package org.muzika.queuemanager.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Play events collected by the player, e.g. while offline")
+public class PlayEventBatchRequest {
+    @Schema(description = "Events, in any order; they are applied by occurredAt", required = true)
+    private List<PlayEvent> events;
+}
@@ -0,0 +1,24 @@
+package org.muzika.queuemanager.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of a play event batch")
+public class PlayEventBatchResponse {
+    @Schema(description = "Number of events applied", example = "12")
+    private int applied;
+
+    @Schema(description = "Number of queue entries removed", example = "9")
+    private int removedFromQueue;
+
+    @Schema(description = "Songs that no longer exist; their events were ignored")
+    private List<UUID> unknownSongs;
+}
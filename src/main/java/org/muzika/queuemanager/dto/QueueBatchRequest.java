@@ -0,0 +1,17 @@
+package org.muzika.queuemanager.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Operations applied to the queue in order, all or none")
+public class QueueBatchRequest {
+    @Schema(description = "Operations in the order to apply them", required = true)
+    private List<QueueOperation> operations;
+
+    @Schema(description = "Optional queue version the operations are based on; rejected with 409 if the queue has changed since",
+            example = "42")
+    private Long expectedVersion;
+}
@@ -0,0 +1,57 @@
+package org.muzika.queuemanager.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One change to a queue entry")
+public class QueueChange {
+
+    public enum Type {
+        /** Entry inserted at {@code position}; entries at or after it shift down by one. */
+        ADDED,
+        /** Entry removed; entries after it shift up by one. */
+        REMOVED,
+        /** Entry taken out and re-inserted at {@code position}. */
+        MOVED,
+        /** Every entry removed. */
+        CLEARED
+    }
+
+    @Schema(description = "Kind of change", example = "ADDED", required = true)
+    private Type type;
+
+    @Schema(description = "Queue entry ID (all but CLEARED)", example = "880e8400-e29b-41d4-a716-446655440003")
+    private UUID queueEntryId;
+
+    @Schema(description = "Song UUID of the entry (all but CLEARED)", example = "770e8400-e29b-41d4-a716-446655440002")
+    private UUID songId;
+
+    @Schema(description = "0-based position after the change (ADDED, MOVED)", example = "3")
+    private Integer position;
+
+    @Schema(description = "The added song (ADDED only)")
+    private SongDTO song;
+
+    public static QueueChange added(UUID queueEntryId, int position, SongDTO song) {
+        return new QueueChange(Type.ADDED, queueEntryId, song.getId(), position, song);
+    }
+
+    public static QueueChange removed(UUID queueEntryId, UUID songId) {
+        return new QueueChange(Type.REMOVED, queueEntryId, songId, null, null);
+    }
+
+    public static QueueChange moved(UUID queueEntryId, UUID songId, int position) {
+        return new QueueChange(Type.MOVED, queueEntryId, songId, position, null);
+    }
+
+    public static QueueChange cleared() {
+        return new QueueChange(Type.CLEARED, null, null, null, null);
+    }
+}
@@ -0,0 +1,20 @@
+package org.muzika.queuemanager.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Changes that bring a queue to the given version, to be applied in order")
+public class QueueDelta {
+    @Schema(description = "Queue version after applying the changes", example = "42", required = true)
+    private long version;
+
+    @Schema(description = "Changes in the order they happened", required = true)
+    private List<QueueChange> changes;
+}
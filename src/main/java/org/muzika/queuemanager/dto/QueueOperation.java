@@ -0,0 +1,38 @@
+package org.muzika.queuemanager.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One operation of a batch queue update")
+public class QueueOperation {
+
+    public enum Type {
+        /** Insert {@code songId} at {@code position} (end of the queue if omitted). */
+        ADD,
+        /** Remove the entry {@code queueEntryId}. */
+        REMOVE,
+        /** Move the entry {@code queueEntryId} to {@code position}. */
+        MOVE,
+        /** Remove every entry. */
+        CLEAR
+    }
+
+    @Schema(description = "Operation", example = "MOVE", required = true)
+    private Type type;
+
+    @Schema(description = "Song to add (ADD)", example = "770e8400-e29b-41d4-a716-446655440002")
+    private UUID songId;
+
+    @Schema(description = "Entry to remove or move (REMOVE, MOVE)", example = "880e8400-e29b-41d4-a716-446655440003")
+    private UUID queueEntryId;
+
+    @Schema(description = "0-based target position, as of this point in the batch (ADD, MOVE)", example = "0")
+    private Integer position;
+}
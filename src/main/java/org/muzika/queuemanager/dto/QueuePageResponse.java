@@ -0,0 +1,19 @@
+package org.muzika.queuemanager.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "One page of the queue")
+public class QueuePageResponse {
+    @Schema(description = "Songs of this page, in queue order", required = true)
+    private List<SongDTO> songs;
+
+    @Schema(description = "Queue version when this page was read", example = "42")
+    private long version;
+
+    @Schema(description = "Cursor for the next page; absent on the last page", example = "MjA0ODo4ODBlODQwMC1lMjliLTQxZDQtYTcxNi00NDY2NTU0NDAwMDM")
+    private String nextCursor;
+}
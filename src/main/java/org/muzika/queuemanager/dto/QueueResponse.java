@@ -10,5 +10,8 @@ import java.util.List;
 public class QueueResponse {
     @Schema(description = "List of songs in the queue", required = true)
     private List<SongDTO> songs;
+
+    @Schema(description = "Queue version this snapshot reflects; resume change streams from here", example = "42")
+    private long version;
 }
 
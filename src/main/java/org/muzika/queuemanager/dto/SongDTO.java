@@ -2,6 +2,7 @@ package org.muzika.queuemanager.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
+import org.muzika.queuemanager.entities.Song;
 
 import java.util.UUID;
 
@@ -31,5 +32,17 @@ public class SongDTO {
     
     @Schema(description = "Optional queue entry ID - only present when returned as part of a queue", example = "880e8400-e29b-41d4-a716-446655440003")
     private UUID queueEntryId;
+
+    public static SongDTO from(Song song) {
+        SongDTO dto = new SongDTO();
+        dto.setId(song.getId());
+        dto.setTitle(song.getTitle());
+        dto.setArtist(song.getArtist());
+        dto.setAlbum(song.getAlbum());
+        dto.setGenre(song.getGenre());
+        dto.setDuration(song.getDuration());
+        dto.setUrl(song.getUrl());
+        return dto;
+    }
 }
 
@@ -0,0 +1,23 @@
+package org.muzika.queuemanager.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Signed, short-lived URL for streaming one song without a bearer token")
+public class StreamTokenResponse {
+    @Schema(description = "Signed stream token", required = true)
+    private String token;
+
+    @Schema(description = "Path to stream the song from (supports Range requests)", example = "/api/stream/AQ...", required = true)
+    private String url;
+
+    @Schema(description = "When the token stops being accepted", required = true)
+    private Instant expiresAt;
+}
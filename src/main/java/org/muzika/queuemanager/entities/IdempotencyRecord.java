@@ -0,0 +1,50 @@
+package org.muzika.queuemanager.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response of a request sent with an {@code Idempotency-Key}, kept until {@code expiresAt}
+ * so a retried request gets the same answer without being executed again. The row is
+ * inserted as {@link #PENDING} before the request runs and filled in once it completed.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+public class IdempotencyRecord {
+
+    /** Status of a claimed key whose request is still running. */
+    public static final int PENDING = 0;
+
+    /** SHA-256 of owner, operation and client key. */
+    @Id
+    @Column(name = "record_key", length = 64)
+    private String recordKey;
+
+    /** SHA-256 of the request body, to catch a key reused for a different request. */
+    @Column(name = "request_hash", length = 64, nullable = false)
+    private String requestHash;
+
+    @Column(name = "status_code", nullable = false)
+    private int statusCode;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,32 @@
+package org.muzika.queuemanager.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Identity of a Kafka message that has already been applied, kept until {@code expiresAt}
+ * so redeliveries after a rebalance can be discarded before any entity work.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "processed_messages", indexes = {
+        @Index(name = "idx_processed_messages_expires_at", columnList = "expires_at")
+})
+public class ProcessedMessage {
+
+    @Id
+    @Column(name = "message_key", length = 160)
+    private String messageKey;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
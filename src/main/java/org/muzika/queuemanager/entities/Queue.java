@@ -16,8 +16,18 @@ import java.util.UUID;
 @EqualsAndHashCode(exclude = {"user", "queueSongs"})
 @Entity
 @Table(name = "queue")
+@NamedEntityGraph(name = Queue.ENTRIES_GRAPH, attributeNodes = @NamedAttributeNode("queueSongs"))
+@NamedEntityGraph(name = Queue.VIEW_GRAPH,
+        attributeNodes = @NamedAttributeNode(value = "queueSongs", subgraph = "entries"),
+        subgraphs = @NamedSubgraph(name = "entries", attributeNodes = @NamedAttributeNode("song")))
 public class Queue {
 
+    /** Entries without their songs: enough to change the queue. */
+    public static final String ENTRIES_GRAPH = "Queue.entries";
+
+    /** Entries and their songs, for showing the whole queue. */
+    public static final String VIEW_GRAPH = "Queue.view";
+
     @Id
     @Column(name = "user_uuid")
     private UUID userUuid;
@@ -39,8 +49,18 @@ public class Queue {
         }
     }
 
+    /**
+     * Incremented once per committed change to the queue; only written by
+     * {@link org.muzika.queuemanager.repository.QueueRepository#incrementVersion(UUID)}.
+     */
+    @Column(name = "version", insertable = false, updatable = false)
+    private Long version;
+
+    /**
+     * Lazy; repository methods that need it name {@link #ENTRIES_GRAPH} or {@link #VIEW_GRAPH}.
+     */
     @OneToMany(mappedBy = "queue", cascade={CascadeType.PERSIST, CascadeType.REFRESH, CascadeType.MERGE, CascadeType.REMOVE},
-            fetch=FetchType.EAGER)
+            fetch=FetchType.LAZY)
     @OrderBy("position ASC")
     private List<QueueSong> queueSongs = new ArrayList<>();
 
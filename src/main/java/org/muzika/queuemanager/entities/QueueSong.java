@@ -16,6 +16,10 @@ import java.util.UUID;
             name = "UK_queue_user_song",
             columnNames = {"queue_user_uuid", "songs_id"}
         )
+    },
+    indexes = {
+        // Ordered and paged reads of one queue: WHERE queue_user_uuid = ? ORDER BY position
+        @Index(name = "idx_queue_songs_user_position", columnList = "queue_user_uuid, position")
     }
 )
 public class QueueSong {
@@ -43,7 +47,7 @@ public class QueueSong {
     @EqualsAndHashCode.Exclude
     private Queue queue;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "songs_id", referencedColumnName = "id", insertable = false, updatable = false)
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
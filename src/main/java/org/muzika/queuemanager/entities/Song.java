@@ -24,6 +24,15 @@ public class Song {
     private Long duration;
     private String url;
 
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    private String codec;
+
+    // Epoch millis of the file's last modification, stored so validators need no stat per request
+    @Column(name = "file_modified_at")
+    private Long fileModifiedAt;
+
     @OneToMany(mappedBy = "song", cascade = CascadeType.MERGE)
     @ToString.Exclude  // Exclude from toString
     @EqualsAndHashCode.Exclude  // Exclude from equals/hashCode
@@ -45,6 +54,9 @@ public class Song {
                 ", genre='" + genre + '\'' +
                 ", duration=" + duration +
                 ", url='" + url + '\'' +
+                ", sizeBytes=" + sizeBytes +
+                ", codec='" + codec + '\'' +
+                ", fileModifiedAt=" + fileModifiedAt +
                 '}';
     }
 
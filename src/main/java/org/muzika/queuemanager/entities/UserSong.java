@@ -3,6 +3,8 @@ package org.muzika.queuemanager.entities;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -11,8 +13,16 @@ import java.util.UUID;
 @Data
 @Table(name = "user_songs")
 @IdClass(UserSongId.class)
+@NamedEntityGraph(name = UserSong.USER_GRAPH, attributeNodes = @NamedAttributeNode("user"))
+@NamedEntityGraph(name = UserSong.SONG_GRAPH, attributeNodes = @NamedAttributeNode("song"))
 public class UserSong {
 
+    /** With the owning user, to find whose song it is (cleanup). */
+    public static final String USER_GRAPH = "UserSong.user";
+
+    /** With the song, for listing a user's library. */
+    public static final String SONG_GRAPH = "UserSong.song";
+
     @Id
     @Column(name = "user_id")
     private UUID userId;
@@ -21,12 +31,16 @@ public class UserSong {
     @Column(name = "song_id")
     private UUID songId;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "song_id", insertable = false, updatable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Song song;
 
     @Column(name = "listen_count")
@@ -18,7 +18,21 @@ public class LoadedSong {
     private String filePath;
     private Status status;
 
-
+    // Optional since v2 - echoed back from RequestRandomSong so the queue owner
+    // does not have to be looked up; older producers leave these null.
+    private UUID userUuid;
+    private String username;
+
+    // Optional since v2 - file facts known to the downloader
+    private Long sizeBytes;
+    private Long durationMs;
+    private String codec;
+
+    public LoadedSong(UUID uuid, String filePath, Status status) {
+        this.uuid = uuid;
+        this.filePath = filePath;
+        this.status = status;
+    }
 
 
     public enum Status {
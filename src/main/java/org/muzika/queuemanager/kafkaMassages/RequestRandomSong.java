@@ -15,4 +15,13 @@ public class RequestRandomSong {
     private UUID songId;
     private String genre;
 
+    // Queue owner, to be echoed back in LoadedSong
+    private UUID userUuid;
+    private String username;
+
+    public RequestRandomSong(UUID songId, String genre) {
+        this.songId = songId;
+        this.genre = genre;
+    }
+
 }
@@ -0,0 +1,54 @@
+package org.muzika.queuemanager.kafkaMassages.codec;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+
+/**
+ * Value deserializer that accepts both the compact binary format and JSON.
+ * Payloads starting with {@link CompactBinaryFormat#MAGIC} are decoded directly,
+ * everything else goes to a {@link JsonDeserializer} configured from the same
+ * properties, so a topic can switch codec without draining it first.
+ * The target type is taken from {@link JsonDeserializer#VALUE_DEFAULT_TYPE}.
+ */
+public class CompactBinaryDeserializer<T> implements Deserializer<T> {
+
+    private final JsonDeserializer<T> jsonDeserializer = new JsonDeserializer<>();
+    private Class<T> targetType;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+        Object defaultType = configs.get(JsonDeserializer.VALUE_DEFAULT_TYPE);
+        if (defaultType instanceof Class<?> type) {
+            targetType = (Class<T>) type;
+        } else if (defaultType instanceof String typeName) {
+            targetType = (Class<T>) ClassUtils.resolveClassName(typeName, ClassUtils.getDefaultClassLoader());
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (CompactBinaryFormat.isCompactBinary(data)) {
+            return CompactBinaryFormat.decode(data, targetType);
+        }
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        if (CompactBinaryFormat.isCompactBinary(data)) {
+            return CompactBinaryFormat.decode(data, targetType);
+        }
+        return jsonDeserializer.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,158 @@
+package org.muzika.queuemanager.kafkaMassages.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.muzika.queuemanager.kafkaMassages.LikedSongEvent;
+import org.muzika.queuemanager.kafkaMassages.LoadedSong;
+import org.muzika.queuemanager.kafkaMassages.RequestRandomSong;
+import org.muzika.queuemanager.kafkaMassages.RequestSlskdSong;
+import org.muzika.queuemanager.kafkaMassages.UnlikedSongEvent;
+import org.muzika.queuemanager.kafkaMassages.UserCreatedEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Schema-based binary encoding for the Kafka messages in {@code kafkaMassages}.
+ *
+ * <pre>
+ * payload := MAGIC FORMAT_VERSION schemaId field*
+ * field   := (tag &lt;&lt; 3 | type) value
+ * value   := 16 bytes (UUID) | varint length + UTF-8 (STRING) | zig-zag varint (VARLONG)
+ * </pre>
+ *
+ * Every field carries its own type, so readers skip tags they do not know and
+ * producers may add fields without breaking older consumers. The magic byte is
+ * never a valid first byte of JSON, which lets consumers accept both formats.
+ */
+public final class CompactBinaryFormat {
+
+    public static final int MAGIC = 0xB1;
+    public static final int FORMAT_VERSION = 1;
+
+    static final int TYPE_UUID = 0;
+    static final int TYPE_STRING = 1;
+    static final int TYPE_VARLONG = 2;
+
+    private static final Map<Class<?>, MessageSchema<?>> BY_TYPE = new HashMap<>();
+    private static final Map<Integer, MessageSchema<?>> BY_ID = new HashMap<>();
+
+    static {
+        register(new MessageSchema<>(1, LoadedSong.class, LoadedSong::new,
+                (m, out) -> out.uuid(1, m.getUuid()).string(2, m.getFilePath()).enumName(3, m.getStatus())
+                        .uuid(4, m.getUserUuid()).string(5, m.getUsername())
+                        .varLong(6, m.getSizeBytes()).varLong(7, m.getDurationMs()).string(8, m.getCodec()),
+                (m, in) -> switch (in.tag()) {
+                    case 1 -> { m.setUuid(in.uuid()); yield true; }
+                    case 2 -> { m.setFilePath(in.string()); yield true; }
+                    case 3 -> { m.setStatus(in.enumName(LoadedSong.Status.class)); yield true; }
+                    case 4 -> { m.setUserUuid(in.uuid()); yield true; }
+                    case 5 -> { m.setUsername(in.string()); yield true; }
+                    case 6 -> { m.setSizeBytes(in.varLong()); yield true; }
+                    case 7 -> { m.setDurationMs(in.varLong()); yield true; }
+                    case 8 -> { m.setCodec(in.string()); yield true; }
+                    default -> false;
+                }));
+        register(new MessageSchema<>(2, RequestRandomSong.class, RequestRandomSong::new,
+                (m, out) -> out.uuid(1, m.getSongId()).string(2, m.getGenre())
+                        .uuid(3, m.getUserUuid()).string(4, m.getUsername()),
+                (m, in) -> switch (in.tag()) {
+                    case 1 -> { m.setSongId(in.uuid()); yield true; }
+                    case 2 -> { m.setGenre(in.string()); yield true; }
+                    case 3 -> { m.setUserUuid(in.uuid()); yield true; }
+                    case 4 -> { m.setUsername(in.string()); yield true; }
+                    default -> false;
+                }));
+        register(new MessageSchema<>(3, RequestSlskdSong.class, RequestSlskdSong::new,
+                (m, out) -> out.uuid(1, m.getId()).string(2, m.getTitle()).string(3, m.getArtist()),
+                (m, in) -> switch (in.tag()) {
+                    case 1 -> { m.setId(in.uuid()); yield true; }
+                    case 2 -> { m.setTitle(in.string()); yield true; }
+                    case 3 -> { m.setArtist(in.string()); yield true; }
+                    default -> false;
+                }));
+        register(new MessageSchema<>(4, LikedSongEvent.class, LikedSongEvent::new,
+                (m, out) -> out.uuid(1, m.getUserId()).string(2, m.getUsername()).uuid(3, m.getSongId()),
+                (m, in) -> switch (in.tag()) {
+                    case 1 -> { m.setUserId(in.uuid()); yield true; }
+                    case 2 -> { m.setUsername(in.string()); yield true; }
+                    case 3 -> { m.setSongId(in.uuid()); yield true; }
+                    default -> false;
+                }));
+        register(new MessageSchema<>(5, UnlikedSongEvent.class, UnlikedSongEvent::new,
+                (m, out) -> out.uuid(1, m.getUserId()).string(2, m.getUsername()).uuid(3, m.getSongId()),
+                (m, in) -> switch (in.tag()) {
+                    case 1 -> { m.setUserId(in.uuid()); yield true; }
+                    case 2 -> { m.setUsername(in.string()); yield true; }
+                    case 3 -> { m.setSongId(in.uuid()); yield true; }
+                    default -> false;
+                }));
+        register(new MessageSchema<>(6, UserCreatedEvent.class, UserCreatedEvent::new,
+                (m, out) -> out.uuid(1, m.getUserId()).string(2, m.getUsername()),
+                (m, in) -> switch (in.tag()) {
+                    case 1 -> { m.setUserId(in.uuid()); yield true; }
+                    case 2 -> { m.setUsername(in.string()); yield true; }
+                    default -> false;
+                }));
+    }
+
+    private CompactBinaryFormat() {
+    }
+
+    private static void register(MessageSchema<?> schema) {
+        BY_TYPE.put(schema.type(), schema);
+        BY_ID.put(schema.id(), schema);
+    }
+
+    public static boolean supports(Class<?> type) {
+        return BY_TYPE.containsKey(type);
+    }
+
+    public static boolean isCompactBinary(byte[] data) {
+        return data != null && data.length >= 3 && (data[0] & 0xFF) == MAGIC;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> byte[] encode(T message) {
+        MessageSchema<T> schema = (MessageSchema<T>) BY_TYPE.get(message.getClass());
+        if (schema == null) {
+            throw new SerializationException("No compact binary schema for " + message.getClass().getName());
+        }
+        CompactBinaryWriter out = new CompactBinaryWriter(64);
+        out.header(schema.id());
+        schema.writer().write(message, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a payload produced by {@link #encode(Object)}.
+     *
+     * @param expectedType the type the consumer wants, or null to trust the schema id in the header
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T decode(byte[] data, Class<T> expectedType) {
+        if (!isCompactBinary(data)) {
+            throw new SerializationException("Not a compact binary payload");
+        }
+        int formatVersion = data[1] & 0xFF;
+        if (formatVersion > FORMAT_VERSION) {
+            throw new SerializationException("Unsupported compact binary format version " + formatVersion);
+        }
+        MessageSchema<T> schema = (MessageSchema<T>) BY_ID.get(data[2] & 0xFF);
+        if (schema == null) {
+            throw new SerializationException("Unknown compact binary schema id " + (data[2] & 0xFF));
+        }
+        if (expectedType != null && !expectedType.isAssignableFrom(schema.type())) {
+            throw new SerializationException("Payload holds " + schema.type().getSimpleName()
+                    + " but " + expectedType.getSimpleName() + " was expected");
+        }
+
+        T message = schema.factory().get();
+        CompactBinaryReader in = new CompactBinaryReader(data, 3);
+        while (in.nextField()) {
+            if (!schema.reader().read(message, in)) {
+                in.skip();
+            }
+        }
+        return message;
+    }
+}
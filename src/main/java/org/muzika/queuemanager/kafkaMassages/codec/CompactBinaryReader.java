@@ -0,0 +1,148 @@
+package org.muzika.queuemanager.kafkaMassages.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Cursor over a compact binary payload. Call {@link #nextField()} to advance, then read
+ * the current field with the accessor matching {@link #type()} or {@link #skip()} it.
+ */
+public final class CompactBinaryReader {
+
+    private final byte[] data;
+    private int position;
+    private int tag;
+    private int type;
+    private boolean consumed = true;
+
+    CompactBinaryReader(byte[] data, int offset) {
+        this.data = data;
+        this.position = offset;
+    }
+
+    boolean nextField() {
+        if (!consumed) {
+            skip();
+        }
+        if (position >= data.length) {
+            return false;
+        }
+        int header = data[position++] & 0xFF;
+        tag = header >>> 3;
+        type = header & 0x07;
+        consumed = false;
+        return true;
+    }
+
+    public int tag() {
+        return tag;
+    }
+
+    public int type() {
+        return type;
+    }
+
+    public UUID uuid() {
+        expect(CompactBinaryFormat.TYPE_UUID);
+        require(16);
+        long most = getLong();
+        long least = getLong();
+        consumed = true;
+        return new UUID(most, least);
+    }
+
+    public String string() {
+        expect(CompactBinaryFormat.TYPE_STRING);
+        int length = varInt();
+        require(length);
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        consumed = true;
+        return value;
+    }
+
+    public long varLong() {
+        expect(CompactBinaryFormat.TYPE_VARLONG);
+        long zigZag = rawVarLong();
+        consumed = true;
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    /**
+     * Resolves an enum written by name; names this build does not know map to null
+     * instead of failing the whole record.
+     */
+    public <E extends Enum<E>> E enumName(Class<E> enumType) {
+        String name = string();
+        for (E constant : enumType.getEnumConstants()) {
+            if (constant.name().equals(name)) {
+                return constant;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Skips the current field. Used for tags added by newer producers so older
+     * consumers keep working.
+     */
+    public void skip() {
+        switch (type) {
+            case CompactBinaryFormat.TYPE_UUID -> {
+                require(16);
+                position += 16;
+            }
+            case CompactBinaryFormat.TYPE_STRING -> {
+                int length = varInt();
+                require(length);
+                position += length;
+            }
+            case CompactBinaryFormat.TYPE_VARLONG -> rawVarLong();
+            default -> throw new SerializationException("Unknown field type " + type + " for tag " + tag);
+        }
+        consumed = true;
+    }
+
+    private void expect(int expectedType) {
+        if (type != expectedType) {
+            throw new SerializationException("Field " + tag + " has type " + type + ", expected " + expectedType);
+        }
+    }
+
+    private int varInt() {
+        long value = rawVarLong();
+        if (value > Integer.MAX_VALUE) {
+            throw new SerializationException("Length out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    private long rawVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            require(1);
+            byte b = data[position++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new SerializationException("Malformed varint");
+    }
+
+    private long getLong() {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (data[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private void require(int length) {
+        if (length < 0 || position + length > data.length) {
+            throw new SerializationException("Truncated compact binary payload");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.muzika.queuemanager.kafkaMassages.codec;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serializer for the compact binary format. Selected per topic in
+ * {@code KafkaConfig} via {@code kafka.codec.binary-topics}.
+ */
+public class CompactBinarySerializer implements Serializer<Object> {
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return data == null ? null : CompactBinaryFormat.encode(data);
+    }
+}
@@ -0,0 +1,100 @@
+package org.muzika.queuemanager.kafkaMassages.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Appends tagged fields in the compact binary wire format.
+ * Null values are simply omitted, so absent and null are the same thing on the wire.
+ */
+public final class CompactBinaryWriter {
+
+    private byte[] buffer;
+    private int size;
+
+    CompactBinaryWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    public CompactBinaryWriter uuid(int tag, UUID value) {
+        if (value == null) {
+            return this;
+        }
+        fieldHeader(tag, CompactBinaryFormat.TYPE_UUID);
+        ensureCapacity(16);
+        putLong(value.getMostSignificantBits());
+        putLong(value.getLeastSignificantBits());
+        return this;
+    }
+
+    public CompactBinaryWriter string(int tag, String value) {
+        if (value == null) {
+            return this;
+        }
+        fieldHeader(tag, CompactBinaryFormat.TYPE_STRING);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        varInt(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+        return this;
+    }
+
+    public CompactBinaryWriter varLong(int tag, Long value) {
+        if (value == null) {
+            return this;
+        }
+        fieldHeader(tag, CompactBinaryFormat.TYPE_VARLONG);
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        writeByte((int) zigZag);
+        return this;
+    }
+
+    public CompactBinaryWriter enumName(int tag, Enum<?> value) {
+        return string(tag, value == null ? null : value.name());
+    }
+
+    void header(int schemaId) {
+        writeByte(CompactBinaryFormat.MAGIC);
+        writeByte(CompactBinaryFormat.FORMAT_VERSION);
+        writeByte(schemaId);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void fieldHeader(int tag, int type) {
+        writeByte((tag << 3) | type);
+    }
+
+    private void varInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void putLong(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[size++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.muzika.queuemanager.kafkaMassages.codec;
+
+import java.util.function.Supplier;
+
+/**
+ * Field layout of one message type in the compact binary format.
+ * Tags are stable identifiers: never reuse a tag for a different meaning, only add new ones.
+ *
+ * @param id       schema id written into the payload header
+ * @param type     message class
+ * @param factory  creates an empty message to populate while reading
+ * @param writer   writes all non-null fields
+ * @param reader   populates the field at the reader's current tag; returns false for unknown tags
+ */
+public record MessageSchema<T>(int id,
+                               Class<T> type,
+                               Supplier<T> factory,
+                               FieldWriter<T> writer,
+                               FieldReader<T> reader) {
+
+    @FunctionalInterface
+    public interface FieldWriter<T> {
+        void write(T message, CompactBinaryWriter out);
+    }
+
+    @FunctionalInterface
+    public interface FieldReader<T> {
+        boolean read(T message, CompactBinaryReader in);
+    }
+}
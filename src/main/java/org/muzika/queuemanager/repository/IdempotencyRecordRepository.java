@@ -0,0 +1,47 @@
+package org.muzika.queuemanager.repository;
+
+import jakarta.transaction.Transactional;
+import org.muzika.queuemanager.entities.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Transactional
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claims a key with a pending row. A plain INSERT rather than save(), which would merge
+     * into an existing row: a key that is already claimed fails with a
+     * {@link org.springframework.dao.DataIntegrityViolationException}.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (record_key, request_hash, status_code, created_at, expires_at) "
+            + "VALUES (:recordKey, :requestHash, " + IdempotencyRecord.PENDING + ", :now, :expiresAt)",
+            nativeQuery = true)
+    void insertPending(@Param("recordKey") String recordKey, @Param("requestHash") String requestHash,
+                       @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.contentType = :contentType, "
+            + "r.responseBody = :responseBody, r.expiresAt = :expiresAt WHERE r.recordKey = :recordKey")
+    int complete(@Param("recordKey") String recordKey, @Param("statusCode") int statusCode,
+                 @Param("contentType") String contentType, @Param("responseBody") String responseBody,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.recordKey = :recordKey AND r.statusCode = " + IdempotencyRecord.PENDING)
+    int deletePending(@Param("recordKey") String recordKey);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.recordKey = :recordKey AND r.expiresAt < :now")
+    int deleteExpired(@Param("recordKey") String recordKey, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,20 @@
+package org.muzika.queuemanager.repository;
+
+import jakarta.transaction.Transactional;
+import org.muzika.queuemanager.entities.ProcessedMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Transactional
+@Repository
+public interface ProcessedMessageRepository extends JpaRepository<ProcessedMessage, String> {
+
+    @Modifying
+    @Query("DELETE FROM ProcessedMessage p WHERE p.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,9 @@
+package org.muzika.queuemanager.repository;
+
+import java.util.UUID;
+
+/**
+ * A queue entry's id, song and ordering key, read without loading the entry.
+ */
+public record QueueEntryKey(UUID id, UUID songId, Integer position) {
+}
@@ -3,7 +3,11 @@ package org.muzika.queuemanager.repository;
 
 import org.muzika.queuemanager.entities.Queue;
 import org.muzika.queuemanager.entities.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.UUID;
@@ -12,7 +16,28 @@ import java.util.UUID;
 public interface QueueRepository extends JpaRepository<Queue, UUID> {
 
 
+    @EntityGraph(Queue.ENTRIES_GRAPH)
     Queue findByUser_UserName(String username);
 
+    /**
+     * The queue with its entries and their songs, in one query.
+     */
+    @EntityGraph(Queue.VIEW_GRAPH)
+    Queue findWithSongsByUser_UserName(String username);
+
+    /**
+     * Bumps the change version in place; the row lock also serializes concurrent
+     * changes to the same queue until the transaction ends.
+     */
+    @Modifying
+    @Query("update Queue q set q.version = coalesce(q.version, 0) + 1 where q.userUuid = :userUuid")
+    int incrementVersion(@Param("userUuid") UUID userUuid);
+
+    @Query("select coalesce(q.version, 0) from Queue q where q.userUuid = :userUuid")
+    Long findVersion(@Param("userUuid") UUID userUuid);
+
+    @Query("select new org.muzika.queuemanager.repository.QueueVersion(q.userUuid, coalesce(q.version, 0L)) "
+            + "from Queue q where q.user.userName = :username")
+    QueueVersion findVersionByUserName(@Param("username") String username);
 
 }
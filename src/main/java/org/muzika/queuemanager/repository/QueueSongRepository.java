@@ -2,7 +2,11 @@ package org.muzika.queuemanager.repository;
 
 import jakarta.transaction.Transactional;
 import org.muzika.queuemanager.entities.QueueSong;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,15 +14,53 @@ import java.util.UUID;
 
 @Transactional
 @Repository
-public interface QueueSongRepository extends JpaRepository<QueueSong, UUID> {
+public interface QueueSongRepository extends JpaRepository<QueueSong, UUID>, QueueSongRepositoryCustom {
 
     List<QueueSong> findByQueueUserUuid(UUID queueUserUuid);
     
     List<QueueSong> findBySongsId(UUID songsId);
     
     List<QueueSong> findByQueueUserUuidAndSongsId(UUID queueUserUuid, UUID songsId);
+
+    boolean existsByQueue_User_UserNameAndSongsId(String userName, UUID songsId);
+
+    List<QueueSong> findByQueueUserUuidOrderByPositionAsc(UUID queueUserUuid);
+
+    /**
+     * Entry ids and ordering keys of a queue, in order, without loading the entries or their songs.
+     */
+    @Query("select new org.muzika.queuemanager.repository.QueueEntryKey(qs.id, qs.songsId, qs.position) "
+            + "from QueueSong qs where qs.queueUserUuid = :queueUserUuid order by qs.position")
+    List<QueueEntryKey> findKeysByQueueUserUuid(@Param("queueUserUuid") UUID queueUserUuid);
+
+    /**
+     * First {@code limit} entries of a queue with their songs, in order.
+     */
+    @Query("select qs from QueueSong qs join fetch qs.song "
+            + "where qs.queueUserUuid = :queueUserUuid order by qs.position, qs.id")
+    List<QueueSong> findPage(@Param("queueUserUuid") UUID queueUserUuid, Limit limit);
+
+    /**
+     * The {@code limit} entries following the one at ({@code position}, {@code id}), with
+     * their songs. Seeks on the (queue_user_uuid, position) index instead of skipping rows.
+     */
+    @Query("select qs from QueueSong qs join fetch qs.song "
+            + "where qs.queueUserUuid = :queueUserUuid "
+            + "and (qs.position > :position or (qs.position = :position and qs.id > :id)) "
+            + "order by qs.position, qs.id")
+    List<QueueSong> findPageAfter(@Param("queueUserUuid") UUID queueUserUuid, @Param("position") int position,
+                                  @Param("id") UUID id, Limit limit);
+
+    @Modifying
+    @Query("update QueueSong qs set qs.position = :position where qs.id = :id")
+    int updatePosition(@Param("id") UUID id, @Param("position") int position);
     
-    void deleteByQueueUserUuid(UUID queueUserUuid);
+    /**
+     * Removes every entry of the queue in one statement, without loading them first.
+     */
+    @Modifying
+    @Query("delete from QueueSong qs where qs.queueUserUuid = :queueUserUuid")
+    int deleteByQueueUserUuid(@Param("queueUserUuid") UUID queueUserUuid);
     
     void deleteBySongsId(UUID songsId);
 
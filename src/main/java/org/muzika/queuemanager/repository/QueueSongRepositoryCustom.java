@@ -0,0 +1,16 @@
+package org.muzika.queuemanager.repository;
+
+import java.util.Map;
+import java.util.UUID;
+
+public interface QueueSongRepositoryCustom {
+
+    /**
+     * Sets the ordering keys of several entries of one queue in a single UPDATE
+     * ({@code set position = case id when ... end}), however many entries change.
+     *
+     * @param positions new key by entry id
+     * @return the number of rows updated
+     */
+    int updatePositions(UUID queueUserUuid, Map<UUID, Integer> positions);
+}
@@ -0,0 +1,38 @@
+package org.muzika.queuemanager.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.muzika.queuemanager.entities.QueueSong;
+
+import java.util.Map;
+import java.util.UUID;
+
+class QueueSongRepositoryCustomImpl implements QueueSongRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updatePositions(UUID queueUserUuid, Map<UUID, Integer> positions) {
+        if (positions.isEmpty()) {
+            return 0;
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<QueueSong> update = cb.createCriteriaUpdate(QueueSong.class);
+        Root<QueueSong> queueSong = update.from(QueueSong.class);
+        Path<UUID> id = queueSong.get("id");
+        Path<Integer> position = queueSong.get("position");
+
+        CriteriaBuilder.SimpleCase<UUID, Integer> newPosition = cb.selectCase(id);
+        positions.forEach(newPosition::when);
+        newPosition.otherwise(position);
+
+        update.set(position, newPosition)
+                .where(cb.equal(queueSong.get("queueUserUuid"), queueUserUuid), id.in(positions.keySet()));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
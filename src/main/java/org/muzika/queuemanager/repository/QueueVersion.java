@@ -0,0 +1,9 @@
+package org.muzika.queuemanager.repository;
+
+import java.util.UUID;
+
+/**
+ * Identity and change version of a queue, read without loading its entries.
+ */
+public record QueueVersion(UUID queueUuid, Long version) {
+}
@@ -34,4 +34,7 @@ public interface SongRepository extends JpaRepository<Song, UUID> {
     
     @Query("SELECT s FROM Song s WHERE s.url IS NOT NULL AND s.url != ''")
     List<Song> findAllByUrlIsNotNull();
+
+    @Query("SELECT s.id FROM Song s WHERE s.url IS NOT NULL AND s.url != ''")
+    List<UUID> findAllIdsWithUrl();
 }
@@ -3,8 +3,12 @@ package org.muzika.queuemanager.repository;
 import jakarta.transaction.Transactional;
 import org.muzika.queuemanager.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 
@@ -16,4 +20,8 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     User findByUserName(String username);
 
+    @Query("SELECT u FROM User u WHERE u.userName IN :usernames OR u.userId IN :userIds")
+    List<User> findAllByUserNameInOrUserIdIn(@Param("usernames") Collection<String> usernames,
+                                             @Param("userIds") Collection<UUID> userIds);
+
 }
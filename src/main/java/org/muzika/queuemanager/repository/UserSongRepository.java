@@ -5,18 +5,28 @@ import jakarta.transaction.Transactional;
 import org.muzika.queuemanager.entities.UserSong;
 import org.muzika.queuemanager.entities.UserSongId;
 import org.muzika.queuemanager.services.QueueController;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Transactional
 @Repository
-public interface UserSongRepository extends JpaRepository<UserSong, UserSongId> {
+public interface UserSongRepository extends JpaRepository<UserSong, UserSongId>, UserSongRepositoryCustom {
 
     UserSong findBySongId(UUID uuid);
+
+    @EntityGraph(UserSong.USER_GRAPH)
+    UserSong findWithUserBySongId(UUID songId);
+
+    @EntityGraph(UserSong.SONG_GRAPH)
+    List<UserSong> findWithSongByUserId(UUID userId);
     
     List<UserSong> findAllBySongId(UUID songId);
 
+    List<UserSong> findAllByUserIdAndSongIdIn(UUID userId, Collection<UUID> songIds);
+
 }
\ No newline at end of file
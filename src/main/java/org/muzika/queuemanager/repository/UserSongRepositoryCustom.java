@@ -0,0 +1,14 @@
+package org.muzika.queuemanager.repository;
+
+import org.muzika.queuemanager.entities.UserSong;
+
+import java.util.Collection;
+
+public interface UserSongRepositoryCustom {
+
+    /**
+     * Persists rows known to be new. {@code saveAll} merges entities with an assigned id,
+     * which reads each row first to tell an insert from an update.
+     */
+    void persistAll(Collection<UserSong> userSongs);
+}
@@ -0,0 +1,20 @@
+package org.muzika.queuemanager.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.muzika.queuemanager.entities.UserSong;
+
+import java.util.Collection;
+
+class UserSongRepositoryCustomImpl implements UserSongRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void persistAll(Collection<UserSong> userSongs) {
+        for (UserSong userSong : userSongs) {
+            entityManager.persist(userSong);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes audio files to the servlet response with HTTP Range support
+ * (single range as 206 + Content-Range, several ranges as multipart/byteranges, 416 when
+ * unsatisfiable).
+ *
+ * For file-backed resources a single range or the whole file is handed to Tomcat's
+ * sendfile when the connector supports it, so the bytes never enter the JVM heap.
+ * Otherwise (and for multipart responses) bytes are copied from the file through one
+ * {@value #COPY_BUFFER_SIZE}-byte buffer per response. Files kept mapped by
+ * {@link MappedHotFileCache} are copied from the mapping without opening the file.
+ * {@link RangedResource}s (object storage) fetch only the requested bytes. Other resources
+ * fall back to stream copying.
+ *
+ * File bytes written to clients are counted in queuemanager.streaming.bytes, tagged by
+ * source: mmap, cache (local cache copy) or origin. Bytes handed to sendfile count in full.
+ */
+@Slf4j
+@Component
+public class AudioStreamingService {
+
+    static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String BYTES_COUNTER = "queuemanager.streaming.bytes";
+
+    private final boolean sendfileEnabled;
+    private final MappedHotFileCache hotFileCache;
+    private final Counter bytesFromMapping;
+    private final Counter bytesFromCache;
+    private final Counter bytesFromOrigin;
+
+    public AudioStreamingService(@Value("${music.streaming.sendfile:true}") boolean sendfileEnabled,
+                                 MappedHotFileCache hotFileCache, MeterRegistry meterRegistry) {
+        this.sendfileEnabled = sendfileEnabled;
+        this.hotFileCache = hotFileCache;
+        this.bytesFromMapping = bytesCounter("mmap", meterRegistry);
+        this.bytesFromCache = bytesCounter("cache", meterRegistry);
+        this.bytesFromOrigin = bytesCounter("origin", meterRegistry);
+    }
+
+    /**
+     * Serves the resource honouring the request's conditional and Range headers.
+     * A matching If-None-Match / If-Modified-Since ends with 304; an If-Range that does not
+     * match the validators turns a range request into a full response.
+     *
+     * @param resource    the audio file
+     * @param length      total size in bytes
+     * @param mediaType   content type of the file
+     * @param headers     headers to send with every response (Content-Disposition, ETag,
+     *                    Last-Modified, Cache-Control); ETag and Last-Modified drive the conditional checks
+     * @throws IOException if the file cannot be opened; nothing has been written to the response then
+     */
+    public void serve(Resource resource, long length, MediaType mediaType, HttpHeaders headers,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        headers.forEach((name, values) -> {
+            response.setHeader(name, values.get(0));
+            values.stream().skip(1).forEach(value -> response.addHeader(name, value));
+        });
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        String etag = headers.getETag();
+        long lastModified = headers.getLastModified();
+        if ((etag != null || lastModified >= 0)
+                && new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        List<HttpRange> ranges = List.of();
+        if (ifRangeMatches(request, etag, lastModified)) {
+            try {
+                ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+                long requested = 0;
+                for (HttpRange range : ranges) {
+                    long start = range.getRangeStart(length);
+                    if (start >= length) {
+                        throw new IllegalArgumentException("Range starts beyond " + length + " bytes");
+                    }
+                    requested += range.getRangeEnd(length) - start + 1;
+                }
+                // Same limit as HttpRange.toResourceRegions: overlapping ranges must not make
+                // one request stream the file many times over
+                if (requested > length) {
+                    throw new IllegalArgumentException("Ranges add up to more than " + length + " bytes");
+                }
+            } catch (IllegalArgumentException e) {
+                log.debug("Unsatisfiable range '{}' for {} bytes", request.getHeader(HttpHeaders.RANGE), length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+        }
+        writeResponse(resource, length, mediaType, ranges, request, response);
+    }
+
+    /**
+     * If-Range only allows a partial response when it names the current representation:
+     * a strong ETag match or the exact Last-Modified date.
+     */
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return etag != null && ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return lastModified >= 0 && date == lastModified / 1000 * 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void writeResponse(Resource resource, long length, MediaType mediaType, List<HttpRange> ranges,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean headRequest = HttpMethod.HEAD.matches(request.getMethod());
+        Path file = resource.isFile() ? resource.getFile().toPath() : null;
+        MappedHotFileCache.Lease lease = file != null ? hotFileCache.acquire(file, length).orElse(null) : null;
+        Counter written = lease != null ? bytesFromMapping
+                : resource instanceof CachingFileStorageService.CachedResource ? bytesFromCache : bytesFromOrigin;
+        FileChannel channel = null;
+        try {
+            RangeSource source;
+            if (lease != null) {
+                ByteBuffer mapping = lease.buffer();
+                source = (start, end, out) -> copyFromMapping(mapping, start, end, out);
+            } else if (resource instanceof RangedResource ranged) {
+                source = ranged::copyRange;
+            } else if (file != null) {
+                FileChannel opened = FileChannel.open(file, StandardOpenOption.READ);
+                channel = opened;
+                source = (start, end, out) -> copyFromChannel(opened, start, end, out);
+            } else {
+                source = (start, end, out) -> {
+                    try (InputStream in = resource.getInputStream()) {
+                        StreamUtils.copyRange(in, out, start, end);
+                    }
+                };
+            }
+
+            if (ranges.size() > 1) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+                response.setContentType("multipart/byteranges; boundary=" + boundary);
+                if (!headRequest) {
+                    writeMultipart(counted(source, written), length, mediaType, ranges, boundary, response);
+                }
+                return;
+            }
+
+            long start = 0;
+            long end = length - 1;
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            } else {
+                response.setStatus(HttpServletResponse.SC_OK);
+            }
+            response.setContentType(mediaType.toString());
+            response.setContentLengthLong(end - start + 1);
+            if (headRequest || length == 0) {
+                return;
+            }
+
+            if (channel != null && trySendfile(file, start, end, request)) {
+                written.increment(end - start + 1);
+                return;
+            }
+            counted(source, written).copy(start, end, response.getOutputStream());
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+            if (lease != null) {
+                lease.close();
+            }
+        }
+    }
+
+    private boolean trySendfile(Path file, long start, long end, HttpServletRequest request) {
+        if (!sendfileEnabled || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            return false;
+        }
+        // Tomcat performs the transfer after the servlet returns; end is exclusive
+        request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+        request.setAttribute(SENDFILE_START_ATTR, start);
+        request.setAttribute(SENDFILE_END_ATTR, end + 1);
+        return true;
+    }
+
+    private void writeMultipart(RangeSource source, long length, MediaType mediaType,
+                                List<HttpRange> ranges, String boundary, HttpServletResponse response) throws IOException {
+        OutputStream out = response.getOutputStream();
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            String partHeader = "\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + mediaType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + start + "-" + end + "/" + length + "\r\n\r\n";
+            out.write(partHeader.getBytes(StandardCharsets.US_ASCII));
+            source.copy(start, end, out);
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void copyFromChannel(FileChannel channel, long start, long end, OutputStream out) throws IOException {
+        long remaining = end - start + 1;
+        byte[] buffer = new byte[(int) Math.min(COPY_BUFFER_SIZE, remaining)];
+        ByteBuffer chunk = ByteBuffer.wrap(buffer);
+        long position = start;
+        while (remaining > 0) {
+            chunk.clear().limit((int) Math.min(buffer.length, remaining));
+            int read = channel.read(chunk, position);
+            if (read < 0) {
+                throw new IOException("File ended at byte " + position + " before the requested range");
+            }
+            out.write(buffer, 0, read);
+            position += read;
+            remaining -= read;
+        }
+    }
+
+    private static void copyFromMapping(ByteBuffer mapping, long start, long end, OutputStream out) throws IOException {
+        ByteBuffer slice = mapping.duplicate();
+        slice.position((int) start).limit((int) end + 1);
+        byte[] buffer = new byte[Math.min(COPY_BUFFER_SIZE, slice.remaining())];
+        while (slice.hasRemaining()) {
+            int count = Math.min(buffer.length, slice.remaining());
+            slice.get(buffer, 0, count);
+            out.write(buffer, 0, count);
+        }
+    }
+
+    /**
+     * Counts what the source actually wrote, including the part of an aborted copy.
+     */
+    private static RangeSource counted(RangeSource source, Counter counter) {
+        return (start, end, out) -> {
+            CountingOutputStream counting = new CountingOutputStream(out);
+            try {
+                source.copy(start, end, counting);
+            } finally {
+                counter.increment(counting.count);
+            }
+        };
+    }
+
+    private static Counter bytesCounter(String source, MeterRegistry meterRegistry) {
+        return Counter.builder(BYTES_COUNTER)
+                .description("File bytes written to streaming responses")
+                .baseUnit("bytes")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    private interface RangeSource {
+        void copy(long start, long end, OutputStream out) throws IOException;
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.muzika.queuemanager.config.FileCacheProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read-through cache tier in front of the storage backend (network file share or object store).
+ * Hot files are copied to local disk and served from there; the total size is bounded
+ * by {@code music.storage.cache.max-bytes} with least-recently-used eviction.
+ *
+ * A miss is served from the origin while one background fill per file copies it
+ * to a temp file, checks the size and atomically moves it into place, so a reader never
+ * sees a partial copy. Requests are counted per result (queuemanager.storage.cache.*); hits
+ * are returned as {@link CachedResource}, so {@link AudioStreamingService} can count the
+ * bytes it writes from the cache apart from those read from the origin.
+ */
+@Slf4j
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "music.storage.cache", name = "enabled", havingValue = "true")
+public class CachingFileStorageService implements FileStorageService {
+
+    private static final String REQUEST_COUNTER = "queuemanager.storage.cache.requests";
+    private static final String TEMP_SUFFIX = ".part";
+
+    private record CachedFile(Path path, long size) {
+    }
+
+    /**
+     * A file served from the local cache copy.
+     */
+    static final class CachedResource extends FileSystemResource {
+        CachedResource(Path path) {
+            super(path);
+        }
+    }
+
+    private final FileStorageService origin;
+    private final Path cacheDirectory;
+    private final long maxBytes;
+    private final ExecutorService fillExecutor;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CachedFile> entries = new LinkedHashMap<>(256, 0.75f, true);
+    // Guards entries and usedBytes; a virtual thread waiting on a lock unmounts, one waiting on a monitor pins its carrier
+    private final ReentrantLock entriesLock = new ReentrantLock();
+    private final Map<String, CompletableFuture<Void>> fillsInFlight = new ConcurrentHashMap<>();
+    private long usedBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public CachingFileStorageService(@Qualifier(FileStorageService.ORIGIN) FileStorageService origin,
+                                     FileCacheProperties properties, MeterRegistry meterRegistry) throws IOException {
+        this.origin = origin;
+        this.cacheDirectory = Paths.get(properties.getDirectory());
+        this.maxBytes = properties.getMaxBytes();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fillExecutor = Executors.newFixedThreadPool(properties.getFillThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "song-cache-fill-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.hits = Counter.builder(REQUEST_COUNTER).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder(REQUEST_COUNTER).tag("result", "miss").register(meterRegistry);
+        meterRegistry.gauge("queuemanager.storage.cache.hit-ratio", this, CachingFileStorageService::getHitRatio);
+        meterRegistry.gauge("queuemanager.storage.cache.used-bytes", this, CachingFileStorageService::getUsedBytes);
+
+        Files.createDirectories(cacheDirectory);
+        loadExistingEntries();
+        log.info("Initialized song cache in {} ({} of {} bytes used)", cacheDirectory, usedBytes, maxBytes);
+    }
+
+    @Override
+    public Resource getFile(String filePath) throws IOException {
+        return getFile(filePath, null);
+    }
+
+    @Override
+    public Resource getFile(String filePath, Long knownSize) throws IOException {
+        if (filePath == null || filePath.trim().isEmpty()) {
+            throw new IllegalArgumentException("File path cannot be null or empty");
+        }
+        String key = cacheKey(filePath);
+
+        CachedFile cached = lookup(key, knownSize);
+        if (cached != null) {
+            hits.increment();
+            return new CachedResource(cached.path());
+        }
+
+        misses.increment();
+        Resource resource = origin.getFile(filePath, knownSize);
+        fillAsync(key, resource, knownSize != null ? knownSize : resource.contentLength());
+        return resource;
+    }
+
+    @Override
+    public boolean fileExists(String filePath) {
+        if (filePath != null && !filePath.trim().isEmpty()) {
+            entriesLock.lock();
+            try {
+                if (entries.containsKey(cacheKey(filePath))) {
+                    return true;
+                }
+            } finally {
+                entriesLock.unlock();
+            }
+        }
+        return origin.fileExists(filePath);
+    }
+
+    /**
+     * Copies the file into the cache ahead of playback; a no-op when it is already cached.
+     */
+    @Override
+    public CompletableFuture<Void> prefetch(String filePath, Long knownSize) {
+        String key = cacheKey(filePath);
+        if (lookup(key, knownSize) != null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            Resource resource = origin.getFile(filePath, knownSize);
+            return fillAsync(key, resource, knownSize != null ? knownSize : resource.contentLength());
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public double getHitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    public long getUsedBytes() {
+        entriesLock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    /**
+     * Starts a background copy of the file into the cache unless it is cached or already being copied.
+     *
+     * @return completes when the file is cached (or the fill was skipped or failed)
+     */
+    CompletableFuture<Void> fillAsync(String key, Resource source, long expectedSize) {
+        if (expectedSize > maxBytes) {
+            return CompletableFuture.completedFuture(null);
+        }
+        entriesLock.lock();
+        try {
+            if (entries.containsKey(key)) {
+                return CompletableFuture.completedFuture(null);
+            }
+        } finally {
+            entriesLock.unlock();
+        }
+        // Single flight: concurrent misses on the same file share one copy
+        CompletableFuture<Void> fill = new CompletableFuture<>();
+        CompletableFuture<Void> running = fillsInFlight.putIfAbsent(key, fill);
+        if (running != null) {
+            return running;
+        }
+        try {
+            fillExecutor.execute(() -> {
+                try {
+                    fill(key, source, expectedSize);
+                } finally {
+                    fillsInFlight.remove(key);
+                    fill.complete(null);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fillsInFlight.remove(key);
+            fill.complete(null);
+        }
+        return fill;
+    }
+
+    private void fill(String key, Resource source, long expectedSize) {
+        Path target = cacheDirectory.resolve(key);
+        Path temp = cacheDirectory.resolve(key + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            long copied;
+            try (InputStream in = source.getInputStream()) {
+                copied = Files.copy(in, temp);
+            }
+            if (copied != expectedSize) {
+                log.warn("Discarding cache fill for {}: copied {} bytes, expected {}", source.getDescription(), copied, expectedSize);
+                Files.deleteIfExists(temp);
+                return;
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            admit(key, new CachedFile(target, copied));
+        } catch (IOException e) {
+            log.warn("Cache fill failed for {}: {}", source.getDescription(), e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Left-over temp files are removed on the next start
+            }
+        }
+    }
+
+    private CachedFile lookup(String key, Long knownSize) {
+        CachedFile cached;
+        entriesLock.lock();
+        try {
+            cached = entries.get(key);
+        } finally {
+            entriesLock.unlock();
+        }
+        if (cached == null) {
+            return null;
+        }
+        // Integrity: the copy must still be there and match the size stored on the song
+        if ((knownSize != null && knownSize != cached.size()) || !Files.isReadable(cached.path())) {
+            log.warn("Evicting stale cache entry {} (cached {} bytes, expected {})", cached.path(), cached.size(), knownSize);
+            evict(key);
+            return null;
+        }
+        return cached;
+    }
+
+    private void admit(String key, CachedFile file) {
+        List<Path> toDelete = new ArrayList<>();
+        entriesLock.lock();
+        try {
+            CachedFile previous = entries.put(key, file);
+            if (previous != null) {
+                usedBytes -= previous.size();
+            }
+            usedBytes += file.size();
+            Iterator<Map.Entry<String, CachedFile>> eldest = entries.entrySet().iterator();
+            while (usedBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, CachedFile> entry = eldest.next();
+                if (entry.getKey().equals(key)) {
+                    continue;
+                }
+                usedBytes -= entry.getValue().size();
+                toDelete.add(entry.getValue().path());
+                eldest.remove();
+            }
+        } finally {
+            entriesLock.unlock();
+        }
+        toDelete.forEach(this::deleteQuietly);
+    }
+
+    private void evict(String key) {
+        CachedFile removed;
+        entriesLock.lock();
+        try {
+            removed = entries.remove(key);
+            if (removed != null) {
+                usedBytes -= removed.size();
+            }
+        } finally {
+            entriesLock.unlock();
+        }
+        if (removed != null) {
+            deleteQuietly(removed.path());
+        }
+    }
+
+    /**
+     * Re-indexes files left by a previous run, oldest first so recently written files are
+     * evicted last. Interrupted fills (temp files) are deleted.
+     */
+    private void loadExistingEntries() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDirectory)) {
+            for (Path path : stream) {
+                if (path.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    deleteQuietly(path);
+                } else if (Files.isRegularFile(path)) {
+                    files.add(path);
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(path -> {
+            try {
+                return Files.getLastModifiedTime(path).toMillis();
+            } catch (IOException e) {
+                return 0L;
+            }
+        }));
+        for (Path path : files) {
+            admit(path.getFileName().toString(), new CachedFile(path,
+                    Files.readAttributes(path, BasicFileAttributes.class).size()));
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete cached file {}: {}", path, e.getMessage());
+        }
+    }
+
+    static String cacheKey(String filePath) {
+        return UUID.nameUUIDFromBytes(filePath.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fillExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,127 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Makes dead-lettered Kafka records visible.
+ * Counts records as they reach a DLT and periodically measures each DLT's depth
+ * (records retained between the earliest and latest offsets) so a growing backlog
+ * of failed loaded-song / request-slskd-song messages shows up in /actuator/metrics.
+ */
+@Slf4j
+@Component
+public class DeadLetterMonitor {
+
+    public static final String DLT_SUFFIX = "-dlt";
+
+    private static final String DLT_RECORDS_COUNTER = "queuemanager.kafka.dlt.records";
+    private static final String DLT_DEPTH_GAUGE = "queuemanager.kafka.dlt.depth";
+
+    private final KafkaAdmin kafkaAdmin;
+    private final MeterRegistry meterRegistry;
+    private final List<String> sourceTopics;
+    private final Map<String, AtomicLong> depthByTopic = new ConcurrentHashMap<>();
+    private volatile AdminClient adminClient;
+    private final ReentrantLock adminClientLock = new ReentrantLock();
+
+    public DeadLetterMonitor(KafkaAdmin kafkaAdmin, MeterRegistry meterRegistry,
+                             @Value("${kafka.retry.topics:loaded-song,request-slskd-song}") List<String> sourceTopics) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.meterRegistry = meterRegistry;
+        this.sourceTopics = sourceTopics;
+        for (String topic : sourceTopics) {
+            AtomicLong depth = new AtomicLong();
+            depthByTopic.put(topic + DLT_SUFFIX, depth);
+            meterRegistry.gauge(DLT_DEPTH_GAUGE, List.of(Tag.of("topic", topic + DLT_SUFFIX)), depth);
+        }
+    }
+
+    public void recordDeadLetter(String dltTopic) {
+        Counter.builder(DLT_RECORDS_COUNTER)
+                .description("Records that exhausted all retries")
+                .tag("topic", dltTopic)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public long getDepth(String dltTopic) {
+        AtomicLong depth = depthByTopic.get(dltTopic);
+        return depth == null ? 0 : depth.get();
+    }
+
+    @Scheduled(fixedDelayString = "${kafka.retry.dlt-depth-interval-ms:60000}", initialDelay = 30000)
+    public void refreshDepth() {
+        try {
+            AdminClient admin = adminClient();
+            Map<String, TopicDescription> descriptions = admin.describeTopics(depthByTopic.keySet())
+                    .allTopicNames().get(10, TimeUnit.SECONDS);
+
+            Map<TopicPartition, OffsetSpec> earliest = new HashMap<>();
+            Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+            descriptions.values().forEach(description -> description.partitions().forEach(partition -> {
+                TopicPartition tp = new TopicPartition(description.name(), partition.partition());
+                earliest.put(tp, OffsetSpec.earliest());
+                latest.put(tp, OffsetSpec.latest());
+            }));
+
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> start =
+                    admin.listOffsets(earliest).all().get(10, TimeUnit.SECONDS);
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> end =
+                    admin.listOffsets(latest).all().get(10, TimeUnit.SECONDS);
+
+            Map<String, Long> totals = new HashMap<>();
+            end.forEach((tp, info) -> totals.merge(tp.topic(), info.offset() - start.get(tp).offset(), Long::sum));
+            totals.forEach((topic, depth) -> {
+                depthByTopic.get(topic).set(depth);
+                if (depth > 0) {
+                    log.warn("Dead letter topic {} holds {} record(s)", topic, depth);
+                }
+            });
+        } catch (Exception e) {
+            // Broker unreachable (e.g. local dev): keep the last known depth
+            log.debug("Could not refresh DLT depth for {}: {}", sourceTopics, e.getMessage());
+        }
+    }
+
+    private AdminClient adminClient() {
+        if (adminClient == null) {
+            adminClientLock.lock();
+            try {
+                if (adminClient == null) {
+                    adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+                }
+            } finally {
+                adminClientLock.unlock();
+            }
+        }
+        return adminClient;
+    }
+
+    @PreDestroy
+    void close() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package org.muzika.queuemanager.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of song files under {@code music.storage.base-path}: path to size, mtime and readability.
+ * {@link LocalFileStorageService} consults it before touching the file system, so serving a
+ * known file costs no metadata round trips to the network share.
+ *
+ * The index is kept current three ways: entries are added on a stat after a miss, a
+ * {@link WatchService} applies local change events where the file system delivers them,
+ * and a periodic reconciliation walks the tree (network mounts rarely deliver events).
+ * A snapshot is written to {@code music.storage.index.file} after each reconciliation and
+ * loaded on start, so a restart begins warm.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "music.storage", name = "backend", havingValue = "local", matchIfMissing = true)
+public class FileMetadataIndex {
+
+    public record Entry(long size, long lastModified, boolean readable) {
+    }
+
+    private final Path basePath;
+    private final Path snapshotFile;
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+    private volatile WatchService watchService;
+
+    public FileMetadataIndex(@Value("${music.storage.base-path:/rw/downloads}") String basePath,
+                             @Value("${music.storage.index.file:${java.io.tmpdir}/queuemanager-file-index.tsv}") String snapshotFile,
+                             @Value("${music.storage.index.watch:true}") boolean watchEnabled) {
+        this.basePath = Paths.get(basePath).toAbsolutePath().normalize();
+        this.snapshotFile = Paths.get(snapshotFile);
+        loadSnapshot();
+        if (watchEnabled) {
+            startWatching();
+        }
+    }
+
+    /**
+     * @return the indexed metadata, or null if the file is not (yet) known
+     */
+    public Entry lookup(Path file) {
+        return entries.get(file);
+    }
+
+    public Entry record(Path file, BasicFileAttributes attributes) {
+        Entry entry = new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), Files.isReadable(file));
+        entries.put(file, entry);
+        return entry;
+    }
+
+    public void invalidate(Path file) {
+        entries.remove(file);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Rebuilds the index from a full walk of the base path and persists a snapshot.
+     */
+    @Scheduled(fixedDelayString = "${music.storage.index.reconcile-ms:600000}", initialDelay = 0)
+    public void reconcile() {
+        if (!Files.isDirectory(basePath)) {
+            log.debug("Skipping file index reconciliation, {} is not a directory", basePath);
+            return;
+        }
+        Map<Path, Entry> scanned = new HashMap<>();
+        try {
+            Files.walkFileTree(basePath, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (attributes.isRegularFile()) {
+                        scanned.put(file, new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(),
+                                Files.isReadable(file)));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("File index reconciliation of {} failed: {}", basePath, e.getMessage());
+            return;
+        }
+        entries.keySet().retainAll(scanned.keySet());
+        entries.putAll(scanned);
+        saveSnapshot();
+        log.debug("File index reconciled: {} file(s)", entries.size());
+    }
+
+    private void loadSnapshot() {
+        if (!Files.isReadable(snapshotFile)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 4);
+                if (fields.length == 4) {
+                    entries.put(Paths.get(fields[3]), new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                            Boolean.parseBoolean(fields[2])));
+                }
+            }
+            log.info("Loaded file index snapshot with {} file(s)", entries.size());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable file index snapshot {}: {}", snapshotFile, e.getMessage());
+            entries.clear();
+        }
+    }
+
+    private void saveSnapshot() {
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try {
+            if (snapshotFile.getParent() != null) {
+                Files.createDirectories(snapshotFile.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<Path, Entry> e : entries.entrySet()) {
+                    writer.write(e.getValue().size() + "\t" + e.getValue().lastModified() + "\t"
+                            + e.getValue().readable() + "\t" + e.getKey());
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Could not write file index snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    private void startWatching() {
+        if (!Files.isDirectory(basePath)) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerTree(basePath);
+        } catch (IOException e) {
+            log.info("File watching unavailable for {}, relying on reconciliation: {}", basePath, e.getMessage());
+            return;
+        }
+        Thread watcher = new Thread(this::processEvents, "file-index-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void registerTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void processEvents() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        continue;
+                    }
+                    applyEvent(dir.resolve((Path) event.context()), event.kind());
+                }
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private void applyEvent(Path path, WatchEvent.Kind<?> kind) {
+        if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+            entries.remove(path);
+            return;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attributes.isDirectory() && kind == StandardWatchEventKinds.ENTRY_CREATE) {
+                registerTree(path);
+            } else if (attributes.isRegularFile()) {
+                record(path, attributes);
+            }
+        } catch (NoSuchFileException e) {
+            entries.remove(path);
+        } catch (IOException e) {
+            log.debug("Could not index {}: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+}
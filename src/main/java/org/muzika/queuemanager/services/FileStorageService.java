@@ -3,12 +3,19 @@ package org.muzika.queuemanager.services;
 import org.springframework.core.io.Resource;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service interface for file storage operations.
  * Provides methods to retrieve and check existence of files.
  */
 public interface FileStorageService {
+
+    /**
+     * Qualifier of the configured backend ({@code music.storage.backend}), for decorators
+     * such as the local cache tier that need the backend rather than the primary bean.
+     */
+    String ORIGIN = "origin";
     
     /**
      * Retrieves a file as a Resource from the storage.
@@ -19,6 +26,20 @@ public interface FileStorageService {
      * @throws IllegalArgumentException if the path is invalid or points to a directory
      */
     Resource getFile(String filePath) throws IOException;
+
+    /**
+     * Retrieves a file whose size is already known (stored on the Song).
+     * Implementations may skip their existence/readability checks; a missing file
+     * then surfaces as an IOException when the resource is opened.
+     *
+     * @param filePath  The path to the file. Can be absolute or relative to the base storage path.
+     * @param knownSize The stored size in bytes, or null if unknown
+     * @return A Resource representing the file
+     * @throws IOException if the file cannot be read or does not exist
+     */
+    default Resource getFile(String filePath, Long knownSize) throws IOException {
+        return getFile(filePath);
+    }
     
     /**
      * Checks if a file exists in the storage.
@@ -27,5 +48,17 @@ public interface FileStorageService {
      * @return true if the file exists and is a regular file, false otherwise
      */
     boolean fileExists(String filePath);
+
+    /**
+     * Hints that the file is about to be read so the implementation can warm a faster tier
+     * (local cache copy, page cache). The default does nothing.
+     *
+     * @param filePath  The path to the file. Can be absolute or relative to the base storage path.
+     * @param knownSize The stored size in bytes, or null if unknown
+     * @return completes when warming has finished, failed or was not needed
+     */
+    default CompletableFuture<Void> prefetch(String filePath, Long knownSize) {
+        return CompletableFuture.completedFuture(null);
+    }
 }
 
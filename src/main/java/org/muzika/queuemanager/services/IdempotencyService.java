@@ -0,0 +1,268 @@
+package org.muzika.queuemanager.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.muzika.queuemanager.entities.IdempotencyRecord;
+import org.muzika.queuemanager.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response for requests retried with the same {@code Idempotency-Key}
+ * instead of executing them again, so a client retrying on timeouts cannot count a play
+ * twice or remove a second queue entry. Same layout as {@link MessageDeduplicationService}:
+ * a bounded in-memory LRU in front of the {@code idempotency_keys} table, entries expiring
+ * after {@code queue.idempotency.ttl}.
+ *
+ * A request first claims its key by inserting a pending row; the primary key makes that
+ * claim exclusive across instances, so a concurrent duplicate gets 409 instead of running
+ * too. The row is filled in with the response once the request completed. Only final
+ * outcomes are kept (2xx and client errors other than auth, conflict and rate limits);
+ * otherwise the claim is released and a retry runs again. A claim left behind by a crashed
+ * instance expires after {@code queue.idempotency.pending-timeout}.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final String LOOKUP_COUNTER = "queuemanager.queue.idempotency.requests";
+    private static final Set<Integer> RETRYABLE_CLIENT_ERRORS = Set.of(401, 403, 408, 409, 429);
+
+    private record StoredResponse(String requestHash, int statusCode, String contentType, String body,
+                                  LocalDateTime expiresAt) {
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration pendingTimeout;
+    private final Map<String, StoredResponse> recent;
+    private final ReentrantLock recentLock = new ReentrantLock();
+
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter rejected;
+
+    public IdempotencyService(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${queue.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${queue.idempotency.pending-timeout:PT1M}") Duration pendingTimeout,
+                              @Value("${queue.idempotency.memory-entries:10000}") int memoryEntries) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.pendingTimeout = pendingTimeout;
+        this.recent = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+        this.executed = Counter.builder(LOOKUP_COUNTER).tag("result", "executed").register(meterRegistry);
+        this.replayed = Counter.builder(LOOKUP_COUNTER).tag("result", "replayed").register(meterRegistry);
+        this.rejected = Counter.builder(LOOKUP_COUNTER).tag("result", "rejected").register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code action} once per key: a repeat with the same key and request gets the
+     * stored response (marked with {@value #REPLAYED_HEADER}), the same key with a
+     * different request 422, and a repeat while the first is still running 409.
+     *
+     * @param scope   owner and operation the key belongs to, e.g. {@code "alice:queue/finished"}
+     * @param request the request body, compared between attempts
+     */
+    public ResponseEntity<?> execute(String scope, String idempotencyKey, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            rejected.increment();
+            return ResponseEntity.badRequest().body(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String recordKey = sha256(scope + "\n" + idempotencyKey);
+        String requestHash = sha256(serialize(request));
+
+        Optional<StoredResponse> stored = cached(recordKey);
+        if (stored.isPresent()) {
+            return replay(stored.get(), requestHash);
+        }
+        ResponseEntity<?> taken = claim(recordKey, requestHash);
+        if (taken != null) {
+            return taken;
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(recordKey);
+            throw e;
+        }
+        executed.increment();
+        if (isFinal(response.getStatusCode())) {
+            store(recordKey, requestHash, response);
+        } else {
+            release(recordKey);
+        }
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${queue.idempotency.purge-interval-ms:3600000}", initialDelay = 60000)
+    public void purgeExpired() {
+        int removed = repository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            log.info("Purged {} expired idempotency keys", removed);
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            rejected.increment();
+            return ResponseEntity.unprocessableEntity().body(HEADER + " was already used for a different request");
+        }
+        replayed.increment();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.statusCode()).header(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            builder.contentType(MediaType.parseMediaType(stored.contentType()));
+        }
+        return builder.body(stored.body());
+    }
+
+    private Optional<StoredResponse> cached(String recordKey) {
+        StoredResponse cached;
+        recentLock.lock();
+        try {
+            cached = recent.get(recordKey);
+        } finally {
+            recentLock.unlock();
+        }
+        return Optional.ofNullable(cached).filter(response -> response.expiresAt().isAfter(LocalDateTime.now()));
+    }
+
+    /**
+     * Inserts the pending row that makes this request the one to run.
+     *
+     * @return null once the key is claimed, otherwise the answer for a key that is taken:
+     *         the stored response, 422 for a different request or 409 while it is running
+     */
+    private ResponseEntity<?> claim(String recordKey, String requestHash) {
+        // Second round only after an expired or released row was found in the way
+        for (int attempt = 0; attempt < 2; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                repository.insertPending(recordKey, requestHash, now, now.plus(pendingTimeout));
+                return null;
+            } catch (DataIntegrityViolationException e) {
+                Optional<IdempotencyRecord> existing = repository.findById(recordKey);
+                if (existing.isEmpty()) {
+                    continue;
+                }
+                IdempotencyRecord record = existing.get();
+                if (!record.getExpiresAt().isAfter(now)) {
+                    repository.deleteExpired(recordKey, now);
+                    continue;
+                }
+                if (record.getStatusCode() != IdempotencyRecord.PENDING) {
+                    StoredResponse stored = new StoredResponse(record.getRequestHash(), record.getStatusCode(),
+                            record.getContentType(), record.getResponseBody(), record.getExpiresAt());
+                    remember(recordKey, stored);
+                    return replay(stored, requestHash);
+                }
+                if (!record.getRequestHash().equals(requestHash)) {
+                    rejected.increment();
+                    return ResponseEntity.unprocessableEntity().body(HEADER + " was already used for a different request");
+                }
+                break;
+            }
+        }
+        rejected.increment();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("A request with this " + HEADER + " is still in progress");
+    }
+
+    private void release(String recordKey) {
+        try {
+            repository.deletePending(recordKey);
+        } catch (Exception e) {
+            // The claim expires after queue.idempotency.pending-timeout instead
+            log.warn("Could not release idempotency key: {}", e.getMessage());
+        }
+    }
+
+    private void store(String recordKey, String requestHash, ResponseEntity<?> response) {
+        Object body = response.getBody();
+        String contentType = null;
+        String serializedBody = null;
+        if (body instanceof CharSequence text) {
+            contentType = MediaType.TEXT_PLAIN_VALUE;
+            serializedBody = text.toString();
+        } else if (body != null) {
+            contentType = MediaType.APPLICATION_JSON_VALUE;
+            serializedBody = serialize(body);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(ttl);
+        int status = response.getStatusCode().value();
+        remember(recordKey, new StoredResponse(requestHash, status, contentType, serializedBody, expiresAt));
+        try {
+            repository.complete(recordKey, status, contentType, serializedBody, expiresAt);
+        } catch (Exception e) {
+            // The in-memory entry still covers retries that reach this instance
+            log.warn("Could not persist idempotency key: {}", e.getMessage());
+        }
+    }
+
+    private void remember(String recordKey, StoredResponse response) {
+        recentLock.lock();
+        try {
+            recent.put(recordKey, response);
+        } finally {
+            recentLock.unlock();
+        }
+    }
+
+    private static boolean isFinal(HttpStatusCode status) {
+        return status.is2xxSuccessful()
+                || (status.is4xxClientError() && !RETRYABLE_CLIENT_ERRORS.contains(status.value()));
+    }
+
+    private String serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be serialized", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
@@ -1,45 +1,125 @@
 package org.muzika.queuemanager.services;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.muzika.queuemanager.config.JwtConfig;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Verifies bearer tokens. The parser is built once; tokens that verified recently are
+ * remembered (keyed by a SHA-256 of the token, never the token itself) until their
+ * {@code exp} or {@code jwt.cache-ttl}, whichever comes first, so an active client costs
+ * one hash per request instead of a full parse and signature check.
+ */
 @Service
 public class JwtService {
 
-    private final JwtConfig jwtConfig;
+    private record VerifiedToken(String username, long validUntilMillis) {
+    }
+
     private final SecretKey secretKey;
+    private final JwtParser parser;
+    private final Clock clock;
+    private final long cacheTtlMillis;
+    private final int cacheMaxEntries;
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
 
+    @Autowired
     public JwtService(JwtConfig jwtConfig) {
-        this.jwtConfig = jwtConfig;
+        this(jwtConfig, Clock.systemUTC());
+    }
+
+    JwtService(JwtConfig jwtConfig, Clock clock) {
         this.secretKey = Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes(StandardCharsets.UTF_8));
+        this.clock = clock;
+        this.parser = Jwts.parser()
+                .verifyWith(secretKey)
+                .clock(() -> Date.from(clock.instant()))
+                .build();
+        this.cacheTtlMillis = jwtConfig.getCacheTtl().toMillis();
+        this.cacheMaxEntries = jwtConfig.getCacheMaxEntries();
+    }
+
+    /**
+     * Validates the token and extracts its subject in one step.
+     *
+     * @return the username, or empty if the token is invalid or expired
+     */
+    public Optional<String> authenticate(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        long now = clock.millis();
+        String key = hash(token);
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (now < cached.validUntilMillis()) {
+                return Optional.ofNullable(cached.username());
+            }
+            verifiedTokens.remove(key);
+        }
+
+        Claims claims;
+        try {
+            claims = extractClaims(token);
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+        long validUntil = now + cacheTtlMillis;
+        if (claims.getExpiration() != null) {
+            validUntil = Math.min(validUntil, claims.getExpiration().getTime());
+        }
+        remember(key, new VerifiedToken(claims.getSubject(), validUntil), now);
+        return Optional.ofNullable(claims.getSubject());
     }
 
     public String extractUsername(String token) {
-        Claims claims = extractClaims(token);
-        return claims.getSubject();
+        return authenticate(token).orElseThrow(() -> new IllegalArgumentException("Invalid JWT token"));
     }
 
     public boolean validateToken(String token) {
-        try {
-            extractClaims(token);
-            return true;
-        } catch (Exception e) {
-            return false;
+        return authenticate(token).isPresent();
+    }
+
+    int cachedTokenCount() {
+        return verifiedTokens.size();
+    }
+
+    private void remember(String key, VerifiedToken token, long now) {
+        if (verifiedTokens.size() >= cacheMaxEntries) {
+            verifiedTokens.values().removeIf(entry -> entry.validUntilMillis() <= now);
+            if (verifiedTokens.size() >= cacheMaxEntries) {
+                // Still full of live tokens: start over rather than track recency on the hot path
+                verifiedTokens.clear();
+            }
         }
+        verifiedTokens.put(key, token);
     }
 
     private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
-}
 
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
@@ -2,17 +2,25 @@ package org.muzika.queuemanager.services;
 
 
 import lombok.extern.slf4j.Slf4j;
-import org.muzika.queuemanager.entities.Song;
+import org.muzika.queuemanager.config.ExecutorConfig;
+import org.muzika.queuemanager.config.KafkaRetryConfig;
 import org.muzika.queuemanager.entities.User;
 import org.muzika.queuemanager.kafkaMassages.LoadedSong;
 import org.muzika.queuemanager.kafkaMassages.RequestSlskdSong;
 import org.muzika.queuemanager.kafkaMassages.UserCreatedEvent;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Component
 @Slf4j
@@ -22,89 +30,99 @@ public class KafkaConsumerService {
 
     QueueManagerService  queueManagerService;
     QueueCheckerService queueCheckerService;
-    UserService userService;
-    SongService songService;
-    QueueService queueService;
+    UserOnboardingService userOnboardingService;
+    DeadLetterMonitor deadLetterMonitor;
+    MessageDeduplicationService deduplicationService;
+    ExecutorService queueRefillExecutor;
 
-    public KafkaConsumerService(QueueManagerService queueManagerService, QueueCheckerService queueCheckerService, UserService userService, SongService songService, QueueService queueService) {
+    public KafkaConsumerService(QueueManagerService queueManagerService, QueueCheckerService queueCheckerService, UserOnboardingService userOnboardingService, DeadLetterMonitor deadLetterMonitor, MessageDeduplicationService deduplicationService,
+                                @Qualifier(ExecutorConfig.QUEUE_REFILL_EXECUTOR) ExecutorService queueRefillExecutor) {
         this.queueManagerService = queueManagerService;
         this.queueCheckerService = queueCheckerService;
-        this.userService = userService;
-        this.songService = songService;
-        this.queueService =  queueService;
+        this.userOnboardingService = userOnboardingService;
+        this.deadLetterMonitor = deadLetterMonitor;
+        this.deduplicationService = deduplicationService;
+        this.queueRefillExecutor = queueRefillExecutor;
     }
 
 
+    /**
+     * Failures are rethrown so the record moves to the retry topics (loaded-song-retry-N)
+     * with exponential backoff instead of being dropped, see {@link KafkaRetryConfig}. A UserSong
+     * that is not committed yet usually shows up by the second attempt; the main partition keeps
+     * flowing meanwhile.
+     */
     @KafkaListener(topics = {"loaded-song"} , groupId = "group-id", containerFactory = "loadedSongListenerContainerFactory")
     public void consumeRequestSong(LoadedSong loadedSong) {
         log.info("Received request song: {}",loadedSong);
-        try{
-            String username;
-            if (loadedSong.getStatus() == LoadedSong.Status.COMPLETED){
-                username = queueManagerService.songLoaded(loadedSong);
-
-                // Check and refill queue after a song is successfully loaded
-                // Note: Using "admin" as default since Kafka messages don't have user context
-                // In the future, this could be enhanced to track which user requested the song
-            }else {
-
-                username = queueManagerService.delete(loadedSong);
-            }
-            java.util.concurrent.CompletableFuture<Boolean>  future= CompletableFuture.supplyAsync(()-> {return queueCheckerService.ensureMinimumQueueSize(username,10,1);});
-        }catch (Exception e){
-            log.info("song might be missing {} {}",e,loadedSong.getUuid());
+        String messageKey = MessageDeduplicationService.loadedSongKey(loadedSong.getUuid(), loadedSong.getStatus());
+        if (deduplicationService.isDuplicate(messageKey)) {
+            log.info("Skipping redelivered loaded song {}", loadedSong.getUuid());
+            return;
         }
-
-
+        String username;
+        if (loadedSong.getStatus() == LoadedSong.Status.COMPLETED){
+            username = queueManagerService.songLoaded(loadedSong);
+        }else {
+            username = queueManagerService.delete(loadedSong);
+        }
+        deduplicationService.markProcessed(messageKey);
+        java.util.concurrent.CompletableFuture<Boolean>  future= CompletableFuture.supplyAsync(()-> {return queueCheckerService.ensureMinimumQueueSize(username,10,1);}, queueRefillExecutor);
     }
 
     @KafkaListener(topics = {"request-slskd-song"} , groupId = "group-id",containerFactory = "songConcurrentKafkaListenerContainerFactory")
     public void consumeRequestSong(RequestSlskdSong requestSlskdSong) {
         log.info("Received request song: {}",requestSlskdSong);
-        try {
-            queueManagerService.songFound(requestSlskdSong);
-        } catch (Exception e) {
-            log.error("song might me missing {}{}",e,requestSlskdSong.getId());
-        }
+        queueManagerService.songFound(requestSlskdSong);
+    }
 
+    /**
+     * Final stop for loaded-song and request-slskd-song records that failed every retry.
+     * The record stays in the DLT for inspection or replay; depth is tracked by {@link DeadLetterMonitor}.
+     * Registered as the DLT handler by {@link KafkaRetryConfig}.
+     */
+    public void handleDeadLetter(Object payload,
+                                 @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                                 @Header(value = KafkaHeaders.EXCEPTION_MESSAGE, required = false) String error) {
+        log.error("Dead-lettered record on {}: {} (last error: {})", topic, payload, error);
+        deadLetterMonitor.recordDeadLetter(topic);
     }
 
+    /**
+     * Signup waves arrive as batches: redeliveries are filtered with one dedup lookup and the
+     * rest is onboarded in a single transaction. If the batch fails as a whole, each event is
+     * retried on its own so one bad event does not hold back the others.
+     */
     @KafkaListener(topics = {"user-created"}, groupId = "queue-manager-group", containerFactory = "userCreatedListenerContainerFactory")
-    public void consumeUserCreatedEvent(UserCreatedEvent event) {
-        log.info("Received user created event: userId={}, username={}", event.getUserId(), event.getUsername());
+    public void consumeUserCreatedEvents(List<UserCreatedEvent> events) {
+        log.info("Received {} user created event(s)", events.size());
+        Map<String, UserCreatedEvent> byKey = new LinkedHashMap<>();
+        for (UserCreatedEvent event : events) {
+            byKey.putIfAbsent(MessageDeduplicationService.userCreatedKey(event.getUserId()), event);
+        }
+        Set<String> duplicates = deduplicationService.findDuplicates(byKey.keySet());
+        if (!duplicates.isEmpty()) {
+            log.info("Skipping {} redelivered user created event(s)", duplicates.size());
+            byKey.keySet().removeAll(duplicates);
+        }
+        if (byKey.isEmpty()) {
+            return;
+        }
+
         try {
-            // Check if user already exists
-            userService.getUserIdByUsername(event.getUsername());
-            log.info("User already exists in QueueManager: username={}", event.getUsername());
-        } catch (Exception e1) {
-            // User doesn't exist, create it
-            try {
-                userService.createUserFromEvent(event.getUserId(), event.getUsername());
-                log.info("Successfully created user in QueueManager: userId={}, username={}", event.getUserId(), event.getUsername());
-                
-                // Initialize queue with random songs
-                List<Song> songs = songService.getRandomSongsWithUrl(10);
-                try {
-                    userService.loadInitalQueue(event.getUserId(), event.getUsername(), songs);
-                    log.info("Successfully loaded initial songs for user: username={}, songCount={}", event.getUsername(), songs.size());
-                } catch (Exception e) {
-                    log.error("Failed to load initial queue for user: username={}, error={}", event.getUsername(), e.getMessage(), e);
-                }
-                
-                // Add songs to queue
-                songs = userService.getAllUserSongs(event.getUsername());
+            userOnboardingService.onboard(new ArrayList<>(byKey.values()));
+            deduplicationService.markProcessed(byKey.keySet());
+        } catch (Exception batchError) {
+            log.warn("Batch onboarding of {} user(s) failed, retrying individually: {}", byKey.size(), batchError.getMessage());
+            byKey.forEach((messageKey, event) -> {
                 try {
-                    for (Song song : songs) {
-                        queueService.addToQueue(song.getId(), event.getUsername());
-                    }
-                    log.info("Successfully added songs to queue for user: username={}, songCount={}", event.getUsername(), songs.size());
+                    userOnboardingService.onboard(List.of(event));
+                    deduplicationService.markProcessed(messageKey);
                 } catch (Exception e) {
-                    log.error("Failed to add songs to queue for user: username={}, error={}", event.getUsername(), e.getMessage(), e);
+                    log.error("Failed to create user from event: userId={}, username={}, error={}",
+                            event.getUserId(), event.getUsername(), e.getMessage(), e);
                 }
-            } catch (Exception e) {
-                log.error("Failed to create user from event: userId={}, username={}, error={}",
-                        event.getUserId(), event.getUsername(), e.getMessage(), e);
-            }
+            });
         }
     }
 }
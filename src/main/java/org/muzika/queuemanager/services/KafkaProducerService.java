@@ -1,68 +1,128 @@
 package org.muzika.queuemanager.services;
 
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
 import org.muzika.queuemanager.kafkaMassages.LikedSongEvent;
 import org.muzika.queuemanager.kafkaMassages.RequestRandomSong;
 import org.muzika.queuemanager.kafkaMassages.UnlikedSongEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Publishes all outgoing events through one shared, tuned producer.
+ * Every send is timed per topic from hand-off to broker acknowledgement, and the
+ * number of unacknowledged sends per topic is exposed as a gauge so producer-side
+ * backpressure (full batches, slow acks) shows up in /actuator/metrics.
+ */
 @Service
 public class KafkaProducerService {
 
-    private final Logger logger = LoggerFactory.getLogger(KafkaProducerService.class);
+    private static final String SEND_TIMER = "queuemanager.kafka.producer.send";
+    private static final String ERROR_COUNTER = "queuemanager.kafka.producer.errors";
+    private static final String IN_FLIGHT_GAUGE = "queuemanager.kafka.producer.in-flight";
 
-    @Autowired
-    KafkaTemplate<UUID, RequestRandomSong> requestRandomSongKafka;
+    private final Logger logger = LoggerFactory.getLogger(KafkaProducerService.class);
 
-    @Autowired
-    KafkaTemplate<UUID, LikedSongEvent> likedSongKafka;
+    private final KafkaTemplate<UUID, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> inFlightByTopic = new ConcurrentHashMap<>();
 
-    @Autowired
-    KafkaTemplate<UUID, UnlikedSongEvent> unlikedSongKafka;
+    public KafkaProducerService(KafkaTemplate<UUID, Object> kafkaTemplate, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+    }
 
     public void send(String topic, UUID uuid, RequestRandomSong song) {
-        var future = requestRandomSongKafka.send(topic, uuid, song);
-        future.whenComplete((r, e) -> {
-            if (e != null) {
-                logger.error(e.getMessage());
-                future.completeExceptionally(e);
-            }else {
-                logger.info(song.toString());
-                future.complete(r);
-            }
-        });
-
+        sendEvent(topic, uuid, song);
     }
 
     public void sendLikedSongEvent(String topic, UUID uuid, LikedSongEvent event) {
-        var future = likedSongKafka.send(topic, uuid, event);
-        future.whenComplete((r, e) -> {
-            if (e != null) {
-                logger.error("Failed to send liked song event: {}", e.getMessage());
-                future.completeExceptionally(e);
-            } else {
-                logger.info("Sent liked song event: {}", event);
-                future.complete(r);
-            }
-        });
+        sendEvent(topic, uuid, event);
     }
 
     public void sendUnlikedSongEvent(String topic, UUID uuid, UnlikedSongEvent event) {
-        var future = unlikedSongKafka.send(topic, uuid, event);
-        future.whenComplete((r, e) -> {
-            if (e != null) {
-                logger.error("Failed to send unliked song event: {}", e.getMessage());
-                future.completeExceptionally(e);
-            } else {
-                logger.info("Sent unliked song event: {}", event);
-                future.complete(r);
-            }
+        sendEvent(topic, uuid, event);
+    }
+
+    /**
+     * Runs after the transaction that stored the likes committed, so a rolled back batch
+     * sends nothing.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSongsLiked(SongsLikedEvent event) {
+        for (UUID songId : event.songIds()) {
+            sendLikedSongEvent("liked", event.userId(), new LikedSongEvent(event.userId(), event.username(), songId));
+        }
+    }
+
+    /**
+     * Sends any event on the shared producer and records latency and outcome for the topic.
+     *
+     * @return the send future, completed once the broker acknowledged (or rejected) the record
+     */
+    public CompletableFuture<SendResult<UUID, Object>> sendEvent(String topic, UUID key, Object event) {
+        AtomicInteger inFlight = inFlight(topic);
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+
+        CompletableFuture<SendResult<UUID, Object>> future;
+        try {
+            future = kafkaTemplate.send(topic, key, event);
+        } catch (RuntimeException e) {
+            // send() itself throws when the accumulator stays full for max.block.ms
+            onComplete(topic, start, inFlight, e, event);
+            throw e;
+        }
+
+        future.whenComplete((result, e) -> onComplete(topic, start, inFlight, e, event));
+        return future;
+    }
+
+    private void onComplete(String topic, long start, AtomicInteger inFlight, Throwable e, Object event) {
+        inFlight.decrementAndGet();
+        String outcome = e == null ? "success" : "error";
+        Timer.builder(SEND_TIMER)
+                .description("Time from send to broker acknowledgement")
+                .tag("topic", topic)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (e != null) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            Counter.builder(ERROR_COUNTER)
+                    .description("Failed sends per topic")
+                    .tag("topic", topic)
+                    .tag("exception", cause.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .increment();
+            logger.error("Failed to send event to {}: {}", topic, cause.getMessage());
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("Sent event to {}: {}", topic, event);
+        }
+    }
+
+    private AtomicInteger inFlight(String topic) {
+        return inFlightByTopic.computeIfAbsent(topic, t -> {
+            AtomicInteger counter = new AtomicInteger();
+            meterRegistry.gauge(IN_FLIGHT_GAUGE, List.of(Tag.of("topic", t)), counter);
+            return counter;
         });
     }
 }
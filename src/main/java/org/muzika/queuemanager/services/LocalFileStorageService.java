@@ -1,29 +1,51 @@
 package org.muzika.queuemanager.services;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Implementation of FileStorageService that uses the local file system.
  * Supports both absolute and relative file paths.
+ * File metadata is looked up in the {@link FileMetadataIndex} first; the file system is only
+ * stat'ed on an index miss, and the result is added to the index.
  */
 @Slf4j
 @Service
+@Qualifier(FileStorageService.ORIGIN)
+@ConditionalOnProperty(prefix = "music.storage", name = "backend", havingValue = "local", matchIfMissing = true)
 public class LocalFileStorageService implements FileStorageService {
 
     private final String basePath;
+    private final FileMetadataIndex index;
 
-    public LocalFileStorageService(@Value("${music.storage.base-path:/rw/downloads}") String basePath) {
+    public LocalFileStorageService(String basePath) {
+        this(basePath, null);
+    }
+
+    @Autowired
+    public LocalFileStorageService(@Value("${music.storage.base-path:/rw/downloads}") String basePath,
+                                   FileMetadataIndex index) {
         this.basePath = basePath;
+        this.index = index;
         log.info("Initialized LocalFileStorageService with base path: {}", basePath);
     }
 
@@ -34,25 +56,63 @@ public class LocalFileStorageService implements FileStorageService {
         }
 
         Path resolvedPath = resolvePath(filePath);
-        File file = resolvedPath.toFile();
+        FileMetadataIndex.Entry metadata = metadata(resolvedPath);
 
-        if (!file.exists()) {
+        if (metadata == null) {
             log.warn("File not found: {}", resolvedPath);
             throw new IOException("File not found: " + resolvedPath);
         }
 
-        if (!file.isFile()) {
-            log.warn("Path is not a file (may be a directory): {}", resolvedPath);
-            throw new IllegalArgumentException("Path is not a file: " + resolvedPath);
-        }
-
-        if (!Files.isReadable(resolvedPath)) {
+        if (!metadata.readable()) {
             log.warn("File is not readable: {}", resolvedPath);
             throw new IOException("File is not readable: " + resolvedPath);
         }
 
         log.debug("Retrieved file: {}", resolvedPath);
-        return new FileSystemResource(resolvedPath);
+        return new IndexedFileResource(resolvedPath, metadata);
+    }
+
+    @Override
+    public Resource getFile(String filePath, Long knownSize) throws IOException {
+        if (knownSize == null) {
+            return getFile(filePath);
+        }
+        if (filePath == null || filePath.trim().isEmpty()) {
+            throw new IllegalArgumentException("File path cannot be null or empty");
+        }
+        // Size is stored on the Song, so skip the exists/isFile/isReadable round trips
+        Path resolvedPath = resolvePath(filePath);
+        FileMetadataIndex.Entry metadata = index != null ? index.lookup(resolvedPath) : null;
+        return metadata != null ? new IndexedFileResource(resolvedPath, metadata) : new FileSystemResource(resolvedPath);
+    }
+
+    /**
+     * Reads the file once into a discarding channel so the kernel (and the SMB client for
+     * the network share) has it in the page cache when playback starts.
+     */
+    @Override
+    public CompletableFuture<Void> prefetch(String filePath, Long knownSize) {
+        Path resolvedPath = resolvePath(filePath);
+        try (FileChannel channel = FileChannel.open(resolvedPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            WritableByteChannel sink = Channels.newChannel(OutputStream.nullOutputStream());
+            long position = 0;
+            while (position < size) {
+                long transferred = channel.transferTo(position, size - position, sink);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            return CompletableFuture.completedFuture(null);
+        } catch (NoSuchFileException e) {
+            if (index != null) {
+                index.invalidate(resolvedPath);
+            }
+            return CompletableFuture.failedFuture(e);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     @Override
@@ -62,9 +122,8 @@ public class LocalFileStorageService implements FileStorageService {
         }
 
         try {
-            Path resolvedPath = resolvePath(filePath);
-            File file = resolvedPath.toFile();
-            return file.exists() && file.isFile() && Files.isReadable(resolvedPath);
+            FileMetadataIndex.Entry metadata = metadata(resolvePath(filePath));
+            return metadata != null && metadata.readable();
         } catch (Exception e) {
             log.debug("Error checking file existence for path: {}, error: {}", filePath, e.getMessage());
             return false;
@@ -89,5 +148,54 @@ public class LocalFileStorageService implements FileStorageService {
         Path base = Paths.get(basePath);
         return base.resolve(path).normalize();
     }
-}
 
+    /**
+     * Returns the indexed metadata of a file, stat'ing it (and indexing the result) on a miss.
+     *
+     * @return the metadata, or null if the file does not exist
+     * @throws IllegalArgumentException if the path is not a regular file
+     */
+    private FileMetadataIndex.Entry metadata(Path path) throws IOException {
+        FileMetadataIndex.Entry metadata = index != null ? index.lookup(path) : null;
+        if (metadata != null) {
+            return metadata;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (!attributes.isRegularFile()) {
+            log.warn("Path is not a file (may be a directory): {}", path);
+            throw new IllegalArgumentException("Path is not a file: " + path);
+        }
+        if (index != null) {
+            return index.record(path, attributes);
+        }
+        return new FileMetadataIndex.Entry(attributes.size(), attributes.lastModifiedTime().toMillis(),
+                Files.isReadable(path));
+    }
+
+    /**
+     * File resource answering size and modification time from the index instead of the file system.
+     */
+    private static final class IndexedFileResource extends FileSystemResource {
+        private final FileMetadataIndex.Entry metadata;
+
+        private IndexedFileResource(Path path, FileMetadataIndex.Entry metadata) {
+            super(path);
+            this.metadata = metadata;
+        }
+
+        @Override
+        public long contentLength() {
+            return metadata.size();
+        }
+
+        @Override
+        public long lastModified() {
+            return metadata.lastModified();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the most requested song files memory-mapped so they can be served without
+ * opening or stat'ing the file.
+ *
+ * Every streamed request bumps a popularity counter. A periodic rebalance maps the top
+ * {@code music.streaming.mmap.max-files} files that fit into {@code max-bytes}, retires
+ * mappings that dropped out, and halves all counters so popularity follows recent plays.
+ * Readers hold a {@link Lease}; a retired mapping is dropped once its last lease is closed,
+ * and the garbage collector unmaps it when it collects the buffer. Until then the pages
+ * stay mapped, so {@code max-bytes} bounds what the cache keeps, not the address space.
+ */
+@Slf4j
+@Component
+public class MappedHotFileCache {
+
+    /**
+     * A read-only view of a mapped file. Must be closed after the response was written.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final MappedFile file;
+        private boolean closed;
+
+        private Lease(MappedFile file) {
+            this.file = file;
+        }
+
+        /** An independent read-only view, so concurrent readers do not share a position. */
+        public ByteBuffer buffer() {
+            return file.buffer.asReadOnlyBuffer();
+        }
+
+        public long size() {
+            return file.size;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                file.release();
+            }
+        }
+    }
+
+    private static final class MappedFile {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private final long size;
+        // One reference held by the cache itself until the mapping is retired
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private MappedFile(Path path, MappedByteBuffer buffer, long size) {
+            this.path = path;
+            this.buffer = buffer;
+            this.size = size;
+        }
+
+        private boolean retain() {
+            int current;
+            do {
+                current = references.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void release() {
+            if (references.decrementAndGet() == 0) {
+                log.debug("Released mapping of {}", path);
+            }
+        }
+    }
+
+    private final boolean enabled;
+    private final int maxFiles;
+    private final long maxBytes;
+    private final long minRequests;
+
+    private final Map<Path, LongAdder> popularity = new ConcurrentHashMap<>();
+    private final Map<Path, MappedFile> mapped = new ConcurrentHashMap<>();
+    private final Map<Path, Long> sizes = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public MappedHotFileCache(MeterRegistry meterRegistry,
+                              @Value("${music.streaming.mmap.enabled:false}") boolean enabled,
+                              @Value("${music.streaming.mmap.max-files:32}") int maxFiles,
+                              @Value("${music.streaming.mmap.max-bytes:536870912}") long maxBytes,
+                              @Value("${music.streaming.mmap.min-requests:3}") long minRequests) {
+        this.enabled = enabled;
+        this.maxFiles = maxFiles;
+        this.maxBytes = maxBytes;
+        this.minRequests = minRequests;
+        this.hits = Counter.builder("queuemanager.streaming.mmap.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("queuemanager.streaming.mmap.requests").tag("result", "miss").register(meterRegistry);
+        meterRegistry.gauge("queuemanager.streaming.mmap.mapped-bytes", this, MappedHotFileCache::getMappedBytes);
+    }
+
+    /**
+     * Counts a request for the file and returns a lease on its mapping if it is currently hot.
+     */
+    public Optional<Lease> acquire(Path file, long size) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        // Incremented inside compute so it cannot hit a counter rebalance() is removing
+        popularity.compute(file, (p, counter) -> {
+            LongAdder requests = counter != null ? counter : new LongAdder();
+            requests.increment();
+            return requests;
+        });
+        sizes.put(file, size);
+
+        MappedFile mappedFile = mapped.get(file);
+        if (mappedFile != null && mappedFile.size == size && mappedFile.retain()) {
+            hits.increment();
+            return Optional.of(new Lease(mappedFile));
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    @Scheduled(fixedDelayString = "${music.streaming.mmap.rebalance-ms:30000}", initialDelay = 30000)
+    public void rebalance() {
+        if (!enabled) {
+            return;
+        }
+        List<Map.Entry<Path, LongAdder>> ranked = new ArrayList<>(popularity.entrySet());
+        ranked.sort(Comparator.comparingLong((Map.Entry<Path, LongAdder> e) -> e.getValue().sum()).reversed());
+
+        Set<Path> hot = new HashSet<>();
+        long budget = maxBytes;
+        for (Map.Entry<Path, LongAdder> entry : ranked) {
+            if (hot.size() >= maxFiles || entry.getValue().sum() < minRequests) {
+                break;
+            }
+            long size = sizes.getOrDefault(entry.getKey(), Long.MAX_VALUE);
+            if (size <= budget && size <= Integer.MAX_VALUE) {
+                hot.add(entry.getKey());
+                budget -= size;
+            }
+        }
+
+        mapped.keySet().stream().filter(path -> !hot.contains(path)).toList().forEach(this::retire);
+        for (Path path : hot) {
+            if (!mapped.containsKey(path)) {
+                map(path);
+            }
+        }
+
+        // Decay so a track that stopped being played eventually drops out. Halving and removal
+        // are one step per key, so a concurrent acquire() lands either before the halving or on
+        // a fresh counter after the removal
+        for (Path path : popularity.keySet()) {
+            popularity.computeIfPresent(path, (p, counter) -> {
+                long halved = counter.sumThenReset() / 2;
+                if (halved == 0 && !mapped.containsKey(p)) {
+                    sizes.remove(p);
+                    return null;
+                }
+                counter.add(halved);
+                return counter;
+            });
+        }
+    }
+
+    public long getMappedBytes() {
+        return mapped.values().stream().mapToLong(file -> file.size).sum();
+    }
+
+    private void map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.put(path, new MappedFile(path, buffer, size));
+            log.debug("Mapped hot file {} ({} bytes)", path, size);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not map hot file {}: {}", path, e.getMessage());
+            popularity.remove(path);
+        }
+    }
+
+    private void retire(Path path) {
+        MappedFile file = mapped.remove(path);
+        if (file != null) {
+            file.release();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        new ArrayList<>(mapped.keySet()).forEach(this::retire);
+    }
+}
@@ -0,0 +1,200 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.muzika.queuemanager.entities.ProcessedMessage;
+import org.muzika.queuemanager.repository.ProcessedMessageRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Processed-message store for idempotent Kafka consumption.
+ * A bounded in-memory LRU answers most lookups; the {@code processed_messages} table
+ * backs it across restarts and rebalances. Entries expire after {@code kafka.dedup.ttl}.
+ *
+ * Callers check {@link #isDuplicate(String)} before doing any work and call
+ * {@link #markProcessed(String)} only after the message was applied, so a failed
+ * attempt is still retried.
+ */
+@Slf4j
+@Service
+public class MessageDeduplicationService {
+
+    private static final String LOOKUP_COUNTER = "queuemanager.kafka.dedup.lookups";
+
+    private final ProcessedMessageRepository processedMessageRepository;
+    private final Duration ttl;
+    private final Map<String, LocalDateTime> recent;
+    // A lock rather than synchronized: listener threads may be virtual and must not pin their carrier
+    private final ReentrantLock recentLock = new ReentrantLock();
+
+    private final Counter memoryHits;
+    private final Counter storeHits;
+    private final Counter misses;
+
+    public MessageDeduplicationService(ProcessedMessageRepository processedMessageRepository,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${kafka.dedup.ttl:PT24H}") Duration ttl,
+                                       @Value("${kafka.dedup.memory-entries:10000}") int memoryEntries) {
+        this.processedMessageRepository = processedMessageRepository;
+        this.ttl = ttl;
+        this.recent = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalDateTime> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+
+        this.memoryHits = Counter.builder(LOOKUP_COUNTER).tag("result", "hit").tag("source", "memory").register(meterRegistry);
+        this.storeHits = Counter.builder(LOOKUP_COUNTER).tag("result", "hit").tag("source", "store").register(meterRegistry);
+        this.misses = Counter.builder(LOOKUP_COUNTER).tag("result", "miss").tag("source", "store").register(meterRegistry);
+        meterRegistry.gauge("queuemanager.kafka.dedup.hit-ratio", this, MessageDeduplicationService::getHitRatio);
+    }
+
+    public static String loadedSongKey(UUID songId, Enum<?> status) {
+        return "loaded-song:" + songId + ":" + status;
+    }
+
+    public static String userCreatedKey(UUID userId) {
+        return "user-created:" + userId;
+    }
+
+    /**
+     * @return true if a message with this identity was already processed and has not expired
+     */
+    public boolean isDuplicate(String messageKey) {
+        LocalDateTime now = LocalDateTime.now();
+
+        LocalDateTime cachedExpiry;
+        recentLock.lock();
+        try {
+            cachedExpiry = recent.get(messageKey);
+        } finally {
+            recentLock.unlock();
+        }
+        if (cachedExpiry != null && cachedExpiry.isAfter(now)) {
+            memoryHits.increment();
+            return true;
+        }
+
+        Optional<ProcessedMessage> stored = processedMessageRepository.findById(messageKey);
+        if (stored.isPresent() && stored.get().getExpiresAt().isAfter(now)) {
+            remember(messageKey, stored.get().getExpiresAt());
+            storeHits.increment();
+            return true;
+        }
+
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * Batch form of {@link #isDuplicate(String)}: keys not found in memory are looked up
+     * in the store with a single query.
+     *
+     * @return the subset of keys that were already processed and have not expired
+     */
+    public Set<String> findDuplicates(Collection<String> messageKeys) {
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> duplicates = new HashSet<>();
+        List<String> unknown = new ArrayList<>();
+
+        recentLock.lock();
+        try {
+            for (String messageKey : messageKeys) {
+                LocalDateTime cachedExpiry = recent.get(messageKey);
+                if (cachedExpiry != null && cachedExpiry.isAfter(now)) {
+                    duplicates.add(messageKey);
+                } else {
+                    unknown.add(messageKey);
+                }
+            }
+        } finally {
+            recentLock.unlock();
+        }
+        memoryHits.increment(duplicates.size());
+        if (unknown.isEmpty()) {
+            return duplicates;
+        }
+
+        int storeHitCount = 0;
+        for (ProcessedMessage stored : processedMessageRepository.findAllById(unknown)) {
+            if (stored.getExpiresAt().isAfter(now)) {
+                remember(stored.getMessageKey(), stored.getExpiresAt());
+                duplicates.add(stored.getMessageKey());
+                storeHitCount++;
+            }
+        }
+        storeHits.increment(storeHitCount);
+        misses.increment(unknown.size() - storeHitCount);
+        return duplicates;
+    }
+
+    public void markProcessed(Collection<String> messageKeys) {
+        if (messageKeys.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(ttl);
+        List<ProcessedMessage> entries = new ArrayList<>(messageKeys.size());
+        for (String messageKey : messageKeys) {
+            remember(messageKey, expiresAt);
+            entries.add(new ProcessedMessage(messageKey, now, expiresAt));
+        }
+        try {
+            processedMessageRepository.saveAll(entries);
+        } catch (Exception e) {
+            log.warn("Could not persist {} processed message(s): {}", entries.size(), e.getMessage());
+        }
+    }
+
+    public void markProcessed(String messageKey) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(ttl);
+        remember(messageKey, expiresAt);
+        try {
+            processedMessageRepository.save(new ProcessedMessage(messageKey, now, expiresAt));
+        } catch (Exception e) {
+            // The in-memory entry still covers redeliveries to this instance
+            log.warn("Could not persist processed message {}: {}", messageKey, e.getMessage());
+        }
+    }
+
+    public double getHitRatio() {
+        double hits = memoryHits.count() + storeHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0.0 : hits / total;
+    }
+
+    @Scheduled(fixedDelayString = "${kafka.dedup.purge-interval-ms:3600000}", initialDelay = 60000)
+    public void purgeExpired() {
+        int removed = processedMessageRepository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            log.info("Purged {} expired processed-message entries", removed);
+        }
+    }
+
+    private void remember(String messageKey, LocalDateTime expiresAt) {
+        recentLock.lock();
+        try {
+            recent.put(messageKey, expiresAt);
+        } finally {
+            recentLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.muzika.queuemanager.services;
+
+import org.muzika.queuemanager.dto.QueueChange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The most recent committed change sets of each queue, keyed by the version they lead to.
+ * Lets a client that knows version N catch up with only the changes after N. Bounded per
+ * queue and held in memory: after a restart, or once a client falls too far behind, it
+ * has to reload the full queue. At most {@code queue.changes.max-queues} queues are kept;
+ * the least recently changed or read one is dropped first, so idle queues do not pile up.
+ */
+@Component
+public class QueueChangeLog {
+
+    private static final class Log {
+        final ReentrantLock lock = new ReentrantLock();
+        final NavigableMap<Long, List<QueueChange>> versions = new TreeMap<>();
+    }
+
+    private final int maxVersionsPerQueue;
+    // Access-ordered: iteration starts at the queue least recently changed or read
+    private final Map<UUID, Log> logs;
+    private final ReentrantLock logsLock = new ReentrantLock();
+
+    public QueueChangeLog(@Value("${queue.changes.max-versions-per-queue:128}") int maxVersionsPerQueue,
+                          @Value("${queue.changes.max-queues:10000}") int maxQueues) {
+        this.maxVersionsPerQueue = maxVersionsPerQueue;
+        this.logs = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Log> eldest) {
+                return size() > maxQueues;
+            }
+        };
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueChanged(QueueChangedEvent event) {
+        record(event.queueUuid(), event.version(), event.changes());
+    }
+
+    void record(UUID queueUuid, long version, List<QueueChange> changes) {
+        Log log = log(queueUuid, true);
+        log.lock.lock();
+        try {
+            // Commits may arrive slightly out of version order; the map keeps them sorted
+            log.versions.put(version, List.copyOf(changes));
+            while (log.versions.size() > maxVersionsPerQueue) {
+                log.versions.pollFirstEntry();
+            }
+        } finally {
+            log.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the newest version recorded for the queue, or -1 if none is
+     */
+    public long latestVersion(UUID queueUuid) {
+        Log log = log(queueUuid, false);
+        if (log == null) {
+            return -1;
+        }
+        log.lock.lock();
+        try {
+            return log.versions.isEmpty() ? -1 : log.versions.lastKey();
+        } finally {
+            log.lock.unlock();
+        }
+    }
+
+    /**
+     * @param sinceVersion   the version the client has
+     * @param currentVersion the committed version of the queue
+     * @return the changes from {@code sinceVersion} to {@code currentVersion} in order (empty
+     *         when they are equal), or empty if the log no longer covers every version in
+     *         between and the client has to reload the queue
+     */
+    public Optional<List<QueueChange>> changesSince(UUID queueUuid, long sinceVersion, long currentVersion) {
+        if (sinceVersion == currentVersion) {
+            return Optional.of(List.of());
+        }
+        if (sinceVersion > currentVersion) {
+            return Optional.empty();
+        }
+        Log log = log(queueUuid, false);
+        if (log == null) {
+            return Optional.empty();
+        }
+        List<QueueChange> changes = new ArrayList<>();
+        log.lock.lock();
+        try {
+            long expected = sinceVersion + 1;
+            for (Map.Entry<Long, List<QueueChange>> entry : log.versions.subMap(sinceVersion, false, currentVersion, true).entrySet()) {
+                if (entry.getKey() != expected) {
+                    return Optional.empty();
+                }
+                changes.addAll(entry.getValue());
+                expected++;
+            }
+            if (expected != currentVersion + 1) {
+                return Optional.empty();
+            }
+        } finally {
+            log.lock.unlock();
+        }
+        return Optional.of(changes);
+    }
+
+    private Log log(UUID queueUuid, boolean create) {
+        logsLock.lock();
+        try {
+            Log log = logs.get(queueUuid);
+            if (log == null && create) {
+                log = new Log();
+                logs.put(queueUuid, log);
+            }
+            return log;
+        } finally {
+            logsLock.unlock();
+        }
+    }
+}
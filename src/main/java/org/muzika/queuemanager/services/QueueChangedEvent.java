@@ -0,0 +1,13 @@
+package org.muzika.queuemanager.services;
+
+import org.muzika.queuemanager.dto.QueueChange;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published by {@link QueueService} for each committed change set; {@code version} is the
+ * queue version the changes lead to.
+ */
+public record QueueChangedEvent(UUID queueUuid, long version, List<QueueChange> changes) {
+}
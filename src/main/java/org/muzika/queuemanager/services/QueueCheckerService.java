@@ -80,8 +80,9 @@ public class QueueCheckerService {
             try {
                 UUID songId = queueManagerService.newSong();
             // useres song add
-                queueManagerService.addToUser(username,songId);
-                RequestRandomSong request = new RequestRandomSong(songId, DEFAULT_GENRE);
+                UUID userUuid = queueManagerService.addToUser(username,songId);
+                // Owner travels with the request and comes back in LoadedSong
+                RequestRandomSong request = new RequestRandomSong(songId, DEFAULT_GENRE, userUuid, username);
                 
                 kafkaProducerService.send("request-random-song", UUID.randomUUID(), request);
                 logger.info("Requested song {} of {} from Bandcamp API (songId: {})", i + 1, count, songId);
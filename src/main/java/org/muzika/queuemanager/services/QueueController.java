@@ -8,16 +8,29 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.muzika.queuemanager.config.ExecutorConfig;
 import org.muzika.queuemanager.dto.AddSongToQueueRequest;
+import org.muzika.queuemanager.dto.MoveQueueEntryRequest;
+import org.muzika.queuemanager.dto.PlayEventBatchRequest;
+import org.muzika.queuemanager.dto.PlayEventBatchResponse;
+import org.muzika.queuemanager.dto.QueueBatchRequest;
+import org.muzika.queuemanager.dto.QueueChange;
+import org.muzika.queuemanager.dto.QueueDelta;
+import org.muzika.queuemanager.dto.QueuePageResponse;
 import org.muzika.queuemanager.dto.QueueResponse;
 import org.muzika.queuemanager.dto.SongDTO;
 import org.muzika.queuemanager.dto.SongIdRequest;
 import org.muzika.queuemanager.dto.SongLikedResponse;
+import org.muzika.queuemanager.dto.StreamTokenResponse;
 import org.muzika.queuemanager.entities.Queue;
 import org.muzika.queuemanager.entities.Song;
+import org.muzika.queuemanager.repository.QueueVersion;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.io.Resource;
-import org.springframework.http.ContentDisposition;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -25,15 +38,17 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 @Slf4j
 @RestController
@@ -42,19 +57,40 @@ import java.util.concurrent.CompletableFuture;
 @Tag(name = "Queue", description = "Queue management endpoints")
 public class QueueController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final QueueService queueService;
     private final QueueCheckerService queueCheckerService;
     private final SongService songService;
     private final FileStorageService fileStorageService;
     private final UserService userService;
+    private final AudioStreamingService audioStreamingService;
+    private final QueuePrefetchService queuePrefetchService;
+    private final StreamTokenService streamTokenService;
+    private final ExecutorService queueRefillExecutor;
+    private final QueueEventBroadcaster queueEventBroadcaster;
+    private final QueueChangeLog queueChangeLog;
+    private final IdempotencyService idempotencyService;
 
     public QueueController(QueueService queueService, QueueCheckerService queueCheckerService,
-                           SongService songService, FileStorageService fileStorageService, UserService userService) {
+                           SongService songService, FileStorageService fileStorageService, UserService userService,
+                           AudioStreamingService audioStreamingService, QueuePrefetchService queuePrefetchService,
+                           StreamTokenService streamTokenService,
+                           @Qualifier(ExecutorConfig.QUEUE_REFILL_EXECUTOR) ExecutorService queueRefillExecutor,
+                           QueueEventBroadcaster queueEventBroadcaster, QueueChangeLog queueChangeLog,
+                           IdempotencyService idempotencyService) {
         this.queueService = queueService;
         this.queueCheckerService = queueCheckerService;
         this.songService = songService;
         this.fileStorageService = fileStorageService;
         this.userService = userService;
+        this.audioStreamingService = audioStreamingService;
+        this.queuePrefetchService = queuePrefetchService;
+        this.streamTokenService = streamTokenService;
+        this.queueRefillExecutor = queueRefillExecutor;
+        this.queueEventBroadcaster = queueEventBroadcaster;
+        this.queueChangeLog = queueChangeLog;
+        this.idempotencyService = idempotencyService;
     }
 
     private String getAuthenticatedUsername() {
@@ -65,6 +101,24 @@ public class QueueController {
         throw new IllegalStateException("User not authenticated");
     }
 
+    /**
+     * Runs {@code action} at most once per {@code Idempotency-Key}, keys being scoped to the
+     * user and operation. Requests without the header run as before.
+     */
+    private ResponseEntity<?> idempotent(String operation, String idempotencyKey, Object request,
+                                         Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        String username;
+        try {
+            username = getAuthenticatedUsername();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
+        return idempotencyService.execute(username + ":" + operation, idempotencyKey, request, action);
+    }
+
     @GetMapping("/queue")
     @Operation(
         summary = "Get songs in queue",
@@ -90,20 +144,23 @@ public class QueueController {
         log.debug("Get queue{}", getAuthenticatedUsername());
         try {
             String username = getAuthenticatedUsername();
-            Queue queue = userService.getUserByName(username).getUserQueue();
+            // Entries and songs in one query; the session is closed once this returns
+            Queue queue = queueService.getQueueView(username);
             if (queue == null) {
                 log.error("Queue {} not found", getAuthenticatedUsername());
             }
             
-            List<org.muzika.queuemanager.entities.QueueSong> queueSongs = queue.getQueueSongs();
+            List<org.muzika.queuemanager.entities.QueueSong> queueSongs = queue == null ? null : queue.getQueueSongs();
             if (queue == null || queueSongs == null || queueSongs.isEmpty()) {
                 QueueResponse response = new QueueResponse();
-                java.util.concurrent.CompletableFuture<Boolean>  future= CompletableFuture.supplyAsync(()-> {return queueCheckerService.ensureMinimumQueueSize(username,10,10);});
+                response.setVersion(queue == null ? 0 : versionOf(queue));
+                java.util.concurrent.CompletableFuture<Boolean>  future= CompletableFuture.supplyAsync(()-> {return queueCheckerService.ensureMinimumQueueSize(username,10,10);}, queueRefillExecutor);
                 response.setSongs(new ArrayList<>());
                 return ResponseEntity.ok(response);
             }
             
             List<SongDTO> songDTOs = new ArrayList<>();
+            List<Song> songs = new ArrayList<>();
             for (org.muzika.queuemanager.entities.QueueSong queueSong : queueSongs) {
                 Song song = queueSong.getSong();
                 if (song != null) {
@@ -111,12 +168,16 @@ public class QueueController {
                     // Include queue entry ID for tracking specific instances
                     songDTO.setQueueEntryId(queueSong.getId());
                     songDTOs.add(songDTO);
+                    songs.add(song);
                 }
             }
+            // Warm the files the client is about to request
+            queuePrefetchService.prefetch(songs);
             
             QueueResponse response = new QueueResponse();
             response.setSongs(songDTOs);
-            java.util.concurrent.CompletableFuture<Boolean>  future= CompletableFuture.supplyAsync(()-> {return queueCheckerService.ensureMinimumQueueSize(username,10,10);});
+            response.setVersion(versionOf(queue));
+            java.util.concurrent.CompletableFuture<Boolean>  future= CompletableFuture.supplyAsync(()-> {return queueCheckerService.ensureMinimumQueueSize(username,10,10);}, queueRefillExecutor);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
 
@@ -125,6 +186,75 @@ public class QueueController {
         }
     }
 
+    @GetMapping("/queue/page")
+    @Operation(
+        summary = "Get one page of the queue",
+        description = "Retrieve up to limit songs of the authenticated user's queue, starting after the given cursor "
+                + "(from the head if omitted). Each page costs the same however long the queue is. Pass nextCursor "
+                + "to get the following page; to stay in sync across pages, apply GET /queue/changes?since=<version>."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Page retrieved successfully",
+            content = @Content(schema = @Schema(implementation = QueuePageResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Bad request (malformed cursor or limit below 1)"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Unauthorized (invalid or missing JWT token)"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error"
+        )
+    })
+    public ResponseEntity<QueuePageResponse> getQueuePage(
+        @Parameter(description = "nextCursor of the previous page")
+        @RequestParam(required = false) String cursor,
+        @Parameter(description = "Maximum number of songs, at most " + MAX_PAGE_SIZE, example = "50")
+        @RequestParam(defaultValue = "50") int limit) {
+        try {
+            String username = getAuthenticatedUsername();
+            if (limit < 1) {
+                return ResponseEntity.badRequest().build();
+            }
+            QueuePage page = queueService.getQueuePage(username, cursor, Math.min(limit, MAX_PAGE_SIZE));
+
+            List<SongDTO> songDTOs = new ArrayList<>(page.entries().size());
+            List<Song> songs = new ArrayList<>(page.entries().size());
+            for (org.muzika.queuemanager.entities.QueueSong queueSong : page.entries()) {
+                SongDTO songDTO = convertToDTO(queueSong.getSong());
+                songDTO.setQueueEntryId(queueSong.getId());
+                songDTOs.add(songDTO);
+                songs.add(queueSong.getSong());
+            }
+            if (cursor == null) {
+                // Same side effects as GET /queue, once per listing rather than per page
+                queuePrefetchService.prefetch(songs);
+                CompletableFuture.supplyAsync(() -> queueCheckerService.ensureMinimumQueueSize(username, 10, 10), queueRefillExecutor);
+            }
+
+            QueuePageResponse response = new QueuePageResponse();
+            response.setSongs(songDTOs);
+            response.setVersion(page.version());
+            response.setNextCursor(page.nextCursor());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejected queue page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (Exception e) {
+            log.error("Error reading queue page: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PostMapping("/queue")
     @Operation(
         summary = "Add song to queue",
@@ -174,6 +304,297 @@ public class QueueController {
         }
     }
 
+    @PostMapping("/queue/move")
+    @Operation(
+        summary = "Move a queue entry",
+        description = "Move one entry of the authenticated user's queue to another position. Only that entry is "
+                + "rewritten, so this is cheap on long queues (e.g. drag and drop). Returns the new queue version."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Entry moved",
+            content = @Content(schema = @Schema(implementation = QueueDelta.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Bad request (unknown entry or position out of bounds)"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Unauthorized (invalid or missing JWT token)"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error"
+        )
+    })
+    public ResponseEntity<QueueDelta> moveQueueEntry(@RequestBody MoveQueueEntryRequest request) {
+        try {
+            String username = getAuthenticatedUsername();
+            if (request.getQueueEntryId() == null || request.getPosition() == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            QueueDelta delta = queueService.moveQueueEntry(username, request.getQueueEntryId(), request.getPosition());
+            return ResponseEntity.ok().eTag("\"" + delta.getVersion() + "\"").body(delta);
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejected queue move: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (Exception e) {
+            log.error("Error moving queue entry: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/queue/shuffle")
+    @Operation(
+        summary = "Shuffle the queue",
+        description = "Put the authenticated user's queue in random order on the server, in one statement. The same seed "
+                + "gives the same order for the same queue. Returns the new queue version and every entry's new position."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Queue shuffled",
+            content = @Content(schema = @Schema(implementation = QueueDelta.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Bad request (user has no queue)"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Unauthorized (invalid or missing JWT token)"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error"
+        )
+    })
+    public ResponseEntity<QueueDelta> shuffleQueue(
+        @Parameter(description = "Optional seed, for a reproducible order", example = "42")
+        @RequestParam(required = false) Long seed) {
+        try {
+            String username = getAuthenticatedUsername();
+            QueueDelta delta = queueService.shuffleQueue(username, seed);
+            // The head of the queue changed
+            queuePrefetchService.prefetchNext(username);
+            return ResponseEntity.ok().eTag("\"" + delta.getVersion() + "\"").body(delta);
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejected queue shuffle: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (Exception e) {
+            log.error("Error shuffling queue: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/queue/clear")
+    @Operation(
+        summary = "Clear the queue",
+        description = "Remove every entry from the authenticated user's queue in one statement. The queue is not refilled. "
+                + "Returns the new queue version."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Queue cleared",
+            content = @Content(schema = @Schema(implementation = QueueDelta.class))
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Unauthorized (invalid or missing JWT token)"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error"
+        )
+    })
+    public ResponseEntity<QueueDelta> clearQueue() {
+        try {
+            String username = getAuthenticatedUsername();
+            QueueDelta delta = queueService.clearQueue(username);
+            return ResponseEntity.ok().eTag("\"" + delta.getVersion() + "\"").body(delta);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (Exception e) {
+            log.error("Error clearing queue: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/queue/batch")
+    @Operation(
+        summary = "Apply several queue operations at once",
+        description = "Apply an ordered list of operations (ADD, REMOVE, MOVE, CLEAR) to the authenticated user's queue "
+                + "in one transaction: all succeed or none is applied. Positions refer to the queue as left by the "
+                + "previous operation. Returns the new queue version and the resulting changes."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Operations applied",
+            content = @Content(schema = @Schema(implementation = QueueDelta.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Bad request (invalid operation, unknown song or entry, position out of bounds); nothing applied"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Unauthorized (invalid or missing JWT token)"
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Queue is no longer at expectedVersion; nothing applied"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error"
+        )
+    })
+    public ResponseEntity<QueueDelta> applyQueueBatch(@RequestBody QueueBatchRequest request) {
+        try {
+            String username = getAuthenticatedUsername();
+            QueueDelta delta = queueService.applyBatch(username, request.getOperations(), request.getExpectedVersion());
+            return ResponseEntity.ok().eTag("\"" + delta.getVersion() + "\"").body(delta);
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejected queue batch: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (Exception e) {
+            log.error("Error applying queue batch: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/queue/changes")
+    @Operation(
+        summary = "Get queue changes since a version",
+        description = "Return only the changes to the authenticated user's queue after the given version (from GET /queue, "
+                + "a previous call or an event id), to be applied in order. 304 when nothing changed; 410 when the "
+                + "server no longer holds all changes since that version and the client must reload GET /queue."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Changes since the given version",
+            content = @Content(schema = @Schema(implementation = QueueDelta.class))
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Queue unchanged since the given version"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Unauthorized (invalid or missing JWT token)"
+        ),
+        @ApiResponse(
+            responseCode = "410",
+            description = "Changes since that version are no longer available; reload GET /queue"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error"
+        )
+    })
+    public ResponseEntity<QueueDelta> getQueueChanges(
+        @Parameter(description = "Queue version the client already has", required = true, example = "42")
+        @RequestParam long since) {
+        try {
+            String username = getAuthenticatedUsername();
+            QueueVersion current = queueService.getQueueVersion(username);
+            long version = current == null ? 0 : current.version();
+            Optional<List<QueueChange>> changes;
+            if (current == null) {
+                // No queue yet, so it has never changed
+                changes = since == 0 ? Optional.of(List.of()) : Optional.empty();
+            } else {
+                changes = queueChangeLog.changesSince(current.queueUuid(), since, version);
+            }
+            String etag = "\"" + version + "\"";
+            if (changes.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.GONE).eTag(etag).build();
+            }
+            if (changes.get().isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            return ResponseEntity.ok().eTag(etag).body(new QueueDelta(version, changes.get()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (Exception e) {
+            log.error("Error getting queue changes: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping(value = "/queue/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Subscribe to queue changes",
+        description = "Server-Sent Events stream of changes to the authenticated user's queue, replacing polling of GET /queue. "
+                + "Each 'queue-changed' event carries a QueueDelta and the new queue version as its id. Pass the version "
+                + "of the last GET /queue as 'since' (reconnecting EventSource clients send Last-Event-ID instead) to "
+                + "receive only what changed after it; a 'resync' event means the client must reload GET /queue."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Event stream opened"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Unauthorized (invalid or missing JWT token)"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error"
+        )
+    })
+    public ResponseEntity<SseEmitter> subscribeToQueue(
+        @Parameter(description = "Queue version the client already has", example = "42")
+        @RequestParam(required = false) Long since,
+        @Parameter(hidden = true)
+        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            String username = getAuthenticatedUsername();
+            Long resumeFrom = since;
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                try {
+                    resumeFrom = Long.parseLong(lastEventId.trim());
+                } catch (NumberFormatException e) {
+                    resumeFrom = null;
+                }
+            }
+            // Version only: the entries are not needed and subscribing must not create a queue
+            QueueVersion current = queueService.getQueueVersion(username);
+            // Without a queue yet, listen under the user's id, which the queue created by the refill shares
+            UUID queueUuid = current != null ? current.queueUuid() : userService.getUserIdByUsername(username);
+            long version = current != null ? current.version() : 0;
+            SseEmitter emitter = queueEventBroadcaster.subscribe(queueUuid, version, resumeFrom);
+            // Refill once per subscription; later additions arrive as events
+            CompletableFuture.supplyAsync(() -> queueCheckerService.ensureMinimumQueueSize(username, 10, 10), queueRefillExecutor);
+            return ResponseEntity.ok().header(HttpHeaders.CACHE_CONTROL, "no-cache").body(emitter);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (Exception e) {
+            log.error("Error subscribing to queue events: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PostMapping("/queue/check")
     @Operation(
         summary = "Check and refill queue",
@@ -225,12 +646,20 @@ public class QueueController {
         ),
         @ApiResponse(
             responseCode = "400",
-            description = "Bad request (missing songId)"
+            description = "Bad request (missing songId or malformed Idempotency-Key)"
         ),
         @ApiResponse(
             responseCode = "401",
             description = "Unauthorized (invalid or missing JWT token)"
         ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "A request with the same Idempotency-Key is still in progress"
+        ),
+        @ApiResponse(
+            responseCode = "422",
+            description = "Idempotency-Key was already used for a different request"
+        ),
         @ApiResponse(
             responseCode = "500",
             description = "Internal server error"
@@ -238,7 +667,13 @@ public class QueueController {
     })
     public ResponseEntity<?> markSongAsSkipped(
         @Parameter(description = "Song ID and optional queue entry ID", required = true)
-        @RequestBody SongIdRequest request) {
+        @RequestBody SongIdRequest request,
+        @Parameter(description = "Client-chosen key; a retry with the same key returns the first response instead of applying the request again")
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotent("queue/skipped", idempotencyKey, request, () -> markSongAsSkipped(request));
+    }
+
+    private ResponseEntity<?> markSongAsSkipped(SongIdRequest request) {
         try {
             String username = getAuthenticatedUsername();
             
@@ -257,9 +692,10 @@ public class QueueController {
             } else {
                 queueService.removeSongFromQueue(username, songId);
             }
+            queuePrefetchService.prefetchNext(username);
             
             // Refill queue to ensure minimum size
-            java.util.concurrent.CompletableFuture<Boolean>  future= CompletableFuture.supplyAsync(()-> {return queueCheckerService.ensureMinimumQueueSize(username,10,10);});
+            java.util.concurrent.CompletableFuture<Boolean>  future= CompletableFuture.supplyAsync(()-> {return queueCheckerService.ensureMinimumQueueSize(username,10,10);}, queueRefillExecutor);
             
             return ResponseEntity.ok().build();
         } catch (IllegalArgumentException e) {
@@ -285,12 +721,20 @@ public class QueueController {
         ),
         @ApiResponse(
             responseCode = "400",
-            description = "Bad request (missing songId)"
+            description = "Bad request (missing songId or malformed Idempotency-Key)"
         ),
         @ApiResponse(
             responseCode = "401",
             description = "Unauthorized (invalid or missing JWT token)"
         ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "A request with the same Idempotency-Key is still in progress"
+        ),
+        @ApiResponse(
+            responseCode = "422",
+            description = "Idempotency-Key was already used for a different request"
+        ),
         @ApiResponse(
             responseCode = "500",
             description = "Internal server error"
@@ -298,7 +742,13 @@ public class QueueController {
     })
     public ResponseEntity<?> markSongAsFinished(
         @Parameter(description = "Song ID and optional queue entry ID", required = true)
-        @RequestBody SongIdRequest request) {
+        @RequestBody SongIdRequest request,
+        @Parameter(description = "Client-chosen key; a retry with the same key returns the first response instead of applying the request again")
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotent("queue/finished", idempotencyKey, request, () -> markSongAsFinished(request));
+    }
+
+    private ResponseEntity<?> markSongAsFinished(SongIdRequest request) {
         try {
             String username = getAuthenticatedUsername();
             
@@ -317,9 +767,10 @@ public class QueueController {
             } else {
                 queueService.removeSongFromQueue(username, songId);
             }
+            queuePrefetchService.prefetchNext(username);
             
             // Refill queue to ensure minimum size
-            java.util.concurrent.CompletableFuture<Boolean>  future= CompletableFuture.supplyAsync(()-> {return queueCheckerService.ensureMinimumQueueSize(username,10,10);});
+            java.util.concurrent.CompletableFuture<Boolean>  future= CompletableFuture.supplyAsync(()-> {return queueCheckerService.ensureMinimumQueueSize(username,10,10);}, queueRefillExecutor);
 
 
             return ResponseEntity.ok().build();
@@ -333,10 +784,76 @@ public class QueueController {
         }
     }
 
+    @PostMapping("/queue/plays")
+    @Operation(
+        summary = "Record a batch of play events",
+        description = "Apply finished, skipped and liked events collected by the player (e.g. while offline) in one call: "
+                + "listen counts and flags are updated in the order the events happened, played songs are removed from "
+                + "the queue, and the queue is refilled once at the end. Events for songs that no longer exist are ignored."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Events applied",
+            content = @Content(schema = @Schema(implementation = PlayEventBatchResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Bad request (no events, too many, or an event without type or songId); nothing applied"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Unauthorized (invalid or missing JWT token)"
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "A request with the same Idempotency-Key is still in progress"
+        ),
+        @ApiResponse(
+            responseCode = "422",
+            description = "Idempotency-Key was already used for a different request"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error"
+        )
+    })
+    public ResponseEntity<?> recordPlayEvents(
+        @Parameter(description = "Play events", required = true)
+        @RequestBody PlayEventBatchRequest request,
+        @Parameter(description = "Client-chosen key; a retry with the same key returns the first response instead of applying the events again")
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotent("queue/plays", idempotencyKey, request, () -> recordPlayEvents(request));
+    }
+
+    private ResponseEntity<?> recordPlayEvents(PlayEventBatchRequest request) {
+        try {
+            String username = getAuthenticatedUsername();
+            PlayEventBatchResponse response = queueService.recordPlayEvents(username, request.getEvents());
+
+            // One prefetch and one refill for the whole batch
+            if (response.getRemovedFromQueue() > 0) {
+                queuePrefetchService.prefetchNext(username);
+                CompletableFuture.supplyAsync(() -> queueCheckerService.ensureMinimumQueueSize(username, 10, 10), queueRefillExecutor);
+            }
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error recording play events: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
     @GetMapping("/songs/{id}")
     @Operation(
         summary = "Get song file",
-        description = "Download the audio file for a song by ID. Returns the audio file with appropriate content type."
+        description = "Download the audio file for a song by ID. Returns the audio file with appropriate content type. "
+                + "Supports single and multiple byte ranges via the Range header, and conditional requests "
+                + "(If-None-Match, If-Modified-Since, If-Range) against a strong ETag."
     )
     @SecurityRequirement(name = "bearerAuth")
     @ApiResponses(value = {
@@ -345,6 +862,14 @@ public class QueueController {
             description = "Song file retrieved successfully",
             content = @Content(mediaType = "audio/mpeg")
         ),
+        @ApiResponse(
+            responseCode = "206",
+            description = "Requested byte range(s) of the song file"
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Client copy is still valid"
+        ),
         @ApiResponse(
             responseCode = "401",
             description = "Unauthorized (invalid or missing JWT token)"
@@ -353,6 +878,10 @@ public class QueueController {
             responseCode = "404",
             description = "Song not found"
         ),
+        @ApiResponse(
+            responseCode = "416",
+            description = "Requested range not satisfiable"
+        ),
         @ApiResponse(
             responseCode = "500",
             description = "Internal server error"
@@ -360,7 +889,9 @@ public class QueueController {
     })
     public ResponseEntity<Resource> getSong(
         @Parameter(description = "Song UUID", required = true, example = "770e8400-e29b-41d4-a716-446655440002")
-        @PathVariable UUID id) {
+        @PathVariable UUID id,
+        HttpServletRequest request,
+        HttpServletResponse response) {
         try {
             // Authentication check
             String username = getAuthenticatedUsername();
@@ -385,7 +916,9 @@ public class QueueController {
             // Retrieve file from storage
             Resource resource;
             try {
-                resource = fileStorageService.getFile(filePath);
+                resource = song.getSizeBytes() != null
+                        ? fileStorageService.getFile(filePath, song.getSizeBytes())
+                        : fileStorageService.getFile(filePath);
             } catch (IOException e) {
                 log.error("Error retrieving file for song {}: {}", id, e.getMessage());
                 return ResponseEntity.notFound().build();
@@ -394,23 +927,33 @@ public class QueueController {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
             }
 
-            // Determine content type
-            MediaType mediaType = determineContentType(filePath);
-            
-            // Extract filename for Content-Disposition header
-            String filename = extractFilename(filePath);
+            // Size and mtime are stored on the song; stat the file once for songs that predate them
+            try {
+                ensureFileMetadata(song, resource);
+            } catch (IOException e) {
+                log.error("Error retrieving file for song {}: {}", id, e.getMessage());
+                return ResponseEntity.notFound().build();
+            }
 
-            // Set headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(mediaType);
-            headers.setContentLength(resource.contentLength());
-            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
-            headers.setContentDisposition(ContentDisposition.attachment().filename(filename).build());
+            MediaType mediaType = SongResponseHeaders.mediaType(song.getCodec(), filePath);
+            HttpHeaders headers = SongResponseHeaders.headers(id, filePath, song.getSizeBytes(), song.getFileModifiedAt());
+            long length = song.getSizeBytes();
+
+            // Body (or the requested ranges) is written straight to the response
+            try {
+                audioStreamingService.serve(resource, length, mediaType, headers, request, response);
+            } catch (IOException e) {
+                if (response.isCommitted()) {
+                    log.debug("Streaming song {} aborted: {}", id, e.getMessage());
+                    return null;
+                }
+                log.error("Error retrieving file for song {}: {}", id, e.getMessage());
+                response.reset();
+                return ResponseEntity.notFound().build();
+            }
 
             log.debug("Successfully serving song {} as file {}", id, filePath);
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(resource);
+            return null;
 
         } catch (IllegalStateException e) {
             log.warn("Unauthorized access attempt: {}", e.getMessage());
@@ -421,6 +964,76 @@ public class QueueController {
         }
     }
 
+    @PostMapping("/songs/{id}/stream-token")
+    @Operation(
+        summary = "Issue a stream URL",
+        description = "Issue a signed, short-lived URL for a song in the user's queue. The URL is served without "
+                + "JWT validation or database access, so players can issue many range requests against it cheaply."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Stream URL issued",
+            content = @Content(schema = @Schema(implementation = StreamTokenResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Unauthorized (invalid or missing JWT token)"
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Song not found, not in the user's queue, or its file is missing"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error"
+        )
+    })
+    public ResponseEntity<StreamTokenResponse> issueStreamToken(
+        @Parameter(description = "Song UUID", required = true, example = "770e8400-e29b-41d4-a716-446655440002")
+        @PathVariable UUID id) {
+        try {
+            String username = getAuthenticatedUsername();
+            if (!queueService.isQueued(username, id)) {
+                log.debug("Song {} is not in the queue of {}", id, username);
+                return ResponseEntity.notFound().build();
+            }
+
+            Song song;
+            try {
+                song = songService.findByUUID(id);
+            } catch (RuntimeException e) {
+                log.warn("Song not found: {}", id);
+                return ResponseEntity.notFound().build();
+            }
+            if (song.getUrl() == null || song.getUrl().trim().isEmpty()) {
+                log.warn("Song {} has no file path", id);
+                return ResponseEntity.notFound().build();
+            }
+
+            // The token carries size and mtime, so they must be known before issuing it
+            if (song.getSizeBytes() == null || song.getFileModifiedAt() == null) {
+                try {
+                    ensureFileMetadata(song, fileStorageService.getFile(song.getUrl()));
+                } catch (IOException e) {
+                    log.error("Error retrieving file for song {}: {}", id, e.getMessage());
+                    return ResponseEntity.notFound().build();
+                }
+            }
+
+            StreamTokenService.IssuedToken issued = streamTokenService.issue(song);
+            return ResponseEntity.ok(new StreamTokenResponse(issued.token(), "/api/stream/" + issued.token(),
+                    issued.expiresAt()));
+        } catch (IllegalStateException e) {
+            log.warn("Unauthorized access attempt: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        } catch (Exception e) {
+            log.error("Unexpected error issuing stream token for song {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/songs/{id}/liked")
     @Operation(
         summary = "Get song liked status",
@@ -555,47 +1168,23 @@ public class QueueController {
     }
 
     /**
-     * Determines the content type based on file extension.
+     * Backfills size and modification time on songs stored before they were recorded.
      */
-    private MediaType determineContentType(String filePath) {
-        String lowerPath = filePath.toLowerCase();
-        if (lowerPath.endsWith(".mp3")) {
-            return MediaType.parseMediaType("audio/mpeg");
-        } else if (lowerPath.endsWith(".flac")) {
-            return MediaType.parseMediaType("audio/flac");
-        } else if (lowerPath.endsWith(".wav")) {
-            return MediaType.parseMediaType("audio/wav");
-        } else if (lowerPath.endsWith(".aiff") || lowerPath.endsWith(".aif")) {
-            return MediaType.parseMediaType("audio/aiff");
-        } else if (lowerPath.endsWith(".m4a")) {
-            return MediaType.parseMediaType("audio/mp4");
-        } else if (lowerPath.endsWith(".ogg")) {
-            return MediaType.parseMediaType("audio/ogg");
-        } else if (lowerPath.endsWith(".wma")) {
-            return MediaType.parseMediaType("audio/x-ms-wma");
-        } else {
-            // Default to binary if unknown
-            return MediaType.APPLICATION_OCTET_STREAM;
+    private void ensureFileMetadata(Song song, Resource resource) throws IOException {
+        if (song.getSizeBytes() == null || song.getFileModifiedAt() == null) {
+            long size = song.getSizeBytes() != null ? song.getSizeBytes() : resource.contentLength();
+            long modifiedAt = resource.lastModified();
+            songService.updateFileMetadata(song.getId(), size, modifiedAt);
+            song.setSizeBytes(size);
+            song.setFileModifiedAt(modifiedAt);
         }
     }
 
-    /**
-     * Extracts the filename from a file path.
-     */
-    private String extractFilename(String filePath) {
-        Path path = Paths.get(filePath);
-        return path.getFileName().toString();
+    private static long versionOf(Queue queue) {
+        return queue.getVersion() == null ? 0 : queue.getVersion();
     }
 
     private SongDTO convertToDTO(Song song) {
-        SongDTO dto = new SongDTO();
-        dto.setId(song.getId());
-        dto.setTitle(song.getTitle());
-        dto.setArtist(song.getArtist());
-        dto.setAlbum(song.getAlbum());
-        dto.setGenre(song.getGenre());
-        dto.setDuration(song.getDuration());
-        dto.setUrl(song.getUrl());
-        return dto;
+        return SongDTO.from(song);
     }
 }
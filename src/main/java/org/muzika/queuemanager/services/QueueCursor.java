@@ -0,0 +1,32 @@
+package org.muzika.queuemanager.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a queue for paged reads: the ordering key and id of the last entry returned.
+ * Handed to clients as an opaque string, so the keys themselves stay an implementation
+ * detail. Entries are ordered by key then id, so a cursor stays valid while other entries
+ * are added, moved or removed.
+ */
+record QueueCursor(int position, UUID entryId) {
+
+    String encode() {
+        String raw = position + ":" + entryId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code cursor} was not produced by {@link #encode()}
+     */
+    static QueueCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new QueueCursor(Integer.parseInt(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.muzika.queuemanager.config.ExecutorConfig;
+import org.muzika.queuemanager.dto.QueueChange;
+import org.muzika.queuemanager.dto.QueueDelta;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes committed queue changes to subscribed clients over Server-Sent Events, so they
+ * no longer poll GET /api/queue/queue to notice songs added by Kafka.
+ *
+ * Every event carries the queue version as its id. A reconnecting client sends it back
+ * (Last-Event-ID, or {@code since}) and receives only what it missed, taken from the
+ * {@link QueueChangeLog}; if the log no longer covers the gap it gets a {@code resync}
+ * event and reloads the queue.
+ */
+@Slf4j
+@Service
+public class QueueEventBroadcaster {
+
+    static final String CHANGE_EVENT = "queue-changed";
+    static final String RESYNC_EVENT = "resync";
+
+    private final QueueChangeLog changeLog;
+    private final Executor heartbeatExecutor;
+    private final long timeoutMillis;
+    private final Map<UUID, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    public QueueEventBroadcaster(QueueChangeLog changeLog, MeterRegistry meterRegistry,
+                                 @Qualifier(ExecutorConfig.QUEUE_EVENTS_EXECUTOR) Executor heartbeatExecutor,
+                                 @Value("${queue.events.timeout-ms:1800000}") long timeoutMillis) {
+        this.changeLog = changeLog;
+        this.heartbeatExecutor = heartbeatExecutor;
+        this.timeoutMillis = timeoutMillis;
+        meterRegistry.gauge("queuemanager.queue.events.subscribers", subscriberCount);
+    }
+
+    /**
+     * @param currentVersion committed version of the queue at subscription time
+     * @param resumeFrom     the last version the client has seen, or null if it has none
+     */
+    public SseEmitter subscribe(UUID queueUuid, long currentVersion, Long resumeFrom) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscription subscription = new Subscription(queueUuid, emitter);
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(e -> unsubscribe(subscription));
+
+        // Live events wait for the replay; anything committed since currentVersion was read is in the log
+        subscription.lock.lock();
+        try {
+            subscriptions.compute(queueUuid, (id, subscribers) -> {
+                Set<Subscription> set = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+                set.add(subscription);
+                return set;
+            });
+            subscriberCount.incrementAndGet();
+
+            long version = Math.max(currentVersion, changeLog.latestVersion(queueUuid));
+            Optional<List<QueueChange>> missed = resumeFrom == null
+                    ? Optional.empty()
+                    : changeLog.changesSince(queueUuid, resumeFrom, version);
+            if (missed.isEmpty()) {
+                subscription.send(RESYNC_EVENT, version, List.of());
+            } else if (!missed.get().isEmpty()) {
+                subscription.send(CHANGE_EVENT, version, missed.get());
+            }
+            subscription.lastVersion = version;
+        } finally {
+            subscription.lock.unlock();
+        }
+        return emitter;
+    }
+
+    /**
+     * Runs after {@link QueueChangeLog#onQueueChanged}, so the log already holds this version.
+     */
+    @Order(1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueChanged(QueueChangedEvent event) {
+        Set<Subscription> subscribers = subscriptions.get(event.queueUuid());
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscription subscription : subscribers) {
+            subscription.lock.lock();
+            try {
+                long last = subscription.lastVersion;
+                if (event.version() <= last) {
+                    continue;
+                }
+                if (event.version() == last + 1) {
+                    subscription.send(CHANGE_EVENT, event.version(), event.changes());
+                } else {
+                    // An earlier version has not been delivered yet (commits finishing out of order)
+                    Optional<List<QueueChange>> missed = changeLog.changesSince(event.queueUuid(), last, event.version());
+                    if (missed.isPresent()) {
+                        subscription.send(CHANGE_EVENT, event.version(), missed.get());
+                    } else {
+                        subscription.send(RESYNC_EVENT, event.version(), List.of());
+                    }
+                }
+                subscription.lastVersion = event.version();
+            } finally {
+                subscription.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Comment lines keep idle connections open through proxies and reveal dead clients.
+     * The scheduler thread only hands the writes to the heartbeat executor; a subscriber
+     * whose previous heartbeat is still being written is skipped this round.
+     */
+    @Scheduled(fixedDelayString = "${queue.events.heartbeat-ms:15000}", initialDelayString = "${queue.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscription> subscribers : subscriptions.values()) {
+            for (Subscription subscription : subscribers) {
+                if (!subscription.heartbeatPending.compareAndSet(false, true)) {
+                    continue;
+                }
+                try {
+                    heartbeatExecutor.execute(subscription::sendHeartbeat);
+                } catch (RejectedExecutionException e) {
+                    subscription.heartbeatPending.set(false);
+                    return;
+                }
+            }
+        }
+    }
+
+    int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.queueUuid, (id, subscribers) -> {
+            if (subscribers.remove(subscription)) {
+                subscriberCount.decrementAndGet();
+            }
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private final class Subscription {
+        final UUID queueUuid;
+        final SseEmitter emitter;
+        final ReentrantLock lock = new ReentrantLock();
+        final AtomicBoolean heartbeatPending = new AtomicBoolean();
+        long lastVersion = -1;
+
+        Subscription(UUID queueUuid, SseEmitter emitter) {
+            this.queueUuid = queueUuid;
+            this.emitter = emitter;
+        }
+
+        void send(String name, long version, List<QueueChange> changes) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(version))
+                        .name(name)
+                        .data(new QueueDelta(version, changes)));
+            } catch (IOException | IllegalStateException e) {
+                fail(e);
+            }
+        }
+
+        void sendHeartbeat() {
+            lock.lock();
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                fail(e);
+            } finally {
+                lock.unlock();
+                heartbeatPending.set(false);
+            }
+        }
+
+        void fail(Exception e) {
+            log.debug("Dropping queue event subscriber for {}: {}", queueUuid, e.getMessage());
+            unsubscribe(this);
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -87,14 +87,21 @@ public class QueueManagerService {
     }
 
     public String songLoaded(LoadedSong loadedSong) {
-        songService.updateSongPath(loadedSong.getUuid(),loadedSong.getFilePath());
+        songService.updateLoadedSong(loadedSong);
+        if (loadedSong.getUserUuid() != null && loadedSong.getUsername() != null) {
+            // Owner carried in the message - no UserSong lookup needed
+            queueService.addToQueueByUserUuid(loadedSong.getUuid(), loadedSong.getUserUuid());
+            return loadedSong.getUsername();
+        }
         String user = userService.getUserBySongID(loadedSong.getUuid()).getUserName();
         queueService.addToQueue(loadedSong.getUuid(),user);
         return user;
     }
 
     public String delete(LoadedSong loadedSong) {
-        String user = userService.getUserBySongID(loadedSong.getUuid()).getUserName();
+        String user = loadedSong.getUsername() != null
+                ? loadedSong.getUsername()
+                : userService.getUserBySongID(loadedSong.getUuid()).getUserName();
 
         userService.deleteUserSongBySongId(loadedSong.getUuid());
         songService.delete(loadedSong.getUuid());
@@ -108,7 +115,10 @@ public class QueueManagerService {
 
     }
 
-    public void addToUser(String username, UUID songId) {
+    /**
+     * @return the uuid of the user the song was attached to
+     */
+    public UUID addToUser(String username, UUID songId) {
         User user = userService.getUserByName(username);
         List<UserSong> songs = user.getSongs();
         // Ensure lazy-loaded collection is initialized
@@ -120,6 +130,6 @@ public class QueueManagerService {
         songs.add(song.toUserSong(user));
 
         userService.save(user);
-
+        return user.getUuid();
     }
 }
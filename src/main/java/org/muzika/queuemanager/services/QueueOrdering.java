@@ -0,0 +1,75 @@
+package org.muzika.queuemanager.services;
+
+import org.muzika.queuemanager.entities.QueueSong;
+
+import java.util.List;
+
+/**
+ * Sparse ordering keys for queue entries ({@code QueueSong.position}). Keys are spaced
+ * {@link #GAP} apart, so an entry can be inserted or moved by giving it a key between
+ * its new neighbours without touching any other row. Only when two neighbours have no
+ * room left is the whole queue re-spaced. API positions stay 0-based indexes.
+ */
+final class QueueOrdering {
+
+    static final int GAP = 1024;
+
+    private QueueOrdering() {
+    }
+
+    /**
+     * @param before key of the entry that will precede the new one, or null at the head
+     * @param after  key of the entry that will follow it, or null at the tail
+     * @return a key strictly between the two, or null if there is none and the queue needs {@link #respace}
+     */
+    static Integer between(Integer before, Integer after) {
+        long key;
+        if (before == null && after == null) {
+            key = 0;
+        } else if (before == null) {
+            key = (long) after - GAP;
+        } else if (after == null) {
+            key = (long) before + GAP;
+        } else {
+            if ((long) after - before < 2) {
+                return null;
+            }
+            key = before + ((long) after - before) / 2;
+        }
+        return key >= Integer.MIN_VALUE && key <= Integer.MAX_VALUE ? (int) key : null;
+    }
+
+    /**
+     * Key for an entry placed at {@code index} of {@code ordered}, which does not contain it.
+     *
+     * @return the key, or null if the queue needs {@link #respace}
+     */
+    static Integer keyAt(List<QueueSong> ordered, int index) {
+        Integer before = index > 0 ? ordered.get(index - 1).getPosition() : null;
+        Integer after = index < ordered.size() ? ordered.get(index).getPosition() : null;
+        return between(before, after);
+    }
+
+    /**
+     * Gives the entries evenly spaced keys in list order.
+     */
+    static void respace(List<QueueSong> ordered) {
+        for (int i = 0; i < ordered.size(); i++) {
+            ordered.get(i).setPosition(i * GAP);
+        }
+    }
+
+    /**
+     * Inserts the entry at {@code index} and gives it a key there, re-spacing the queue if
+     * there is no room.
+     */
+    static void insert(List<QueueSong> ordered, int index, QueueSong queueSong) {
+        Integer key = keyAt(ordered, index);
+        ordered.add(index, queueSong);
+        if (key != null) {
+            queueSong.setPosition(key);
+        } else {
+            respace(ordered);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.muzika.queuemanager.services;
+
+import org.muzika.queuemanager.entities.QueueSong;
+
+import java.util.List;
+
+/**
+ * One page of a queue read by {@link QueueService#getQueuePage}, with its songs loaded.
+ *
+ * @param version    queue version when the page was read
+ * @param nextCursor where the next page starts, or null if this is the last one
+ */
+public record QueuePage(long version, List<QueueSong> entries, String nextCursor) {
+}
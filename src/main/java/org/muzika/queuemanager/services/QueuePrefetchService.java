@@ -0,0 +1,186 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.muzika.queuemanager.entities.Song;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms the next songs of a user's queue into the faster storage tier before they are played.
+ * Triggered when the client reads its queue or finishes/skips a song; the first
+ * {@code music.prefetch.depth} entries (by position) are handed to
+ * {@link FileStorageService#prefetch(String, Long)}.
+ *
+ * All users share one I/O budget: at most {@code music.prefetch.max-concurrent} files are
+ * warmed at a time and starts are paced to {@code music.prefetch.bytes-per-second}. Work that
+ * does not fit the {@code music.prefetch.max-pending} queue is dropped and not remembered as
+ * warmed, so the next queue change asks again.
+ */
+@Slf4j
+@Service
+public class QueuePrefetchService {
+
+    private static final String FILES_COUNTER = "queuemanager.prefetch.files";
+    private static final int MAX_REMEMBERED = 10_000;
+
+    private final FileStorageService fileStorageService;
+    private final QueueService queueService;
+    private final boolean enabled;
+    private final int depth;
+    private final long bytesPerSecond;
+    private final long rememberNanos;
+    private final ThreadPoolExecutor executor;
+
+    // path -> nanoTime until which it counts as freshly warmed
+    private final Map<String, Long> recentlyPrefetched = new ConcurrentHashMap<>();
+    private long nextStartNanos = System.nanoTime();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter bytesPrefetched;
+
+    public QueuePrefetchService(FileStorageService fileStorageService, QueueService queueService, MeterRegistry meterRegistry,
+                                @Value("${music.prefetch.enabled:true}") boolean enabled,
+                                @Value("${music.prefetch.depth:3}") int depth,
+                                @Value("${music.prefetch.max-concurrent:4}") int maxConcurrent,
+                                @Value("${music.prefetch.max-pending:256}") int maxPending,
+                                @Value("${music.prefetch.bytes-per-second:20971520}") long bytesPerSecond,
+                                @Value("${music.prefetch.remember:PT10M}") Duration remember) {
+        this.fileStorageService = fileStorageService;
+        this.queueService = queueService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.depth = depth;
+        this.bytesPerSecond = bytesPerSecond;
+        this.rememberNanos = remember.toNanos();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxPending),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "queue-prefetch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.bytesPrefetched = Counter.builder("queuemanager.prefetch.bytes").baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * Prefetches the head of a queue the caller already loaded (e.g. GET /queue).
+     */
+    public void prefetch(List<Song> queuedSongs) {
+        if (!enabled) {
+            return;
+        }
+        queuedSongs.stream().limit(depth).forEach(this::submit);
+    }
+
+    /**
+     * Loads the head of the user's queue in the background and prefetches it
+     * (after finish/skip, when the queue just moved).
+     */
+    public void prefetchNext(String username) {
+        if (!enabled) {
+            return;
+        }
+        boolean accepted = tryExecute(() -> {
+            try {
+                queueService.getUpcomingSongs(username, depth).forEach(this::submit);
+            } catch (Exception e) {
+                log.debug("Could not load upcoming songs of {} for prefetch: {}", username, e.getMessage());
+            }
+        });
+        if (!accepted) {
+            log.debug("Prefetch queue full, not loading upcoming songs of {}", username);
+        }
+    }
+
+    private void submit(Song song) {
+        String path = song.getUrl();
+        if (path == null || path.isBlank()) {
+            return;
+        }
+        long now = System.nanoTime();
+        Long freshUntil = recentlyPrefetched.get(path);
+        if (freshUntil != null && freshUntil - now > 0) {
+            count("skipped");
+            return;
+        }
+        if (recentlyPrefetched.size() >= MAX_REMEMBERED) {
+            recentlyPrefetched.clear();
+        }
+        Long marker = now + rememberNanos;
+        recentlyPrefetched.put(path, marker);
+        if (!tryExecute(() -> warm(path, song.getSizeBytes()))) {
+            // Never warmed, so the next queue change may ask for it again
+            recentlyPrefetched.remove(path, marker);
+        }
+    }
+
+    private boolean tryExecute(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            count("dropped");
+            return false;
+        }
+    }
+
+    private void warm(String path, Long knownSize) {
+        try {
+            if (knownSize != null) {
+                pace(knownSize);
+            }
+            fileStorageService.prefetch(path, knownSize).join();
+            count("warmed");
+            if (knownSize != null) {
+                bytesPrefetched.increment(knownSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            recentlyPrefetched.remove(path);
+            count("failed");
+            log.debug("Prefetch of {} failed: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Global byte budget: each file reserves a time slot proportional to its size,
+     * and the worker waits until that slot starts.
+     */
+    private void pace(long bytes) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextStartNanos);
+            nextStartNanos = start + (long) (bytes * 1e9 / bytesPerSecond);
+            waitNanos = start - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void count(String result) {
+        Counter.builder(FILES_COUNTER).tag("result", result).register(meterRegistry).increment();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
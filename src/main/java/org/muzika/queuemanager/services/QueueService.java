@@ -3,20 +3,38 @@ package org.muzika.queuemanager.services;
 
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.muzika.queuemanager.dto.PlayEvent;
+import org.muzika.queuemanager.dto.PlayEventBatchResponse;
+import org.muzika.queuemanager.dto.QueueChange;
+import org.muzika.queuemanager.dto.QueueDelta;
+import org.muzika.queuemanager.dto.QueueOperation;
+import org.muzika.queuemanager.dto.SongDTO;
 import org.muzika.queuemanager.entities.Queue;
 import org.muzika.queuemanager.entities.QueueSong;
 import org.muzika.queuemanager.entities.Song;
 import org.muzika.queuemanager.entities.User;
+import org.muzika.queuemanager.repository.QueueEntryKey;
 import org.muzika.queuemanager.repository.QueueRepository;
 import org.muzika.queuemanager.repository.QueueSongRepository;
+import org.muzika.queuemanager.repository.QueueVersion;
 import org.muzika.queuemanager.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -36,6 +54,8 @@ public class QueueService {
     private SongService songService;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
 
     public Queue getOrCreateQueue(String username) {
@@ -57,12 +77,7 @@ public class QueueService {
                 userService.save(user);
                 return queue1;
             }
-            // Initialize lazy-loaded queueSongs collection within transaction
-            // Access the collection to force Hibernate to load it
-            List<QueueSong> queueSongs = queue.getQueueSongs();
-            if (queueSongs != null) {
-                queueSongs.size(); // Force initialization of lazy collection
-            }
+            // Entries come with the queue (Queue.ENTRIES_GRAPH); their songs stay lazy
             return queue;
         } catch (Exception e) {
             throw e;
@@ -71,23 +86,35 @@ public class QueueService {
     }
 
     public void addToQueue(UUID uuid,String username) {
-        Queue queue =  userRepository.findByUserName(username).getUserQueue();
+        appendToQueue(queueUuid(username), uuid);
+    }
 
+    /**
+     * Appends a song to the queue of the user with the given uuid (the queue's primary key),
+     * skipping the username lookup when the caller already knows the owner.
+     */
+    public void addToQueueByUserUuid(UUID uuid, UUID userUuid) {
+        appendToQueue(userUuid, uuid);
+    }
 
+    private void appendToQueue(UUID queueUuid, UUID uuid) {
         Song song = songService.findSongById(uuid);
-        
-        // Get current queue songs to determine next position
-        List<QueueSong> queueSongs = queue.getQueueSongs();
-        if (queueSongs == null) {
-            queueSongs = new ArrayList<>();
-            queue.setQueueSongs(queueSongs);
+
+        // Checked on the keys first so a duplicate delivery does not bump the version
+        if (containsSong(queueUuid, song.getId())) {
+            log.warn("Song {} already exists in queue {}, skipping", song.getId(), queueUuid);
+            return;
         }
-        
-        // Check if song already exists in this queue
+        LockedQueue locked = lockQueue(queueUuid);
+        Queue queue = locked.queue();
+        List<QueueSong> queueSongs = queue.getQueueSongs();
+
+        // Check again under the lock
         boolean alreadyExists = queueSongs.stream()
             .anyMatch(qs -> qs.getSongsId().equals(song.getId()));
         if (alreadyExists) {
-            log.warn("Song {} already exists in queue for user {}, skipping", song.getId(), username);
+            log.warn("Song {} already exists in queue {}, skipping", song.getId(), queueUuid);
+            publishChanges(queueUuid, locked.version(), List.of());
             return;
         }
         
@@ -96,12 +123,76 @@ public class QueueService {
         queueSong.setQueueUserUuid(queue.getUserUuid());
         queueSong.setSongsId(song.getId());
         queueSong.setQueueUuid(queue.getUuid());
-        queueSong.setPosition(queueSongs.size()); // Add to end
         queueSong.setQueue(queue);
         queueSong.setSong(song);
+        int position = queueSongs.size(); // Add to end
+        QueueOrdering.insert(queueSongs, position, queueSong);
+        // Persisted directly so the entry id is known for the change event
+        queueSongRepository.save(queueSong);
         
-        queueSongs.add(queueSong);
         queueRepository.save(queue);
+        publishChanges(queueUuid, locked.version(),
+                List.of(QueueChange.added(queueSong.getId(), position, SongDTO.from(song))));
+    }
+
+    /**
+     * @return up to {@code limit} songs at the head of the user's queue, in play order
+     */
+    public List<Song> getUpcomingSongs(String username, int limit) {
+        QueueVersion current = queueRepository.findVersionByUserName(username);
+        if (current == null) {
+            return List.of();
+        }
+        return queueSongRepository.findPage(current.queueUuid(), Limit.of(limit)).stream()
+                .map(QueueSong::getSong)
+                .toList();
+    }
+
+    /**
+     * @return the user's queue with its entries and their songs loaded, or null if the user has no queue
+     */
+    public Queue getQueueView(String username) {
+        return queueRepository.findWithSongsByUser_UserName(username);
+    }
+
+    public boolean isQueued(String username, UUID songId) {
+        return queueSongRepository.existsByQueue_User_UserNameAndSongsId(username, songId);
+    }
+
+    /**
+     * @return the queue's id and current version, or null if the user has no queue yet
+     */
+    public QueueVersion getQueueVersion(String username) {
+        return queueRepository.findVersionByUserName(username);
+    }
+
+    /**
+     * Reads {@code limit} entries after {@code cursor} (from the head if null) with one
+     * version lookup and one indexed query, without loading the rest of the queue, so the
+     * cost does not grow with the queue. Pages read at different versions may overlap or
+     * miss entries; clients reconcile through the changes since the first page's version.
+     *
+     * @param cursor {@link QueuePage#nextCursor()} of the previous page, or null
+     * @return the page, empty with version 0 if the user has no queue
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public QueuePage getQueuePage(String username, String cursor, int limit) {
+        QueueCursor after = cursor != null ? QueueCursor.decode(cursor) : null;
+        QueueVersion current = queueRepository.findVersionByUserName(username);
+        if (current == null) {
+            return new QueuePage(0, List.of(), null);
+        }
+        // One extra row tells whether there is a next page
+        Limit fetch = Limit.of(limit + 1);
+        List<QueueSong> entries = after == null
+                ? queueSongRepository.findPage(current.queueUuid(), fetch)
+                : queueSongRepository.findPageAfter(current.queueUuid(), after.position(), after.entryId(), fetch);
+        if (entries.size() <= limit) {
+            return new QueuePage(current.version(), entries, null);
+        }
+        List<QueueSong> page = entries.subList(0, limit);
+        QueueSong last = page.get(limit - 1);
+        return new QueuePage(current.version(), page, new QueueCursor(last.getPosition(), last.getId()).encode());
     }
 
     public Queue getQueueByUsername(String username) {
@@ -109,20 +200,17 @@ public class QueueService {
     }
 
     public void addToQueueAtPosition(String username, UUID songId, int position) {
-        Queue queue = getOrCreateQueue(username);
-        
         // Validate song exists
         Song song = songService.findByUUID(songId);
         if (song == null) {
             throw new IllegalArgumentException("Song with ID " + songId + " not found");
         }
-        
+
+        // Position is checked against the entries as they are under the lock; a rejected
+        // request rolls the version bump back
+        LockedQueue locked = lockQueue(queueUuid(username));
+        Queue queue = locked.queue();
         List<QueueSong> queueSongs = queue.getQueueSongs();
-        if (queueSongs == null) {
-            // Initialize the collection if it's null (lazy loading not triggered)
-            queue.setQueueSongs(new ArrayList<>());
-            queueSongs = queue.getQueueSongs();
-        }
         
         // Validate position: allow 0 to size (for appending at end)
         if (position < 0 || position > queueSongs.size()) {
@@ -137,25 +225,24 @@ public class QueueService {
         queueSong.setQueue(queue);
         queueSong.setSong(song);
         
-        // Insert at position and update positions for all subsequent items
-        queueSongs.add(position, queueSong);
-        
-        // Update positions for all queue songs to maintain order
-        for (int i = 0; i < queueSongs.size(); i++) {
-            queueSongs.get(i).setPosition(i);
-        }
+        // Only the new entry gets a key, between its neighbours
+        QueueOrdering.insert(queueSongs, position, queueSong);
+        queueSongRepository.save(queueSong);
         
         queueRepository.save(queue);
+        publishChanges(queue.getUserUuid(), locked.version(),
+                List.of(QueueChange.added(queueSong.getId(), position, SongDTO.from(song))));
     }
 
     public void removeSongFromQueue(String username, UUID songId) {
-        Queue queue = getOrCreateQueue(username);
-        List<QueueSong> queueSongs = queue.getQueueSongs();
-        
-        if (queueSongs == null || queueSongs.isEmpty()) {
-            // Queue is empty, nothing to remove
+        UUID queueUuid = queueUuid(username);
+        if (!containsSong(queueUuid, songId)) {
+            // Not queued (or queue empty), nothing to remove
             return;
         }
+        LockedQueue locked = lockQueue(queueUuid);
+        Queue queue = locked.queue();
+        List<QueueSong> queueSongs = queue.getQueueSongs();
         
         // Find and remove the first QueueSong with matching songId (backward compatibility)
         QueueSong toRemove = null;
@@ -166,17 +253,16 @@ public class QueueService {
             }
         }
         
-        if (toRemove != null) {
-            queueSongs.remove(toRemove);
-            queueSongRepository.delete(toRemove);
-            
-            // Update positions for remaining items to maintain order
-            for (int i = 0; i < queueSongs.size(); i++) {
-                queueSongs.get(i).setPosition(i);
-            }
-            
-            queueRepository.save(queue);
+        if (toRemove == null) {
+            // Removed concurrently; the version was bumped, so announce it without changes
+            publishChanges(queueUuid, locked.version(), List.of());
+            return;
         }
+        queueSongs.remove(toRemove);
+        queueSongRepository.delete(toRemove);
+
+        queueRepository.save(queue);
+        publishChanges(queueUuid, locked.version(), List.of(QueueChange.removed(toRemove.getId(), toRemove.getSongsId())));
     }
 
     /**
@@ -188,7 +274,9 @@ public class QueueService {
      * @throws IllegalArgumentException if the queue entry is not found
      */
     public void removeQueueEntry(String username, UUID queueEntryId) {
-        Queue queue = getOrCreateQueue(username);
+        // Lock first; a missing entry rolls the version bump back with the exception
+        LockedQueue locked = lockQueue(queueUuid(username));
+        Queue queue = locked.queue();
         List<QueueSong> queueSongs = queue.getQueueSongs();
         
         if (queueSongs == null || queueSongs.isEmpty()) {
@@ -211,46 +299,395 @@ public class QueueService {
         queueSongs.remove(toRemove);
         queueSongRepository.delete(toRemove);
         
-        // Update positions for remaining items to maintain order
-        for (int i = 0; i < queueSongs.size(); i++) {
-            queueSongs.get(i).setPosition(i);
-        }
-        
         queueRepository.save(queue);
+        publishChanges(queue.getUserUuid(), locked.version(), List.of(QueueChange.removed(toRemove.getId(), toRemove.getSongsId())));
     }
 
     public void removeSongFromAllQueues(UUID songId) {
         List<User> allUsers = userService.getAllUsers();
         for (User user : allUsers) {
             if (user.getUserName() != null) {
-                Queue queue = getOrCreateQueue(user.getUserName());
+                UUID queueUuid = queueUuid(user.getUserName());
+                if (!containsSong(queueUuid, songId)) {
+                    continue;
+                }
+                LockedQueue locked = lockQueue(queueUuid);
+                Queue queue = locked.queue();
                 List<QueueSong> queueSongs = queue.getQueueSongs();
-                
-                if (queueSongs != null && !queueSongs.isEmpty()) {
-                    // Remove all instances of this song from this user's queue
-                    List<QueueSong> toRemove = new ArrayList<>();
-                    for (QueueSong queueSong : queueSongs) {
-                        if (queueSong.getSongsId().equals(songId)) {
-                            toRemove.add(queueSong);
-                        }
+
+                // Remove all instances of this song from this user's queue
+                List<QueueSong> toRemove = new ArrayList<>();
+                for (QueueSong queueSong : queueSongs) {
+                    if (queueSong.getSongsId().equals(songId)) {
+                        toRemove.add(queueSong);
                     }
-                    
-                    for (QueueSong queueSong : toRemove) {
-                        queueSongs.remove(queueSong);
-                        queueSongRepository.delete(queueSong);
+                }
+
+                for (QueueSong queueSong : toRemove) {
+                    queueSongs.remove(queueSong);
+                    queueSongRepository.delete(queueSong);
+                }
+                queueRepository.save(queue);
+                // Also when nothing was left to remove: the version was bumped either way
+                publishChanges(queueUuid, locked.version(), toRemove.stream()
+                        .map(queueSong -> QueueChange.removed(queueSong.getId(), queueSong.getSongsId()))
+                        .toList());
+            }
+        }
+    }
+
+    /**
+     * Applies a batch of play events to the user's library and removes the played entries
+     * from the queue in one transaction, so a failure in either leaves both unchanged and a
+     * retry does not count the plays twice.
+     *
+     * @throws IllegalArgumentException if the user is unknown or an event is invalid
+     */
+    public PlayEventBatchResponse recordPlayEvents(String username, List<PlayEvent> events) {
+        Set<UUID> unknownSongs = userService.applyPlayEvents(username, events);
+        List<PlayEvent> applied = events.stream()
+                .filter(event -> !unknownSongs.contains(event.getSongId()))
+                .toList();
+        int removed = removePlayedEntries(username, applied);
+        return new PlayEventBatchResponse(applied.size(), removed, List.copyOf(unknownSongs));
+    }
+
+    /**
+     * Removes the entries the played (finished or skipped) events refer to with a single
+     * delete and a single version bump. An event names its entry, or else the first entry
+     * of its song not already taken by an earlier event. Events whose entry is gone, e.g.
+     * removed on another device, are ignored.
+     *
+     * @return the number of entries removed
+     */
+    public int removePlayedEntries(String username, List<PlayEvent> events) {
+        List<PlayEvent> played = events.stream()
+                .filter(event -> event.getType() == PlayEvent.Type.FINISHED || event.getType() == PlayEvent.Type.SKIPPED)
+                .toList();
+        QueueVersion current = queueRepository.findVersionByUserName(username);
+        if (played.isEmpty() || current == null) {
+            return 0;
+        }
+        UUID queueUuid = current.queueUuid();
+        if (entriesPlayed(queueSongRepository.findKeysByQueueUserUuid(queueUuid), played).isEmpty()) {
+            return 0;
+        }
+        // Bumping first locks the queue; read the entries again under the lock
+        long version = nextVersion(queueUuid);
+        List<QueueEntryKey> toRemove = entriesPlayed(queueSongRepository.findKeysByQueueUserUuid(queueUuid), played);
+        queueSongRepository.deleteAllByIdInBatch(toRemove.stream().map(QueueEntryKey::id).toList());
+
+        eventPublisher.publishEvent(new QueueChangedEvent(queueUuid, version, toRemove.stream()
+                .map(key -> QueueChange.removed(key.id(), key.songId()))
+                .toList()));
+        return toRemove.size();
+    }
+
+    private static List<QueueEntryKey> entriesPlayed(List<QueueEntryKey> keys, List<PlayEvent> played) {
+        Map<UUID, QueueEntryKey> remaining = new LinkedHashMap<>();
+        for (QueueEntryKey key : keys) {
+            remaining.put(key.id(), key);
+        }
+        List<QueueEntryKey> toRemove = new ArrayList<>();
+        for (PlayEvent event : played) {
+            QueueEntryKey entry = null;
+            if (event.getQueueEntryId() != null) {
+                entry = remaining.remove(event.getQueueEntryId());
+            } else {
+                for (QueueEntryKey key : remaining.values()) {
+                    if (key.songId().equals(event.getSongId())) {
+                        entry = key;
+                        break;
                     }
-                    
-                    // Update positions for remaining items
-                    for (int i = 0; i < queueSongs.size(); i++) {
-                        queueSongs.get(i).setPosition(i);
+                }
+                if (entry != null) {
+                    remaining.remove(entry.id());
+                }
+            }
+            if (entry != null) {
+                toRemove.add(entry);
+            }
+        }
+        return toRemove;
+    }
+
+    /**
+     * Applies the operations in order to the queue, loaded once, with a single version
+     * bump; only added and moved entries get new ordering keys. Either every operation
+     * takes effect or none does.
+     *
+     * @param expectedVersion if not null, the version the operations were based on
+     * @return the new version and the resulting changes
+     * @throws IllegalArgumentException if an operation is invalid
+     * @throws OptimisticLockingFailureException if the queue is no longer at {@code expectedVersion}
+     */
+    public QueueDelta applyBatch(String username, List<QueueOperation> operations, Long expectedVersion) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("No operations given");
+        }
+        QueueVersion current = queueRepository.findVersionByUserName(username);
+        UUID queueUuid = current != null ? current.queueUuid() : getOrCreateQueue(username).getUserUuid();
+        // Bump first: the row lock keeps concurrent changes out while the batch is applied
+        long version = nextVersion(queueUuid);
+        if (expectedVersion != null && expectedVersion != version - 1) {
+            throw new OptimisticLockingFailureException(
+                    "Queue is at version " + (version - 1) + ", not " + expectedVersion);
+        }
+
+        Queue queue = queueRepository.findById(queueUuid)
+                .orElseThrow(() -> new IllegalArgumentException("Queue not found for user " + username));
+        List<QueueSong> queueSongs = queue.getQueueSongs();
+        if (queueSongs == null) {
+            queueSongs = new ArrayList<>();
+            queue.setQueueSongs(queueSongs);
+        }
+        Map<UUID, Song> songs = songService.findAllByIds(operations.stream()
+                .filter(operation -> operation.getType() == QueueOperation.Type.ADD && operation.getSongId() != null)
+                .map(QueueOperation::getSongId)
+                .collect(Collectors.toSet()));
+
+        List<QueueSong> added = new ArrayList<>();
+        List<QueueSong> removed = new ArrayList<>();
+        List<PendingChange> pending = new ArrayList<>();
+        for (QueueOperation operation : operations) {
+            if (operation.getType() == null) {
+                throw new IllegalArgumentException("Operation type is required");
+            }
+            switch (operation.getType()) {
+                case ADD -> {
+                    Song song = songs.get(operation.getSongId());
+                    if (song == null) {
+                        throw new IllegalArgumentException("Song with ID " + operation.getSongId() + " not found");
                     }
-                    
-                    if (!toRemove.isEmpty()) {
-                        queueRepository.save(queue);
+                    if (queueSongs.stream().anyMatch(qs -> qs.getSongsId().equals(song.getId()))) {
+                        throw new IllegalArgumentException("Song " + song.getId() + " is already in the queue");
                     }
+                    int position = operation.getPosition() != null ? operation.getPosition() : queueSongs.size();
+                    checkPosition(position, queueSongs.size());
+                    QueueSong queueSong = new QueueSong();
+                    queueSong.setQueueUserUuid(queue.getUserUuid());
+                    queueSong.setSongsId(song.getId());
+                    queueSong.setQueueUuid(queue.getUuid());
+                    queueSong.setQueue(queue);
+                    queueSong.setSong(song);
+                    QueueOrdering.insert(queueSongs, position, queueSong);
+                    added.add(queueSong);
+                    pending.add(new PendingChange(QueueChange.Type.ADDED, queueSong, position));
+                }
+                case REMOVE -> {
+                    QueueSong queueSong = queueSongs.remove(indexOfEntry(queueSongs, operation.getQueueEntryId()));
+                    removed.add(queueSong);
+                    pending.add(new PendingChange(QueueChange.Type.REMOVED, queueSong, null));
+                }
+                case MOVE -> {
+                    QueueSong queueSong = queueSongs.remove(indexOfEntry(queueSongs, operation.getQueueEntryId()));
+                    int position = operation.getPosition() != null ? operation.getPosition() : -1;
+                    checkPosition(position, queueSongs.size());
+                    QueueOrdering.insert(queueSongs, position, queueSong);
+                    pending.add(new PendingChange(QueueChange.Type.MOVED, queueSong, position));
+                }
+                case CLEAR -> {
+                    // Entries added earlier in this batch were never persisted
+                    queueSongs.stream().filter(qs -> !added.contains(qs)).forEach(removed::add);
+                    added.clear();
+                    queueSongs.clear();
+                    pending.add(new PendingChange(QueueChange.Type.CLEARED, null, null));
                 }
             }
         }
+
+        if (!removed.isEmpty()) {
+            queueSongRepository.deleteAll(removed);
+            // Deletes before inserts, so a song removed and re-added in one batch keeps the unique key
+            queueSongRepository.flush();
+        }
+        for (QueueSong queueSong : added) {
+            queueSongRepository.save(queueSong);
+        }
+        queueRepository.save(queue);
+
+        List<QueueChange> changes = pending.stream().map(PendingChange::toChange).toList();
+        eventPublisher.publishEvent(new QueueChangedEvent(queueUuid, version, changes));
+        return new QueueDelta(version, changes);
+    }
+
+    /**
+     * Moves one entry to the 0-based {@code position}. The queue is read as ordering keys
+     * only and just the moved entry's key is rewritten, unless its new neighbours have no
+     * room left between them and the queue is re-spaced.
+     *
+     * @return the new version and the move
+     * @throws IllegalArgumentException if the entry is not in the user's queue or the position is out of bounds
+     */
+    public QueueDelta moveQueueEntry(String username, UUID queueEntryId, int position) {
+        QueueVersion current = queueRepository.findVersionByUserName(username);
+        if (current == null) {
+            throw new IllegalArgumentException("Queue entry with ID " + queueEntryId + " not found in queue");
+        }
+        UUID queueUuid = current.queueUuid();
+        long version = nextVersion(queueUuid);
+
+        List<QueueEntryKey> keys = new ArrayList<>(queueSongRepository.findKeysByQueueUserUuid(queueUuid));
+        int from = -1;
+        for (int i = 0; i < keys.size() && from < 0; i++) {
+            if (keys.get(i).id().equals(queueEntryId)) {
+                from = i;
+            }
+        }
+        if (from < 0) {
+            throw new IllegalArgumentException("Queue entry with ID " + queueEntryId + " not found in queue");
+        }
+        QueueEntryKey moving = keys.remove(from);
+        checkPosition(position, keys.size());
+
+        Integer key = QueueOrdering.between(position > 0 ? keys.get(position - 1).position() : null,
+                position < keys.size() ? keys.get(position).position() : null);
+        if (key != null) {
+            queueSongRepository.updatePosition(queueEntryId, key);
+        } else {
+            List<QueueSong> queueSongs = new ArrayList<>(queueSongRepository.findByQueueUserUuidOrderByPositionAsc(queueUuid));
+            QueueSong queueSong = queueSongs.remove(indexOfEntry(queueSongs, queueEntryId));
+            queueSongs.add(position, queueSong);
+            QueueOrdering.respace(queueSongs);
+            queueSongRepository.saveAll(queueSongs);
+        }
+
+        List<QueueChange> changes = List.of(QueueChange.moved(queueEntryId, moving.songId(), position));
+        eventPublisher.publishEvent(new QueueChangedEvent(queueUuid, version, changes));
+        return new QueueDelta(version, changes);
+    }
+
+    /**
+     * Puts the queue in random order, reproducible for a given {@code seed}. The entries are
+     * read as ordering keys only and all of them are rewritten by one UPDATE, under a single
+     * version bump; the change lists each entry's new index, in order.
+     *
+     * @param seed optional seed for the shuffle
+     * @return the new version and the resulting moves
+     * @throws IllegalArgumentException if the user has no queue
+     */
+    public QueueDelta shuffleQueue(String username, Long seed) {
+        QueueVersion current = queueRepository.findVersionByUserName(username);
+        if (current == null) {
+            throw new IllegalArgumentException("Queue not found for user: " + username);
+        }
+        UUID queueUuid = current.queueUuid();
+        long version = nextVersion(queueUuid);
+
+        List<QueueEntryKey> keys = new ArrayList<>(queueSongRepository.findKeysByQueueUserUuid(queueUuid));
+        Collections.shuffle(keys, seed != null ? new Random(seed) : ThreadLocalRandom.current());
+        Map<UUID, Integer> positions = new LinkedHashMap<>();
+        List<QueueChange> changes = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            QueueEntryKey key = keys.get(i);
+            positions.put(key.id(), i * QueueOrdering.GAP);
+            // Applied in order, each move leaves the entries placed before it untouched
+            changes.add(QueueChange.moved(key.id(), key.songId(), i));
+        }
+        queueSongRepository.updatePositions(queueUuid, positions);
+
+        eventPublisher.publishEvent(new QueueChangedEvent(queueUuid, version, changes));
+        return new QueueDelta(version, changes);
+    }
+
+    /**
+     * Removes every entry with one DELETE and a single version bump.
+     *
+     * @return the new version and the clear, or version 0 and no changes if the user has no queue
+     */
+    public QueueDelta clearQueue(String username) {
+        QueueVersion current = queueRepository.findVersionByUserName(username);
+        if (current == null) {
+            return new QueueDelta(0, List.of());
+        }
+        UUID queueUuid = current.queueUuid();
+        long version = nextVersion(queueUuid);
+        queueSongRepository.deleteByQueueUserUuid(queueUuid);
+
+        List<QueueChange> changes = List.of(QueueChange.cleared());
+        eventPublisher.publishEvent(new QueueChangedEvent(queueUuid, version, changes));
+        return new QueueDelta(version, changes);
+    }
+
+    /**
+     * A change whose entry id is only known once new entries are persisted.
+     */
+    private record PendingChange(QueueChange.Type type, QueueSong queueSong, Integer position) {
+        QueueChange toChange() {
+            return switch (type) {
+                case ADDED -> QueueChange.added(queueSong.getId(), position, SongDTO.from(queueSong.getSong()));
+                case REMOVED -> QueueChange.removed(queueSong.getId(), queueSong.getSongsId());
+                case MOVED -> QueueChange.moved(queueSong.getId(), queueSong.getSongsId(), position);
+                case CLEARED -> QueueChange.cleared();
+            };
+        }
+    }
+
+    private static int indexOfEntry(List<QueueSong> queueSongs, UUID queueEntryId) {
+        for (int i = 0; i < queueSongs.size(); i++) {
+            if (queueSongs.get(i).getId() != null && queueSongs.get(i).getId().equals(queueEntryId)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Queue entry with ID " + queueEntryId + " not found in queue");
+    }
+
+    private static void checkPosition(int position, int size) {
+        if (position < 0 || position > size) {
+            throw new IllegalArgumentException("Position " + position + " is out of bounds. Queue size: " + size);
+        }
+    }
+
+    /**
+     * The queue with its version bumped, to be changed by one of the single-entry mutators.
+     */
+    private record LockedQueue(Queue queue, long version) {
+    }
+
+    /**
+     * Bumps the version before the entries are read, as {@link #applyBatch} does: the bump
+     * takes the queue row's lock, so ordering keys, duplicate checks and reported indexes
+     * are computed on the entries concurrent changes left, not on a snapshot from before.
+     *
+     * @throws IllegalArgumentException if the queue does not exist
+     */
+    private LockedQueue lockQueue(UUID queueUuid) {
+        if (queueRepository.incrementVersion(queueUuid) == 0) {
+            throw new IllegalArgumentException("Queue not found for user " + queueUuid);
+        }
+        long version = queueRepository.findVersion(queueUuid);
+        Queue queue = queueRepository.findById(queueUuid)
+                .orElseThrow(() -> new IllegalArgumentException("Queue not found for user " + queueUuid));
+        if (queue.getQueueSongs() == null) {
+            queue.setQueueSongs(new ArrayList<>());
+        }
+        return new LockedQueue(queue, version);
+    }
+
+    /**
+     * @return the id of the user's queue, created if the user has none yet
+     */
+    private UUID queueUuid(String username) {
+        QueueVersion current = queueRepository.findVersionByUserName(username);
+        return current != null ? current.queueUuid() : getOrCreateQueue(username).getUserUuid();
+    }
+
+    private boolean containsSong(UUID queueUuid, UUID songId) {
+        return queueSongRepository.findKeysByQueueUserUuid(queueUuid).stream()
+                .anyMatch(key -> key.songId().equals(songId));
+    }
+
+    /**
+     * Announces the changes made at {@code version}; listeners see them once the
+     * transaction commits.
+     */
+    private void publishChanges(UUID queueUuid, long version, List<QueueChange> changes) {
+        eventPublisher.publishEvent(new QueueChangedEvent(queueUuid, version, changes));
+    }
+
+    private long nextVersion(UUID queueUuid) {
+        queueRepository.incrementVersion(queueUuid);
+        return queueRepository.findVersion(queueUuid);
     }
 
 }
@@ -0,0 +1,16 @@
+package org.muzika.queuemanager.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A resource that can write an arbitrary byte range without reading what precedes it
+ * (remote objects fetched with ranged requests).
+ */
+public interface RangedResource {
+
+    /**
+     * Writes bytes {@code start} to {@code end} (inclusive) to the stream.
+     */
+    void copyRange(long start, long end, OutputStream out) throws IOException;
+}
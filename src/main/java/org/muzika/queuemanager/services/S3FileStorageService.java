@@ -0,0 +1,373 @@
+package org.muzika.queuemanager.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.muzika.queuemanager.config.ObjectStorageProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * FileStorageService backed by an S3-compatible object store ({@code music.storage.backend=s3}).
+ * Song paths map to object keys relative to {@code music.storage.base-path}.
+ *
+ * Resources are {@link RangedResource}s: a range request becomes a ranged GET whose body is
+ * streamed straight to the response. Explicit ranges above {@code parallel-threshold} (not
+ * whole-object reads, which are paced by the player anyway) are split into parts: the writer
+ * streams the current part itself while up to {@code part-concurrency - 1} following parts are
+ * fetched ahead on virtual threads. A prefetched part holds at most {@code part-buffer-bytes}
+ * until the writer reaches it, and {@code max-prefetched-parts} caps prefetches across all
+ * streams; a part that gets no permit is simply read by the writer when its turn comes.
+ */
+@Slf4j
+@Service
+@Qualifier(FileStorageService.ORIGIN)
+@ConditionalOnProperty(prefix = "music.storage", name = "backend", havingValue = "s3")
+public class S3FileStorageService implements FileStorageService {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final byte[] END_OF_PART = new byte[0];
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String keyPrefix;
+    private final Path basePath;
+    private final long partSize;
+    private final long parallelThreshold;
+    private final int partConcurrency;
+    private final int partBufferChunks;
+    private final Semaphore prefetchPermits;
+    private final ExecutorService partExecutor;
+
+    public S3FileStorageService(S3Client s3, ObjectStorageProperties properties,
+                                @Value("${music.storage.base-path:/rw/downloads}") String basePath) {
+        this.s3 = s3;
+        this.bucket = properties.getBucket();
+        this.keyPrefix = properties.getKeyPrefix() == null ? "" : properties.getKeyPrefix();
+        this.basePath = Paths.get(basePath).normalize();
+        this.partSize = properties.getPartSize();
+        this.parallelThreshold = properties.getParallelThreshold();
+        this.partConcurrency = Math.max(1, properties.getPartConcurrency());
+        this.partBufferChunks = (int) Math.max(1, properties.getPartBufferBytes() / CHUNK_SIZE);
+        this.prefetchPermits = new Semaphore(Math.max(0, properties.getMaxPrefetchedParts()));
+        // Prefetches mostly block on the network or on a full buffer; the semaphore bounds them
+        this.partExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("s3-part-fetch-", 0).factory());
+        log.info("Initialized S3FileStorageService with bucket: {}, key prefix: '{}'", bucket, keyPrefix);
+    }
+
+    @Override
+    public Resource getFile(String filePath) throws IOException {
+        if (filePath == null || filePath.trim().isEmpty()) {
+            throw new IllegalArgumentException("File path cannot be null or empty");
+        }
+        String key = objectKey(filePath);
+        HeadObjectResponse head = head(key);
+        if (head == null) {
+            log.warn("Object not found: s3://{}/{}", bucket, key);
+            throw new IOException("File not found: s3://" + bucket + "/" + key);
+        }
+        log.debug("Retrieved object: s3://{}/{}", bucket, key);
+        return new S3ObjectResource(key, head.contentLength(), head.lastModified().toEpochMilli());
+    }
+
+    @Override
+    public Resource getFile(String filePath, Long knownSize) throws IOException {
+        if (knownSize == null) {
+            return getFile(filePath);
+        }
+        if (filePath == null || filePath.trim().isEmpty()) {
+            throw new IllegalArgumentException("File path cannot be null or empty");
+        }
+        // Size is stored on the Song, so skip the HEAD round trip
+        return new S3ObjectResource(objectKey(filePath), knownSize, null);
+    }
+
+    @Override
+    public boolean fileExists(String filePath) {
+        if (filePath == null || filePath.trim().isEmpty()) {
+            return false;
+        }
+        try {
+            return head(objectKey(filePath)) != null;
+        } catch (Exception e) {
+            log.debug("Error checking object existence for path: {}, error: {}", filePath, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Maps a song path to its object key: absolute paths are made relative to the base path,
+     * so URLs stored for the mounted share keep working after the move to object storage.
+     */
+    String objectKey(String filePath) {
+        Path path = Paths.get(filePath).normalize();
+        if (path.isAbsolute()) {
+            if (!path.startsWith(basePath)) {
+                throw new IllegalArgumentException("Path is outside the storage base path: " + filePath);
+            }
+            path = basePath.relativize(path);
+        }
+        String relative = path.toString().replace('\\', '/');
+        if (relative.isEmpty() || relative.startsWith("../") || relative.equals("..")) {
+            throw new IllegalArgumentException("Invalid object path: " + filePath);
+        }
+        return keyPrefix + relative;
+    }
+
+    private HeadObjectResponse head(String key) throws IOException {
+        try {
+            return s3.headObject(b -> b.bucket(bucket).key(key));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return null;
+            }
+            throw new IOException("HEAD s3://" + bucket + "/" + key + " failed: " + e.getMessage(), e);
+        } catch (SdkException e) {
+            throw new IOException("HEAD s3://" + bucket + "/" + key + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private ResponseInputStream<GetObjectResponse> get(String key, String range) throws IOException {
+        GetObjectRequest.Builder request = GetObjectRequest.builder().bucket(bucket).key(key);
+        if (range != null) {
+            request.range(range);
+        }
+        try {
+            return s3.getObject(request.build());
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new IOException("File not found: s3://" + bucket + "/" + key, e);
+            }
+            throw new IOException("GET s3://" + bucket + "/" + key + " failed: " + e.getMessage(), e);
+        } catch (SdkException e) {
+            throw new IOException("GET s3://" + bucket + "/" + key + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void copyPart(String key, long start, long end, OutputStream out) throws IOException {
+        try (InputStream in = get(key, "bytes=" + start + "-" + end)) {
+            long copied = in.transferTo(out);
+            if (copied != end - start + 1) {
+                throw shortPart(key, start, end, copied);
+            }
+        }
+    }
+
+    /**
+     * Writes the range part by part, in order. Before each part the window of prefetched
+     * parts behind it is topped up as far as permits allow.
+     */
+    private void copyParallel(String key, long start, long end, OutputStream out) throws IOException {
+        Deque<PrefetchedPart> ahead = new ArrayDeque<>();
+        long next = start;
+        try {
+            while (next <= end || !ahead.isEmpty()) {
+                PrefetchedPart head = ahead.pollFirst();
+                long headStart = next;
+                long headEnd = -1;
+                if (head == null) {
+                    headEnd = Math.min(end, headStart + partSize - 1);
+                    next = headEnd + 1;
+                }
+                while (next <= end && ahead.size() < partConcurrency - 1 && prefetchPermits.tryAcquire()) {
+                    long partEnd = Math.min(end, next + partSize - 1);
+                    ahead.add(new PrefetchedPart(key, next, partEnd));
+                    next = partEnd + 1;
+                }
+                if (head != null) {
+                    head.writeTo(out);
+                } else {
+                    copyPart(key, headStart, headEnd, out);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching s3://" + bucket + "/" + key, e);
+        } finally {
+            ahead.forEach(PrefetchedPart::cancel);
+        }
+    }
+
+    private IOException shortPart(String key, long start, long end, long received) {
+        return new IOException("Short part for s3://" + bucket + "/" + key + ": got " + received
+                + " bytes for range " + start + "-" + end);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        partExecutor.shutdownNow();
+    }
+
+    /**
+     * A part fetched ahead of the writer into a bounded queue of chunks. The fetch blocks while
+     * the queue is full, so the part never holds more than {@code part-buffer-bytes}; its
+     * prefetch permit is returned as soon as the GET is done or cancelled.
+     */
+    private final class PrefetchedPart {
+        private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(partBufferChunks);
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final Future<?> fetch;
+        private volatile boolean cancelled;
+        private IOException failure;
+
+        private PrefetchedPart(String key, long start, long end) {
+            this.fetch = partExecutor.submit(() -> fetch(key, start, end));
+        }
+
+        private void fetch(String key, long start, long end) {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try (InputStream in = get(key, "bytes=" + start + "-" + end)) {
+                long remaining = end - start + 1;
+                while (remaining > 0) {
+                    byte[] chunk = in.readNBytes((int) Math.min(CHUNK_SIZE, remaining));
+                    if (chunk.length == 0) {
+                        throw shortPart(key, start, end, end - start + 1 - remaining);
+                    }
+                    chunks.put(chunk);
+                    remaining -= chunk.length;
+                }
+            } catch (InterruptedException e) {
+                // Cancelled: the writer is gone
+                return;
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException(e);
+            } finally {
+                prefetchPermits.release();
+            }
+            if (cancelled) {
+                // Nobody drains the queue any more; cancel() interrupts a put that is already waiting
+                return;
+            }
+            try {
+                chunks.put(END_OF_PART);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void writeTo(OutputStream out) throws IOException, InterruptedException {
+            for (byte[] chunk = chunks.take(); chunk != END_OF_PART; chunk = chunks.take()) {
+                out.write(chunk);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            fetch.cancel(true);
+            // Never started: the permit taken for it is still out
+            if (started.compareAndSet(false, true)) {
+                prefetchPermits.release();
+            }
+        }
+    }
+
+    /**
+     * An object in the bucket. Size and modification time come from the HEAD response or the
+     * Song row; the modification time is fetched lazily when only the size was known.
+     */
+    final class S3ObjectResource extends AbstractResource implements RangedResource {
+        private final String key;
+        private final long size;
+        private volatile Long lastModified;
+
+        private S3ObjectResource(String key, long size, Long lastModified) {
+            this.key = key;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean exists() {
+            try {
+                return head(key) != null;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public long contentLength() {
+            return size;
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            if (lastModified == null) {
+                HeadObjectResponse head = head(key);
+                if (head == null) {
+                    throw new IOException("File not found: s3://" + bucket + "/" + key);
+                }
+                lastModified = head.lastModified().toEpochMilli();
+            }
+            return lastModified;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return get(key, null);
+        }
+
+        @Override
+        public void copyRange(long start, long end, OutputStream out) throws IOException {
+            boolean wholeObject = start == 0 && end == size - 1;
+            if (!wholeObject && end - start + 1 > parallelThreshold) {
+                copyParallel(key, start, end, out);
+                return;
+            }
+            copyPart(key, start, end, out);
+        }
+
+        @Override
+        public String getFilename() {
+            int slash = key.lastIndexOf('/');
+            return slash >= 0 ? key.substring(slash + 1) : key;
+        }
+
+        @Override
+        public String getDescription() {
+            return "S3 object [s3://" + bucket + "/" + key + "]";
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other || (other instanceof S3ObjectResource that && key.equals(that.key));
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.muzika.queuemanager.services;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Content type and response headers for song file downloads, shared by the
+ * authenticated song endpoint and the signed stream URLs so both produce the same
+ * validators (a client may switch between them without invalidating its cache).
+ */
+public final class SongResponseHeaders {
+
+    private static final CacheControl SONG_CACHE_CONTROL =
+            CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable();
+
+    private SongResponseHeaders() {
+    }
+
+    /**
+     * Content type from the codec reported by the downloader, else from the file extension.
+     */
+    public static MediaType mediaType(String codec, String filePath) {
+        MediaType mediaType = codec != null ? determineContentType("." + codec) : MediaType.APPLICATION_OCTET_STREAM;
+        if (MediaType.APPLICATION_OCTET_STREAM.equals(mediaType)) {
+            mediaType = determineContentType(filePath);
+        }
+        return mediaType;
+    }
+
+    /**
+     * Content-Disposition, ETag, Last-Modified and Cache-Control for a song file.
+     * Song files never change once downloaded: strong validators plus long-lived caching.
+     */
+    public static HttpHeaders headers(UUID songId, String filePath, long sizeBytes, long fileModifiedAt) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment().filename(extractFilename(filePath)).build());
+        headers.setETag("\"" + songId + "-" + Long.toHexString(sizeBytes) + "-" + Long.toHexString(fileModifiedAt) + "\"");
+        headers.setLastModified(fileModifiedAt);
+        headers.setCacheControl(SONG_CACHE_CONTROL);
+        return headers;
+    }
+
+    /**
+     * Determines the content type based on file extension.
+     */
+    static MediaType determineContentType(String filePath) {
+        String lowerPath = filePath.toLowerCase();
+        if (lowerPath.endsWith(".mp3")) {
+            return MediaType.parseMediaType("audio/mpeg");
+        } else if (lowerPath.endsWith(".flac")) {
+            return MediaType.parseMediaType("audio/flac");
+        } else if (lowerPath.endsWith(".wav")) {
+            return MediaType.parseMediaType("audio/wav");
+        } else if (lowerPath.endsWith(".aiff") || lowerPath.endsWith(".aif")) {
+            return MediaType.parseMediaType("audio/aiff");
+        } else if (lowerPath.endsWith(".m4a")) {
+            return MediaType.parseMediaType("audio/mp4");
+        } else if (lowerPath.endsWith(".ogg")) {
+            return MediaType.parseMediaType("audio/ogg");
+        } else if (lowerPath.endsWith(".wma")) {
+            return MediaType.parseMediaType("audio/x-ms-wma");
+        } else {
+            // Default to binary if unknown
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    /**
+     * Extracts the filename from a file path.
+     */
+    private static String extractFilename(String filePath) {
+        Path path = Paths.get(filePath);
+        return path.getFileName().toString();
+    }
+}
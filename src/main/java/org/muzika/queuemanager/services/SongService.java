@@ -3,14 +3,18 @@ package org.muzika.queuemanager.services;
 
 import jakarta.transaction.Transactional;
 import org.muzika.queuemanager.entities.Song;
+import org.muzika.queuemanager.kafkaMassages.LoadedSong;
 import org.muzika.queuemanager.kafkaMassages.RequestSlskdSong;
 import org.muzika.queuemanager.repository.SongRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,6 +37,36 @@ public class SongService {
         songRepository.save(song);
     }
 
+    /**
+     * Stores the file path and, when the producer sent them, the file facts from a
+     * {@link LoadedSong} so the streaming path does not have to stat the file.
+     */
+    public void updateLoadedSong(LoadedSong loadedSong) {
+        Song song = songRepository.getReferenceById(loadedSong.getUuid());
+        song.setUrl(loadedSong.getFilePath());
+        if (loadedSong.getSizeBytes() != null) {
+            song.setSizeBytes(loadedSong.getSizeBytes());
+        }
+        if (loadedSong.getDurationMs() != null) {
+            song.setDuration(loadedSong.getDurationMs());
+        }
+        if (loadedSong.getCodec() != null) {
+            song.setCodec(loadedSong.getCodec());
+        }
+        songRepository.save(song);
+    }
+
+    /**
+     * Backfills size and modification time for songs loaded before they were carried on
+     * LoadedSong, so the file is stat'ed once instead of on every request.
+     */
+    public void updateFileMetadata(UUID uuid, long sizeBytes, long fileModifiedAt) {
+        Song song = songRepository.getReferenceById(uuid);
+        song.setSizeBytes(sizeBytes);
+        song.setFileModifiedAt(fileModifiedAt);
+        songRepository.save(song);
+    }
+
     public void delete(UUID uuid) {
         songRepository.deleteById(uuid);
     }
@@ -82,6 +116,14 @@ public class SongService {
         return getRandomSongsWithUrl(null);
     }
 
+    /**
+     * @return the songs that exist among {@code ids}, by id, loaded with one query
+     */
+    public Map<UUID, Song> findAllByIds(Collection<UUID> ids) {
+        return songRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Song::getId, Function.identity()));
+    }
+
     public Song findSongById(UUID uuid) {
         return songRepository.findById(uuid) .orElseThrow(RuntimeException::new);
     }
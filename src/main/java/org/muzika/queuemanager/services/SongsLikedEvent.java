@@ -0,0 +1,11 @@
+package org.muzika.queuemanager.services;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published by {@link UserService} for songs liked through play events; sent to Kafka by
+ * {@link KafkaProducerService} once the transaction that stored the likes committed.
+ */
+public record SongsLikedEvent(UUID userId, String username, Set<UUID> songIds) {
+}
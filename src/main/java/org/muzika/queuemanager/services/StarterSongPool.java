@@ -0,0 +1,68 @@
+package org.muzika.queuemanager.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.muzika.queuemanager.repository.SongRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Precomputed set of playable song ids used to seed new users' queues.
+ * Refreshed in the background so onboarding never scans the whole catalog;
+ * each new user gets a random draw from the pool.
+ */
+@Slf4j
+@Component
+public class StarterSongPool {
+
+    private final SongRepository songRepository;
+    private final int poolSize;
+    private volatile List<UUID> pool = List.of();
+
+    public StarterSongPool(SongRepository songRepository,
+                           @Value("${onboarding.starter-pool.size:200}") int poolSize) {
+        this.songRepository = songRepository;
+        this.poolSize = poolSize;
+    }
+
+    @Scheduled(fixedDelayString = "${onboarding.starter-pool.refresh-ms:300000}", initialDelay = 0)
+    public void refresh() {
+        List<UUID> ids = new ArrayList<>(songRepository.findAllIdsWithUrl());
+        Collections.shuffle(ids);
+        pool = List.copyOf(ids.size() > poolSize ? ids.subList(0, poolSize) : ids);
+        log.debug("Starter song pool refreshed with {} song(s)", pool.size());
+    }
+
+    /**
+     * @return up to {@code count} distinct song ids drawn at random from the pool
+     */
+    public List<UUID> draw(int count) {
+        List<UUID> current = pool;
+        if (current.isEmpty()) {
+            refresh();
+            current = pool;
+        }
+        if (current.size() <= count) {
+            List<UUID> all = new ArrayList<>(current);
+            Collections.shuffle(all);
+            return all;
+        }
+        // Partial Fisher-Yates over a copy: only the first count slots are shuffled
+        List<UUID> copy = new ArrayList<>(current);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < count; i++) {
+            Collections.swap(copy, i, i + random.nextInt(copy.size() - i));
+        }
+        return new ArrayList<>(copy.subList(0, count));
+    }
+
+    public int size() {
+        return pool.size();
+    }
+}
@@ -0,0 +1,246 @@
+package org.muzika.queuemanager.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.muzika.queuemanager.entities.Song;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Issues and verifies signed stream tokens: an opaque reference to one song file
+ * (id, size, mtime, codec, expiry) plus a truncated HMAC-SHA256 over it. The storage path
+ * is not in the token; {@link #resolvePath} takes it from a map filled when the token was
+ * issued, and only a token issued by another instance (or before a restart) costs one
+ * song lookup. So a player can issue many range requests for the same song cheaply.
+ *
+ * Format: {@code base64url(payload) "." base64url(mac[0..16])}.
+ */
+@Slf4j
+@Service
+public class StreamTokenService {
+
+    private static final byte VERSION = 2;
+    private static final int MAC_LENGTH = 16;
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * What a valid token grants: streaming of this file until {@code expiresAt}.
+     */
+    public record StreamGrant(UUID songId, long sizeBytes, long fileModifiedAt, String codec, Instant expiresAt) {
+    }
+
+    public record IssuedToken(String token, Instant expiresAt) {
+    }
+
+    // The file version a token names, so a replaced file is never served under an old token
+    private record FileRef(UUID songId, long sizeBytes, long fileModifiedAt) {
+    }
+
+    private final SongService songService;
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final Clock clock;
+    private final ThreadLocal<Mac> macs;
+    private final ReentrantLock pathsLock = new ReentrantLock();
+    private final LinkedHashMap<FileRef, String> paths;
+
+    @Autowired
+    public StreamTokenService(SongService songService,
+                              @Value("${music.streaming.token.secret:${jwt.secret}}") String secret,
+                              @Value("${music.streaming.token.ttl:PT6H}") Duration ttl,
+                              @Value("${music.streaming.token.path-entries:10000}") int pathEntries) {
+        this(songService, secret, ttl, pathEntries, Clock.systemUTC());
+    }
+
+    StreamTokenService(SongService songService, String secret, Duration ttl, int pathEntries, Clock clock) {
+        this.songService = songService;
+        // Derived key, so a stream token can never double as a JWT signature
+        this.key = new SecretKeySpec(hmac(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM),
+                "queuemanager-stream-token".getBytes(StandardCharsets.UTF_8)), ALGORITHM);
+        this.ttl = ttl;
+        this.clock = clock;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.paths = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FileRef, String> eldest) {
+                return size() > pathEntries;
+            }
+        };
+    }
+
+    /**
+     * @param song a song whose size and modification time are known
+     */
+    public IssuedToken issue(Song song) {
+        // Whole seconds, as encoded in the token
+        Instant expiresAt = Instant.ofEpochSecond(clock.instant().plus(ttl).getEpochSecond());
+        StreamGrant grant = new StreamGrant(song.getId(), song.getSizeBytes(), song.getFileModifiedAt(),
+                song.getCodec(), expiresAt);
+        rememberPath(fileRef(grant), song.getUrl());
+        byte[] payload = encode(grant);
+        return new IssuedToken(ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload)), expiresAt);
+    }
+
+    /**
+     * @return the grant, or empty if the token is malformed, forged or expired
+     */
+    public Optional<StreamGrant> verify(String token) {
+        int dot = token == null ? -1 : token.indexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payload = DECODER.decode(token.substring(0, dot));
+            byte[] mac = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payload), mac)) {
+                return Optional.empty();
+            }
+            StreamGrant grant = decode(payload);
+            if (!grant.expiresAt().isAfter(clock.instant())) {
+                return Optional.empty();
+            }
+            return Optional.of(grant);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            log.debug("Rejected malformed stream token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return the storage path of the file a verified grant names, or empty if the song is
+     *         gone or its file was replaced since the token was issued
+     */
+    public Optional<String> resolvePath(StreamGrant grant) {
+        FileRef ref = fileRef(grant);
+        pathsLock.lock();
+        try {
+            String path = paths.get(ref);
+            if (path != null) {
+                return Optional.of(path);
+            }
+        } finally {
+            pathsLock.unlock();
+        }
+
+        // Issued by another instance or before a restart
+        Song song;
+        try {
+            song = songService.findSongById(grant.songId());
+        } catch (RuntimeException e) {
+            log.debug("Song {} of stream token not found: {}", grant.songId(), e.getMessage());
+            return Optional.empty();
+        }
+        if (song.getUrl() == null || song.getUrl().isBlank()
+                || song.getSizeBytes() == null || song.getSizeBytes() != grant.sizeBytes()
+                || song.getFileModifiedAt() == null || song.getFileModifiedAt() != grant.fileModifiedAt()) {
+            return Optional.empty();
+        }
+        rememberPath(ref, song.getUrl());
+        return Optional.of(song.getUrl());
+    }
+
+    private void rememberPath(FileRef ref, String path) {
+        pathsLock.lock();
+        try {
+            paths.put(ref, path);
+        } finally {
+            pathsLock.unlock();
+        }
+    }
+
+    private static FileRef fileRef(StreamGrant grant) {
+        return new FileRef(grant.songId(), grant.sizeBytes(), grant.fileModifiedAt());
+    }
+
+    private byte[] sign(byte[] payload) {
+        return Arrays.copyOf(macs.get().doFinal(payload), MAC_LENGTH);
+    }
+
+    private static byte[] encode(StreamGrant grant) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(grant.songId().getMostSignificantBits());
+            out.writeLong(grant.songId().getLeastSignificantBits());
+            out.writeLong(grant.expiresAt().getEpochSecond());
+            out.writeLong(grant.sizeBytes());
+            out.writeLong(grant.fileModifiedAt());
+            writeString(out, grant.codec() == null ? "" : grant.codec());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static StreamGrant decode(byte[] payload) {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        if (in.get() != VERSION) {
+            throw new IllegalArgumentException("Unsupported stream token version");
+        }
+        UUID songId = new UUID(in.getLong(), in.getLong());
+        Instant expiresAt = Instant.ofEpochSecond(in.getLong());
+        long size = in.getLong();
+        long modifiedAt = in.getLong();
+        String codec = readString(in);
+        return new StreamGrant(songId, size, modifiedAt, codec.isEmpty() ? null : codec, expiresAt);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > 0xFFFF) {
+            throw new IllegalArgumentException("Value too long for a stream token");
+        }
+        out.writeShort(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] utf8 = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    private static byte[] hmac(SecretKeySpec key, byte[] data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.muzika.queuemanager.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.muzika.queuemanager.entities.Queue;
+import org.muzika.queuemanager.entities.QueueSong;
+import org.muzika.queuemanager.entities.User;
+import org.muzika.queuemanager.entities.UserSong;
+import org.muzika.queuemanager.kafkaMassages.UserCreatedEvent;
+import org.muzika.queuemanager.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Creates users, their queues, initial user songs and queue entries for a whole batch
+ * of user-created events in one transaction.
+ * Existing users are found with one IN query, starter songs come from {@link StarterSongPool},
+ * and all rows are persisted together so Hibernate flushes them as JDBC batches.
+ */
+@Slf4j
+@Service
+public class UserOnboardingService {
+
+    private final UserRepository userRepository;
+    private final StarterSongPool starterSongPool;
+    private final int initialQueueSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public UserOnboardingService(UserRepository userRepository, StarterSongPool starterSongPool,
+                                 @Value("${onboarding.initial-queue-size:10}") int initialQueueSize) {
+        this.userRepository = userRepository;
+        this.starterSongPool = starterSongPool;
+        this.initialQueueSize = initialQueueSize;
+    }
+
+    /**
+     * @return the events for which a user was created; events for users that already
+     *         exist (or repeat within the batch) are skipped
+     */
+    @Transactional
+    public List<UserCreatedEvent> onboard(List<UserCreatedEvent> events) {
+        Map<String, UserCreatedEvent> byUsername = new LinkedHashMap<>();
+        Set<UUID> userIds = new HashSet<>();
+        for (UserCreatedEvent event : events) {
+            if (event.getUsername() == null || event.getUserId() == null) {
+                log.warn("Ignoring incomplete user created event: {}", event);
+                continue;
+            }
+            if (userIds.add(event.getUserId())) {
+                byUsername.putIfAbsent(event.getUsername(), event);
+            }
+        }
+        if (byUsername.isEmpty()) {
+            return List.of();
+        }
+
+        for (User existing : userRepository.findAllByUserNameInOrUserIdIn(byUsername.keySet(), userIds)) {
+            log.info("User already exists in QueueManager: username={}", existing.getUserName());
+            byUsername.remove(existing.getUserName());
+            byUsername.values().removeIf(event -> event.getUserId().equals(existing.getUserId()));
+        }
+
+        List<UserCreatedEvent> created = new ArrayList<>(byUsername.values());
+        for (UserCreatedEvent event : created) {
+            User user = new User();
+            user.setUserId(event.getUserId());
+            user.setUserName(event.getUsername());
+            entityManager.persist(user);
+
+            Queue queue = new Queue();
+            queue.setUser(user);
+            queue.setUserUuid(user.getUuid());
+            queue.setUuid(user.getUuid());
+            entityManager.persist(queue);
+            user.setUserQueue(queue);
+
+            List<UUID> songIds = starterSongPool.draw(initialQueueSize);
+            for (int position = 0; position < songIds.size(); position++) {
+                UUID songId = songIds.get(position);
+
+                UserSong userSong = new UserSong();
+                userSong.setUserId(user.getUuid());
+                userSong.setSongId(songId);
+                userSong.setListenCount(0);
+                entityManager.persist(userSong);
+
+                QueueSong queueSong = new QueueSong();
+                queueSong.setQueueUserUuid(user.getUuid());
+                queueSong.setQueueUuid(user.getUuid());
+                queueSong.setSongsId(songId);
+                queueSong.setPosition(position * QueueOrdering.GAP);
+                entityManager.persist(queueSong);
+            }
+        }
+        entityManager.flush();
+        log.info("Onboarded {} of {} user(s) from batch", created.size(), events.size());
+        return created;
+    }
+}
@@ -1,6 +1,7 @@
 package org.muzika.queuemanager.services;
 
 import jakarta.transaction.Transactional;
+import org.muzika.queuemanager.dto.PlayEvent;
 import org.muzika.queuemanager.entities.Queue;
 import org.muzika.queuemanager.entities.Song;
 import org.muzika.queuemanager.entities.User;
@@ -13,15 +14,19 @@ import org.muzika.queuemanager.repository.QueueSongRepository;
 import org.muzika.queuemanager.repository.UserRepository;
 import org.muzika.queuemanager.repository.UserSongRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 
 @Service
 @Transactional
 public class UserService {
 
+    static final int MAX_PLAY_EVENTS = 500;
 
     private final UserRepository userRepository;
     private final QueueRepository queueRepository;
@@ -29,15 +34,18 @@ public class UserService {
 
     private final SongService songService;
     private final KafkaProducerService kafkaProducerService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public UserService(UserRepository userRepository, QueueRepository queueRepository, UserSongRepository userSongRepository, SongService songService, KafkaProducerService kafkaProducerService) {
+    public UserService(UserRepository userRepository, QueueRepository queueRepository, UserSongRepository userSongRepository, SongService songService, KafkaProducerService kafkaProducerService,
+                       ApplicationEventPublisher eventPublisher) {
 
         this.userRepository = userRepository;
         this.queueRepository = queueRepository;
         this.userSongRepository = userSongRepository;
         this.songService = songService;
         this.kafkaProducerService = kafkaProducerService;
+        this.eventPublisher = eventPublisher;
     }
 
     public User saveUser(User user) {
@@ -107,7 +115,7 @@ public class UserService {
     }
 
     public User getUserBySongID(UUID uuid) {
-        return userSongRepository.findBySongId(uuid).getUser();
+        return userSongRepository.findWithUserBySongId(uuid).getUser();
     }
 
 
@@ -243,6 +251,101 @@ public class UserService {
         kafkaProducerService.sendUnlikedSongEvent("unliked", authUserId, event);
     }
 
+    /**
+     * Applies play events recorded by the player, in the order they happened: the user's
+     * rows for all the songs are read with one query and written back together (batched
+     * by Hibernate), instead of one lookup and save per event. A song liked several times
+     * produces one liked event on Kafka, sent once the transaction committed. Events for
+     * songs that no longer exist are ignored.
+     *
+     * @return the songs that no longer exist
+     * @throws IllegalArgumentException if the user is unknown or an event lacks its type or song
+     */
+    public Set<UUID> applyPlayEvents(String username, List<PlayEvent> events) {
+        if (events == null || events.isEmpty()) {
+            throw new IllegalArgumentException("events must not be empty");
+        }
+        if (events.size() > MAX_PLAY_EVENTS) {
+            throw new IllegalArgumentException("At most " + MAX_PLAY_EVENTS + " events per batch");
+        }
+        for (PlayEvent event : events) {
+            if (event == null || event.getType() == null || event.getSongId() == null) {
+                throw new IllegalArgumentException("Every event needs a type and a songId");
+            }
+        }
+        User user = getUserByName(username);
+        if (user == null) {
+            throw new IllegalArgumentException("User not found: " + username);
+        }
+
+        Set<UUID> songIds = new HashSet<>();
+        for (PlayEvent event : events) {
+            songIds.add(event.getSongId());
+        }
+        Map<UUID, UserSong> userSongs = new HashMap<>();
+        for (UserSong userSong : userSongRepository.findAllByUserIdAndSongIdIn(user.getUuid(), songIds)) {
+            userSongs.put(userSong.getSongId(), userSong);
+        }
+        Set<UUID> unknownSongs = new HashSet<>();
+        List<UserSong> created = new ArrayList<>();
+        Set<UUID> missing = new HashSet<>(songIds);
+        missing.removeAll(userSongs.keySet());
+        if (!missing.isEmpty()) {
+            Map<UUID, Song> songs = songService.findAllByIds(missing);
+            for (UUID songId : missing) {
+                Song song = songs.get(songId);
+                if (song == null) {
+                    unknownSongs.add(songId);
+                } else {
+                    UserSong userSong = song.toUserSong(user);
+                    userSongs.put(songId, userSong);
+                    created.add(userSong);
+                }
+            }
+        }
+
+        LocalDateTime receivedAt = LocalDateTime.now();
+        List<PlayEvent> ordered = new ArrayList<>(events);
+        ordered.sort(Comparator.comparing(PlayEvent::getOccurredAt, Comparator.nullsLast(Comparator.naturalOrder())));
+        Set<UUID> liked = new LinkedHashSet<>();
+        for (PlayEvent event : ordered) {
+            UserSong userSong = userSongs.get(event.getSongId());
+            if (userSong == null) {
+                continue;
+            }
+            switch (event.getType()) {
+                case FINISHED -> {
+                    LocalDateTime at = event.getOccurredAt() != null ? toLocal(event.getOccurredAt()) : receivedAt;
+                    int currentCount = userSong.getListenCount() != null ? userSong.getListenCount() : 0;
+                    userSong.setListenCount(currentCount + 1);
+                    if (userSong.getFirstListen() == null || at.isBefore(userSong.getFirstListen())) {
+                        userSong.setFirstListen(at);
+                    }
+                    if (userSong.getLastListen() == null || at.isAfter(userSong.getLastListen())) {
+                        userSong.setLastListen(at);
+                    }
+                }
+                case SKIPPED -> userSong.setSkipped(true);
+                case LIKED -> {
+                    userSong.setLiked(true);
+                    liked.add(event.getSongId());
+                }
+            }
+        }
+        // Loaded rows are managed and flushed as updates; only the new ones need persisting
+        userSongRepository.persistAll(created);
+
+        if (!liked.isEmpty()) {
+            UUID authUserId = user.getUserId() != null ? user.getUserId() : user.getUuid();
+            eventPublisher.publishEvent(new SongsLikedEvent(authUserId, username, liked));
+        }
+        return unknownSongs;
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
     public boolean isSongLiked(String username, UUID songId) {
         User user = getUserByName(username);
         if (user == null) {
@@ -278,7 +381,7 @@ public class UserService {
 
     public List<Song> getAllUserSongs(String username) {
         User user = userRepository.findByUserName(username);
-        List<UserSong> userSongs= user.getSongs();
+        List<UserSong> userSongs = userSongRepository.findWithSongByUserId(user.getUuid());
         ArrayList<Song> songs = new ArrayList<>();
         for (UserSong userSong : userSongs) {
             songs.add(userSong.getSong());
@@ -0,0 +1,84 @@
+package org.muzika.queuemanager.benchmarks;
+
+import org.muzika.queuemanager.kafkaMassages.LoadedSong;
+import org.muzika.queuemanager.kafkaMassages.codec.CompactBinaryDeserializer;
+import org.muzika.queuemanager.kafkaMassages.codec.CompactBinarySerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON path used today with the compact binary codec for a typical
+ * {@link LoadedSong} record, both directions. The payload sizes of this record are pinned
+ * in CompactBinaryFormatTest.
+ *
+ * Run with:
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main KafkaCodecBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KafkaCodecBenchmark {
+
+    private static final String TOPIC = "loaded-song";
+
+    private JsonSerializer<LoadedSong> jsonSerializer;
+    private JsonDeserializer<LoadedSong> jsonDeserializer;
+    private CompactBinarySerializer binarySerializer;
+    private CompactBinaryDeserializer<LoadedSong> binaryDeserializer;
+
+    private LoadedSong message;
+    private byte[] jsonPayload;
+    private byte[] binaryPayload;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> config = Map.of(
+                JsonDeserializer.VALUE_DEFAULT_TYPE, LoadedSong.class,
+                JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+
+        jsonSerializer = new JsonSerializer<>();
+        jsonSerializer.setAddTypeInfo(false);
+        jsonDeserializer = new JsonDeserializer<>();
+        jsonDeserializer.configure(config, false);
+        binarySerializer = new CompactBinarySerializer();
+        binaryDeserializer = new CompactBinaryDeserializer<>();
+        binaryDeserializer.configure(config, false);
+
+        message = new LoadedSong(UUID.randomUUID(),
+                "/mnt/azfiles/downloads/Some Artist/Some Album/07 - Some Track.flac",
+                LoadedSong.Status.COMPLETED);
+        jsonPayload = jsonSerializer.serialize(TOPIC, message);
+        binaryPayload = binarySerializer.serialize(TOPIC, message);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return jsonSerializer.serialize(TOPIC, message);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binarySerializer.serialize(TOPIC, message);
+    }
+
+    @Benchmark
+    public LoadedSong deserializeJson() {
+        return jsonDeserializer.deserialize(TOPIC, jsonPayload);
+    }
+
+    @Benchmark
+    public LoadedSong deserializeBinary() {
+        return binaryDeserializer.deserialize(TOPIC, binaryPayload);
+    }
+}
@@ -0,0 +1,82 @@
+package org.muzika.queuemanager.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to complete a burst of blocking requests (each waits {@code blockMillis}, standing in
+ * for a JDBC round trip or a read from the share) on the default Tomcat pool of 200 platform
+ * threads versus one virtual thread per request, as enabled by
+ * {@code spring.threads.virtual.enabled=true}. Past 200 in-flight requests the platform pool
+ * queues; virtual threads keep all of them in flight.
+ *
+ * Run with:
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main VirtualThreadConcurrencyBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadConcurrencyBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"100", "1000", "5000"})
+    private int concurrentRequests;
+
+    @Param({"20"})
+    private long blockMillis;
+
+    private ExecutorService platformPool;
+    private ExecutorService virtualThreads;
+
+    @Setup
+    public void setUp() {
+        platformPool = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        platformPool.shutdownNow();
+        virtualThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public int platformThreadPool() throws Exception {
+        return burst(platformPool);
+    }
+
+    @Benchmark
+    public int virtualThreadPerTask() throws Exception {
+        return burst(virtualThreads);
+    }
+
+    private int burst(ExecutorService executor) throws Exception {
+        List<Future<Integer>> responses = new ArrayList<>(concurrentRequests);
+        for (int i = 0; i < concurrentRequests; i++) {
+            int request = i;
+            responses.add(executor.submit(() -> {
+                Thread.sleep(blockMillis);
+                return request;
+            }));
+        }
+        int completed = 0;
+        for (Future<Integer> response : responses) {
+            response.get();
+            completed++;
+        }
+        return completed;
+    }
+}
@@ -0,0 +1,123 @@
+package org.muzika.queuemanager.controllers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.muzika.queuemanager.config.SecurityConfig;
+import org.muzika.queuemanager.entities.Song;
+import org.muzika.queuemanager.services.AudioStreamingService;
+import org.muzika.queuemanager.services.FileStorageService;
+import org.muzika.queuemanager.services.JwtService;
+import org.muzika.queuemanager.services.MappedHotFileCache;
+import org.muzika.queuemanager.services.SongService;
+import org.muzika.queuemanager.services.StreamTokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = StreamController.class)
+@Import({SecurityConfig.class, StreamTokenService.class, AudioStreamingService.class, MappedHotFileCache.class,
+        SimpleMeterRegistry.class})
+class StreamControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StreamTokenService streamTokenService;
+
+    @MockitoBean
+    private FileStorageService fileStorageService;
+
+    @MockitoBean
+    private JwtService jwtService;
+
+    @MockitoBean
+    private SongService songService;
+
+    @TempDir
+    Path tempDir;
+
+    private Song song;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = tempDir.resolve("song.mp3");
+        Files.writeString(file, "0123456789");
+        song = new Song();
+        song.setId(UUID.randomUUID());
+        song.setUrl("song.mp3");
+        song.setSizeBytes(10L);
+        song.setFileModifiedAt(1_700_000_000_000L);
+        when(fileStorageService.getFile("song.mp3", 10L)).thenReturn(new FileSystemResource(file));
+    }
+
+    @Test
+    void testStream_ValidTokenServesRangeWithoutJwt() throws Exception {
+        String token = streamTokenService.issue(song).token();
+
+        mockMvc.perform(get("/api/stream/" + token).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "audio/mpeg"))
+                .andExpect(header().string(HttpHeaders.ETAG,
+                        "\"" + song.getId() + "-a-" + Long.toHexString(1_700_000_000_000L) + "\""))
+                .andExpect(content().string("2345"));
+
+        verifyNoInteractions(jwtService);
+    }
+
+    @Test
+    void testStream_BearerHeaderIsNotParsed() throws Exception {
+        String token = streamTokenService.issue(song).token();
+
+        mockMvc.perform(get("/api/stream/" + token).header(HttpHeaders.AUTHORIZATION, "Bearer whatever"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"));
+
+        verifyNoInteractions(jwtService);
+    }
+
+    @Test
+    void testStream_ForgedTokenIsForbidden() throws Exception {
+        String token = streamTokenService.issue(song).token();
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        mockMvc.perform(get("/api/stream/" + forged))
+                .andExpect(status().isForbidden());
+
+        verify(fileStorageService, never()).getFile(anyString(), anyLong());
+    }
+
+    @Test
+    void testStream_MissingFileReturns404() throws Exception {
+        when(fileStorageService.getFile(anyString(), any())).thenThrow(new IOException("File not found"));
+
+        mockMvc.perform(get("/api/stream/" + streamTokenService.issue(song).token()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testActuatorMetrics_RequiresAuthentication() throws Exception {
+        // Denied by the filter chain rather than reaching the (absent) endpoint with a 404
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,136 @@
+package org.muzika.queuemanager.kafkaMassages.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.muzika.queuemanager.kafkaMassages.LikedSongEvent;
+import org.muzika.queuemanager.kafkaMassages.LoadedSong;
+import org.muzika.queuemanager.kafkaMassages.RequestRandomSong;
+import org.muzika.queuemanager.kafkaMassages.UserCreatedEvent;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactBinaryFormatTest {
+
+    @Test
+    void testRoundTrip_LoadedSong() {
+        LoadedSong original = new LoadedSong(UUID.randomUUID(), "artist/album/track.flac", LoadedSong.Status.COMPLETED);
+
+        LoadedSong decoded = CompactBinaryFormat.decode(CompactBinaryFormat.encode(original), LoadedSong.class);
+
+        assertEquals(original, decoded);
+    }
+
+    @Test
+    void testRoundTrip_LoadedSongWithUserContextAndFileFacts() {
+        LoadedSong original = new LoadedSong(UUID.randomUUID(), "track.flac", LoadedSong.Status.COMPLETED,
+                UUID.randomUUID(), "alice", 31_457_280L, 245_000L, "flac");
+
+        LoadedSong decoded = CompactBinaryFormat.decode(CompactBinaryFormat.encode(original), LoadedSong.class);
+
+        assertEquals(original, decoded);
+    }
+
+    @Test
+    void testRoundTrip_NullFieldsAreOmitted() {
+        LikedSongEvent original = new LikedSongEvent(UUID.randomUUID(), null, UUID.randomUUID());
+
+        byte[] payload = CompactBinaryFormat.encode(original);
+        LikedSongEvent decoded = CompactBinaryFormat.decode(payload, LikedSongEvent.class);
+
+        assertEquals(original, decoded);
+        // header (3) + two UUID fields (1 + 16 each)
+        assertEquals(3 + 2 * 17, payload.length);
+    }
+
+    @Test
+    void testEncode_UuidsTakeSixteenBytesAndPayloadIsSmallerThanJson() {
+        RequestRandomSong message = new RequestRandomSong(UUID.randomUUID(), "rock");
+
+        byte[] binary = CompactBinaryFormat.encode(message);
+        byte[] json = new JsonSerializer<RequestRandomSong>().serialize("request-random-song", message);
+
+        assertEquals(3 + 17 + 1 + 1 + 4, binary.length);
+        assertTrue(binary.length < json.length / 2);
+    }
+
+    @Test
+    void testSerialize_BenchmarkLoadedSongPayloadSizes() {
+        // The record KafkaCodecBenchmark times
+        LoadedSong message = new LoadedSong(UUID.randomUUID(),
+                "/mnt/azfiles/downloads/Some Artist/Some Album/07 - Some Track.flac",
+                LoadedSong.Status.COMPLETED);
+        JsonSerializer<LoadedSong> jsonSerializer = new JsonSerializer<>();
+        jsonSerializer.setAddTypeInfo(false);
+
+        byte[] binary = new CompactBinarySerializer().serialize("loaded-song", message);
+        byte[] json = jsonSerializer.serialize("loaded-song", message);
+
+        assertEquals(99, binary.length);
+        assertEquals(228, json.length);
+    }
+
+    @Test
+    void testDecode_SkipsFieldsFromNewerProducers() {
+        UUID userId = UUID.randomUUID();
+        CompactBinaryWriter out = new CompactBinaryWriter(32);
+        out.header(6);
+        out.uuid(1, userId);
+        out.varLong(20, 42L);
+        out.string(21, "added in a later version");
+        out.string(2, "alice");
+
+        UserCreatedEvent decoded = CompactBinaryFormat.decode(out.toByteArray(), UserCreatedEvent.class);
+
+        assertEquals(userId, decoded.getUserId());
+        assertEquals("alice", decoded.getUsername());
+    }
+
+    @Test
+    void testDecode_UnknownEnumNameBecomesNull() {
+        CompactBinaryWriter out = new CompactBinaryWriter(32);
+        out.header(1);
+        out.string(3, "PARTIAL");
+
+        LoadedSong decoded = CompactBinaryFormat.decode(out.toByteArray(), LoadedSong.class);
+
+        assertNull(decoded.getStatus());
+    }
+
+    @Test
+    void testDecode_RejectsNewerFormatVersionAndWrongType() {
+        byte[] payload = CompactBinaryFormat.encode(new UserCreatedEvent(UUID.randomUUID(), "bob"));
+
+        assertThrows(SerializationException.class, () -> CompactBinaryFormat.decode(payload, LoadedSong.class));
+
+        payload[1] = (byte) (CompactBinaryFormat.FORMAT_VERSION + 1);
+        assertThrows(SerializationException.class, () -> CompactBinaryFormat.decode(payload, UserCreatedEvent.class));
+    }
+
+    @Test
+    void testDecode_TruncatedPayloadFails() {
+        byte[] payload = CompactBinaryFormat.encode(new LoadedSong(UUID.randomUUID(), "a.mp3", LoadedSong.Status.ERROR));
+        byte[] truncated = Arrays.copyOf(payload, 10);
+
+        assertThrows(SerializationException.class, () -> CompactBinaryFormat.decode(truncated, LoadedSong.class));
+    }
+
+    @Test
+    void testDeserializer_AcceptsBinaryAndJson() {
+        CompactBinaryDeserializer<LoadedSong> deserializer = new CompactBinaryDeserializer<>();
+        deserializer.configure(Map.of(
+                JsonDeserializer.VALUE_DEFAULT_TYPE, LoadedSong.class,
+                JsonDeserializer.USE_TYPE_INFO_HEADERS, false), false);
+        LoadedSong message = new LoadedSong(UUID.randomUUID(), "track.mp3", LoadedSong.Status.COMPLETED);
+
+        byte[] json = new JsonSerializer<LoadedSong>().serialize("loaded-song", message);
+
+        assertEquals(message, deserializer.deserialize("loaded-song", CompactBinaryFormat.encode(message)));
+        assertEquals(message, deserializer.deserialize("loaded-song", json));
+    }
+}
@@ -0,0 +1,61 @@
+package org.muzika.queuemanager.repository;
+
+import org.junit.jupiter.api.Test;
+import org.muzika.queuemanager.entities.IdempotencyRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The claim in {@code IdempotencyService} relies on the primary key rejecting a second
+ * pending row, which only the database can show.
+ */
+@DataJpaTest
+class IdempotencyRecordRepositoryTest {
+
+    private static final String KEY = "a".repeat(64);
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testInsertPending_SecondClaimOfSameKeyFails() {
+        LocalDateTime now = LocalDateTime.now();
+        repository.insertPending(KEY, "hash", now, now.plusMinutes(1));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> repository.insertPending(KEY, "hash", now, now.plusMinutes(1)));
+    }
+
+    @Test
+    void testComplete_FillsInPendingRowWhichIsThenKept() {
+        LocalDateTime now = LocalDateTime.now();
+        repository.insertPending(KEY, "hash", now, now.plusMinutes(1));
+
+        assertEquals(1, repository.complete(KEY, 200, "application/json", "{}", now.plusHours(24)));
+        assertEquals(0, repository.deletePending(KEY));
+        entityManager.clear();
+
+        IdempotencyRecord record = repository.findById(KEY).orElseThrow();
+        assertEquals(200, record.getStatusCode());
+        assertEquals("{}", record.getResponseBody());
+        assertEquals(now.plusHours(24).withNano(0), record.getExpiresAt().withNano(0));
+    }
+
+    @Test
+    void testDeletePending_ReleasesClaim() {
+        LocalDateTime now = LocalDateTime.now();
+        repository.insertPending(KEY, "hash", now, now.plusMinutes(1));
+
+        assertEquals(1, repository.deletePending(KEY));
+        repository.insertPending(KEY, "hash", now, now.plusMinutes(1));
+    }
+}
@@ -0,0 +1,298 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioStreamingServiceTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+    private static final MediaType AUDIO = MediaType.parseMediaType("audio/mpeg");
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MappedHotFileCache hotFileCache;
+    private AudioStreamingService streamingService;
+    private Resource file;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        hotFileCache = new MappedHotFileCache(new SimpleMeterRegistry(), true, 4, 1024, 2);
+        meterRegistry = new SimpleMeterRegistry();
+        streamingService = new AudioStreamingService(true, hotFileCache, meterRegistry);
+        Path path = tempDir.resolve("song.mp3");
+        Files.writeString(path, CONTENT);
+        file = new FileSystemResource(path);
+        request = new MockHttpServletRequest("GET", "/api/queue/songs/x");
+        response = new MockHttpServletResponse();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hotFileCache.shutdown();
+    }
+
+    @Test
+    void testServe_NoRange_ReturnsWholeFile() throws IOException {
+        streamingService.serve(file, CONTENT.length(), AUDIO, new HttpHeaders(), request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+        assertEquals(CONTENT.length(), response.getContentLengthLong());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+    }
+
+    @Test
+    void testServe_SingleRange_ReturnsPartialContent() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+
+        streamingService.serve(file, CONTENT.length(), AUDIO, new HttpHeaders(), request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 5-9/20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("56789", response.getContentAsString());
+        assertEquals(5, response.getContentLengthLong());
+    }
+
+    @Test
+    void testServe_SuffixRange_ReturnsTail() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+
+        streamingService.serve(file, CONTENT.length(), AUDIO, new HttpHeaders(), request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 17-19/20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("hij", response.getContentAsString());
+    }
+
+    @Test
+    void testServe_MultipleRanges_ReturnsMultipartByteranges() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,10-12");
+
+        streamingService.serve(file, CONTENT.length(), AUDIO, new HttpHeaders(), request, response);
+
+        assertEquals(206, response.getStatus());
+        assertTrue(response.getContentType().startsWith("multipart/byteranges; boundary="));
+        String body = response.getContentAsString(StandardCharsets.US_ASCII);
+        assertTrue(body.contains("Content-Range: bytes 0-1/20\r\n\r\n01"));
+        assertTrue(body.contains("Content-Range: bytes 10-12/20\r\n\r\nabc"));
+        assertTrue(body.trim().endsWith("--"));
+    }
+
+    @Test
+    void testServe_UnsatisfiableRange_Returns416() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=50-60");
+
+        streamingService.serve(file, CONTENT.length(), AUDIO, new HttpHeaders(), request, response);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void testServe_RangesAddingUpToMoreThanFile_Returns416() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-,0-,0-");
+
+        streamingService.serve(file, CONTENT.length(), AUDIO, new HttpHeaders(), request, response);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void testServe_RangesCoveringWholeFileOnce_AreServed() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9,10-");
+
+        streamingService.serve(file, CONTENT.length(), AUDIO, new HttpHeaders(), request, response);
+
+        assertEquals(206, response.getStatus());
+        String body = response.getContentAsString(StandardCharsets.US_ASCII);
+        assertTrue(body.contains("Content-Range: bytes 10-19/20\r\n\r\nabcdefghij"));
+    }
+
+    @Test
+    void testServe_SendfileSupported_HandsRangeToConnector() throws IOException {
+        request.setAttribute(AudioStreamingService.SENDFILE_SUPPORT_ATTR, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+
+        streamingService.serve(file, CONTENT.length(), AUDIO, new HttpHeaders(), request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(5L, request.getAttribute(AudioStreamingService.SENDFILE_START_ATTR));
+        assertEquals(10L, request.getAttribute(AudioStreamingService.SENDFILE_END_ATTR));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void testServe_NonFileResource_CopiesRange() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-4");
+        Resource resource = new ByteArrayResource(CONTENT.getBytes(StandardCharsets.US_ASCII));
+
+        streamingService.serve(resource, CONTENT.length(), AUDIO, new HttpHeaders(), request, response);
+
+        assertEquals("234", response.getContentAsString());
+    }
+
+    @Test
+    void testServe_RangeLargerThanCopyBuffer_CopiesEveryChunk() throws IOException {
+        byte[] content = new byte[3 * AudioStreamingService.COPY_BUFFER_SIZE + 17];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        Path path = tempDir.resolve("long.mp3");
+        Files.write(path, content);
+        int start = 100;
+        int end = content.length - 50;
+        request.addHeader(HttpHeaders.RANGE, "bytes=" + start + "-" + end);
+
+        streamingService.serve(new FileSystemResource(path), content.length, AUDIO, new HttpHeaders(), request, response);
+
+        assertEquals(206, response.getStatus());
+        assertArrayEquals(Arrays.copyOfRange(content, start, end + 1), response.getContentAsByteArray());
+    }
+
+    @Test
+    void testServe_RangedResource_FetchesOnlyRequestedBytes() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+        List<String> fetched = new ArrayList<>();
+        class RemoteResource extends ByteArrayResource implements RangedResource {
+            RemoteResource() {
+                super(CONTENT.getBytes(StandardCharsets.US_ASCII));
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                throw new AssertionError("whole object must not be read");
+            }
+
+            @Override
+            public void copyRange(long start, long end, OutputStream out) throws IOException {
+                fetched.add(start + "-" + end);
+                out.write(getByteArray(), (int) start, (int) (end - start + 1));
+            }
+        }
+
+        streamingService.serve(new RemoteResource(), CONTENT.length(), AUDIO, new HttpHeaders(), request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("56789", response.getContentAsString());
+        assertEquals(List.of("5-9"), fetched);
+    }
+
+    @Test
+    void testServe_MissingFile_ThrowsBeforeWriting() {
+        Resource missing = new FileSystemResource(tempDir.resolve("missing.mp3"));
+
+        assertThrows(IOException.class,
+                () -> streamingService.serve(missing, 10, AUDIO, new HttpHeaders(), request, response));
+        assertFalse(response.isCommitted());
+    }
+
+    @Test
+    void testServe_IfNoneMatchCurrentETag_Returns304WithoutBody() throws IOException {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"v1\"");
+
+        streamingService.serve(file, CONTENT.length(), AUDIO, validators(), request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals("\"v1\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("private, immutable", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals(1, response.getHeaders(HttpHeaders.ETAG).size());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void testServe_IfRangeMatches_ReturnsPartialContent() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-2");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"v1\"");
+
+        streamingService.serve(file, CONTENT.length(), AUDIO, validators(), request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("012", response.getContentAsString());
+    }
+
+    @Test
+    void testServe_IfRangeStale_ReturnsWholeFile() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-2");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"v0\"");
+
+        streamingService.serve(file, CONTENT.length(), AUDIO, validators(), request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+    }
+
+    @Test
+    void testServe_HotFile_ServesRangesFromMapping() throws IOException {
+        request.setAttribute(AudioStreamingService.SENDFILE_SUPPORT_ATTR, Boolean.TRUE);
+        for (int i = 0; i < 2; i++) {
+            streamingService.serve(file, CONTENT.length(), AUDIO, new HttpHeaders(), request, new MockHttpServletResponse());
+        }
+        hotFileCache.rebalance();
+        request.addHeader(HttpHeaders.RANGE, "bytes=3-5,18-19");
+
+        streamingService.serve(file, CONTENT.length(), AUDIO, new HttpHeaders(), request, response);
+
+        String body = response.getContentAsString(StandardCharsets.US_ASCII);
+        assertTrue(body.contains("Content-Range: bytes 3-5/20\r\n\r\n345"));
+        assertTrue(body.contains("Content-Range: bytes 18-19/20\r\n\r\nij"));
+        assertEquals(CONTENT.length(), hotFileCache.getMappedBytes());
+        // Two whole files through sendfile before the mapping, then the two ranges
+        assertEquals(40.0, bytesWritten("origin"));
+        assertEquals(5.0, bytesWritten("mmap"));
+    }
+
+    @Test
+    void testServe_CountsBytesWrittenPerSource() throws IOException {
+        Resource cached = new CachingFileStorageService.CachedResource(tempDir.resolve("song.mp3"));
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+
+        streamingService.serve(cached, CONTENT.length(), AUDIO, new HttpHeaders(), request, response);
+        MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/api/queue/songs/x");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, "\"v1\"");
+        streamingService.serve(file, CONTENT.length(), AUDIO, validators(), conditional, new MockHttpServletResponse());
+
+        assertEquals(5.0, bytesWritten("cache"));
+        assertEquals(0.0, bytesWritten("origin"));
+    }
+
+    private double bytesWritten(String source) {
+        return meterRegistry.get("queuemanager.streaming.bytes").tag("source", source).counter().count();
+    }
+
+    private static HttpHeaders validators() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"v1\"");
+        headers.setLastModified(1_700_000_000_000L);
+        headers.setCacheControl("private, immutable");
+        return headers;
+    }
+}
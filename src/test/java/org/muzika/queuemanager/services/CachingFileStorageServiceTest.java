@@ -0,0 +1,125 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.muzika.queuemanager.config.FileCacheProperties;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingFileStorageServiceTest {
+
+    @TempDir
+    Path originDir;
+
+    @TempDir
+    Path cacheDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CachingFileStorageService cachingService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        cachingService = newService(25);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cachingService.shutdown();
+    }
+
+    @Test
+    void testGetFile_MissServesOriginThenHitServesLocalCopy() throws IOException {
+        writeOrigin("a.mp3", "0123456789");
+
+        Resource first = cachingService.getFile("a.mp3", 10L);
+        awaitFill("a.mp3", first, 10);
+        Resource second = cachingService.getFile("a.mp3", 10L);
+
+        assertTrue(first.getFile().toPath().startsWith(originDir));
+        assertTrue(second.getFile().toPath().startsWith(cacheDir));
+        assertEquals("0123456789", second.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(0.5, cachingService.getHitRatio());
+        assertFalse(first instanceof CachingFileStorageService.CachedResource);
+        assertInstanceOf(CachingFileStorageService.CachedResource.class, second);
+    }
+
+    @Test
+    void testFill_EvictsLeastRecentlyUsedWhenOverBudget() throws IOException {
+        for (String name : new String[]{"a.mp3", "b.mp3"}) {
+            writeOrigin(name, "0123456789");
+            awaitFill(name, cachingService.getFile(name, 10L), 10);
+        }
+        cachingService.getFile("a.mp3", 10L); // a becomes most recently used
+
+        writeOrigin("c.mp3", "0123456789");
+        awaitFill("c.mp3", cachingService.getFile("c.mp3", 10L), 10);
+
+        assertEquals(20, cachingService.getUsedBytes());
+        assertTrue(cachingService.getFile("a.mp3", 10L).getFile().toPath().startsWith(cacheDir));
+        assertTrue(cachingService.getFile("b.mp3", 10L).getFile().toPath().startsWith(originDir));
+    }
+
+    @Test
+    void testFill_SizeMismatchIsDiscarded() throws IOException {
+        writeOrigin("a.mp3", "0123456789");
+
+        awaitFill("a.mp3", new FileSystemResource(originDir.resolve("a.mp3")), 12);
+
+        assertEquals(0, cachingService.getUsedBytes());
+        try (var files = Files.list(cacheDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testGetFile_StaleEntryIsEvictedAndServedFromOrigin() throws IOException {
+        writeOrigin("a.mp3", "0123456789");
+        awaitFill("a.mp3", cachingService.getFile("a.mp3", 10L), 10);
+        writeOrigin("a.mp3", "0123456789ab");
+
+        Resource resource = cachingService.getFile("a.mp3", 12L);
+
+        assertTrue(resource.getFile().toPath().startsWith(originDir));
+    }
+
+    @Test
+    void testRestart_ReindexesCachedFilesAndDropsPartialFills() throws IOException {
+        writeOrigin("a.mp3", "0123456789");
+        awaitFill("a.mp3", cachingService.getFile("a.mp3", 10L), 10);
+        Files.writeString(cacheDir.resolve("x.part"), "partial");
+        cachingService.shutdown();
+
+        cachingService = newService(25);
+
+        assertEquals(10, cachingService.getUsedBytes());
+        assertFalse(Files.exists(cacheDir.resolve("x.part")));
+        assertTrue(cachingService.getFile("a.mp3", 10L).getFile().toPath().startsWith(cacheDir));
+    }
+
+    private CachingFileStorageService newService(long maxBytes) throws IOException {
+        FileCacheProperties properties = new FileCacheProperties();
+        properties.setDirectory(cacheDir.toString());
+        properties.setMaxBytes(maxBytes);
+        properties.setFillThreads(1);
+        return new CachingFileStorageService(new LocalFileStorageService(originDir.toString()), properties, meterRegistry);
+    }
+
+    private void writeOrigin(String name, String content) throws IOException {
+        Files.writeString(originDir.resolve(name), content);
+    }
+
+    private void awaitFill(String path, Resource source, long size) {
+        cachingService.fillAsync(CachingFileStorageService.cacheKey(path), source, size).join();
+    }
+}
@@ -0,0 +1,74 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterMonitorTest {
+
+    private static final String LOADED_DLT = "loaded-song" + DeadLetterMonitor.DLT_SUFFIX;
+    private static final String REQUEST_DLT = "request-slskd-song" + DeadLetterMonitor.DLT_SUFFIX;
+
+    @Mock
+    private KafkaAdmin kafkaAdmin;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DeadLetterMonitor deadLetterMonitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        deadLetterMonitor = new DeadLetterMonitor(kafkaAdmin, meterRegistry, List.of("loaded-song", "request-slskd-song"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        deadLetterMonitor.close();
+    }
+
+    @Test
+    void testConstructor_RegistersDepthGaugePerDeadLetterTopic() {
+        Gauge loaded = meterRegistry.find("queuemanager.kafka.dlt.depth").tag("topic", LOADED_DLT).gauge();
+        Gauge request = meterRegistry.find("queuemanager.kafka.dlt.depth").tag("topic", REQUEST_DLT).gauge();
+
+        assertNotNull(loaded);
+        assertNotNull(request);
+        assertEquals(0.0, loaded.value());
+        assertEquals(0, deadLetterMonitor.getDepth(LOADED_DLT));
+        assertEquals(0, deadLetterMonitor.getDepth("unknown-dlt"));
+    }
+
+    @Test
+    void testRecordDeadLetter_CountsPerTopic() {
+        deadLetterMonitor.recordDeadLetter(LOADED_DLT);
+        deadLetterMonitor.recordDeadLetter(LOADED_DLT);
+        deadLetterMonitor.recordDeadLetter(REQUEST_DLT);
+
+        assertEquals(2.0, meterRegistry.get("queuemanager.kafka.dlt.records").tag("topic", LOADED_DLT).counter().count());
+        assertEquals(1.0, meterRegistry.get("queuemanager.kafka.dlt.records").tag("topic", REQUEST_DLT).counter().count());
+    }
+
+    @Test
+    void testRefreshDepth_BrokerUnreachableKeepsLastDepth() {
+        // No bootstrap servers: creating the admin client fails like an unreachable broker would
+        when(kafkaAdmin.getConfigurationProperties()).thenReturn(Map.of());
+
+        assertDoesNotThrow(deadLetterMonitor::refreshDepth);
+
+        assertEquals(0, deadLetterMonitor.getDepth(LOADED_DLT));
+        assertEquals(0.0, meterRegistry.get("queuemanager.kafka.dlt.depth").tag("topic", LOADED_DLT).gauge().value());
+    }
+}
@@ -0,0 +1,231 @@
+package org.muzika.queuemanager.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.muzika.queuemanager.dto.PlayEvent;
+import org.muzika.queuemanager.entities.Queue;
+import org.muzika.queuemanager.entities.QueueSong;
+import org.muzika.queuemanager.entities.Song;
+import org.muzika.queuemanager.entities.User;
+import org.muzika.queuemanager.entities.UserSong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statements and entity loads per service method against an in-memory database, so an
+ * association turned back to EAGER, or a fetch plan that stops covering what a caller
+ * reads, shows up as a changed count.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@Import({QueueService.class, UserService.class, SongService.class})
+class FetchPlanTest {
+
+    private static final String USERNAME = "alice";
+    private static final int QUEUE_LENGTH = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private QueueService queueService;
+
+    @Autowired
+    private UserService userService;
+
+    @MockitoBean
+    private KafkaProducerService kafkaProducerService;
+
+    private Statistics statistics;
+    private User user;
+    private List<Song> songs;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = new User();
+        user.setUserName(USERNAME);
+        entityManager.persist(user);
+        Queue queue = new Queue();
+        queue.setUser(user);
+        queue.setUuid(user.getUuid());
+        entityManager.persist(queue);
+
+        songs = new ArrayList<>();
+        for (int i = 0; i < QUEUE_LENGTH; i++) {
+            Song song = new Song();
+            song.setId(UUID.randomUUID());
+            song.setTitle("Song " + i);
+            song.setUrl("song-" + i + ".mp3");
+            entityManager.persist(song);
+            songs.add(song);
+
+            QueueSong queueSong = new QueueSong();
+            queueSong.setQueueUserUuid(user.getUuid());
+            queueSong.setQueueUuid(user.getUuid());
+            queueSong.setSongsId(song.getId());
+            queueSong.setPosition(i * QueueOrdering.GAP);
+            entityManager.persist(queueSong);
+
+            entityManager.persist(song.toUserSong(user));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void testQueueView_EntriesAndSongsInOneStatement() {
+        Queue queue = queueService.getQueueView(USERNAME);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(QUEUE_LENGTH, queue.getQueueSongs().size());
+        assertTrue(queue.getQueueSongs().stream().allMatch(queueSong -> Hibernate.isInitialized(queueSong.getSong())));
+        assertEquals(1, loads(Queue.class));
+        assertEquals(QUEUE_LENGTH, loads(QueueSong.class));
+        assertEquals(QUEUE_LENGTH, loads(Song.class));
+        assertEquals(0, loads(User.class));
+    }
+
+    @Test
+    void testQueueForChanges_EntriesWithoutSongs() {
+        Queue queue = queueService.getQueueByUsername(USERNAME);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(Hibernate.isInitialized(queue.getQueueSongs()));
+        assertEquals(QUEUE_LENGTH, queue.getQueueSongs().size());
+        assertFalse(Hibernate.isInitialized(queue.getQueueSongs().get(0).getSong()));
+        assertEquals(QUEUE_LENGTH, loads(QueueSong.class));
+        assertEquals(0, loads(Song.class));
+    }
+
+    @Test
+    void testUpcomingSongs_ReadsOnlyTheHead() {
+        List<Song> upcoming = queueService.getUpcomingSongs(USERNAME, 2);
+
+        assertEquals(List.of(songs.get(0).getId(), songs.get(1).getId()), upcoming.stream().map(Song::getId).toList());
+        assertTrue(upcoming.stream().allMatch(Hibernate::isInitialized));
+        // Version lookup, then the page with its songs
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, loads(Queue.class));
+        assertEquals(2, loads(QueueSong.class));
+        assertEquals(2, loads(Song.class));
+    }
+
+    @Test
+    void testQueuePage_ConstantStatementsPerPage() {
+        QueuePage first = queueService.getQueuePage(USERNAME, null, 2);
+        QueuePage second = queueService.getQueuePage(USERNAME, first.nextCursor(), 2);
+
+        assertEquals(songs.get(2).getId(), second.entries().get(0).getSongsId());
+        assertTrue(Hibernate.isInitialized(second.entries().get(0).getSong()));
+        // Version lookup and one seek per page
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, loads(Queue.class));
+        // Each page reads one row ahead; all five songs once, none of them twice
+        assertEquals(QUEUE_LENGTH, loads(Song.class));
+    }
+
+    @Test
+    void testIsSongLiked_LoadsNoSongsOrEntries() {
+        assertFalse(userService.isSongLiked(USERNAME, songs.get(0).getId()));
+
+        assertEquals(0, loads(Song.class));
+        assertEquals(0, loads(QueueSong.class));
+        assertEquals(1, loads(UserSong.class));
+        assertEquals(0, statistics.getCollectionLoadCount());
+        // User (with its queue row, the inverse one-to-one is not lazy), then the library row
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testCounterUpdate_TouchesOnlyTheUserSongRow() {
+        userService.incrementSongListenCount(USERNAME, songs.get(0).getId());
+        entityManager.flush();
+
+        assertEquals(0, loads(Song.class));
+        assertEquals(0, loads(QueueSong.class));
+        assertEquals(1, loads(UserSong.class));
+        assertEquals(1, statistics.getEntityUpdateCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    void testOwnerOfSong_CleanupLoadsUserWithoutLibraryOrQueueEntries() {
+        User owner = userService.getUserBySongID(songs.get(0).getId());
+
+        assertEquals(USERNAME, owner.getUserName());
+        assertTrue(Hibernate.isInitialized(owner));
+        assertFalse(Hibernate.isInitialized(owner.getSongs()));
+        assertEquals(0, loads(Song.class));
+        assertEquals(0, loads(QueueSong.class));
+        assertEquals(0, statistics.getCollectionLoadCount());
+        // Library row joined with its user, then the user's queue row
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testAllUserSongs_LibraryWithSongsInOneQuery() {
+        List<Song> library = userService.getAllUserSongs(USERNAME);
+
+        assertEquals(QUEUE_LENGTH, library.size());
+        assertTrue(library.stream().allMatch(Hibernate::isInitialized));
+        assertEquals(QUEUE_LENGTH, loads(Song.class));
+        assertEquals(0, loads(QueueSong.class));
+        assertEquals(0, statistics.getCollectionLoadCount());
+        // User with its queue row, then the whole library joined with the songs
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testPlayEvents_NewLibraryRowsInsertedWithoutLookup() {
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Song song = new Song();
+            song.setId(UUID.randomUUID());
+            song.setTitle("New " + i);
+            song.setUrl("new-" + i + ".mp3");
+            entityManager.persist(song);
+            added.add(song.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        userService.applyPlayEvents(USERNAME, List.of(
+                new PlayEvent(PlayEvent.Type.FINISHED, songs.get(0).getId(), null, null),
+                new PlayEvent(PlayEvent.Type.LIKED, added.get(0), null, null),
+                new PlayEvent(PlayEvent.Type.SKIPPED, added.get(1), null, null)));
+        entityManager.flush();
+
+        // User, library rows and songs for the batch, then the writes; merging the two new
+        // rows instead of persisting them would add a lookup each
+        assertEquals(6, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getEntityInsertCount());
+        assertEquals(1, statistics.getEntityUpdateCount());
+        assertEquals(1, loads(UserSong.class));
+    }
+
+    private long loads(Class<?> entity) {
+        return statistics.getEntityStatistics(entity.getName()).getLoadCount();
+    }
+}
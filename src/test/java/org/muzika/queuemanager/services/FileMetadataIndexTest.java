@@ -0,0 +1,82 @@
+package org.muzika.queuemanager.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileMetadataIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path songs;
+    private Path snapshot;
+    private FileMetadataIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        songs = Files.createDirectories(tempDir.resolve("songs")).toAbsolutePath().normalize();
+        snapshot = tempDir.resolve("index/file-index.tsv");
+        index = new FileMetadataIndex(songs.toString(), snapshot.toString(), false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    void testReconcile_IndexesFilesInSubdirectories() throws IOException {
+        Path song = Files.createDirectories(songs.resolve("artist")).resolve("song.flac");
+        Files.write(song, new byte[42]);
+        Files.setLastModifiedTime(song, FileTime.fromMillis(1_700_000_000_000L));
+
+        index.reconcile();
+
+        FileMetadataIndex.Entry entry = index.lookup(song);
+        assertNotNull(entry);
+        assertEquals(42, entry.size());
+        assertEquals(1_700_000_000_000L, entry.lastModified());
+        assertTrue(entry.readable());
+    }
+
+    @Test
+    void testReconcile_DropsDeletedFiles() throws IOException {
+        Path song = Files.write(songs.resolve("gone.mp3"), new byte[10]);
+        index.reconcile();
+
+        Files.delete(song);
+        index.reconcile();
+
+        assertNull(index.lookup(song));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testSnapshot_LoadedOnStart() throws IOException {
+        Path song = Files.write(songs.resolve("kept.mp3"), new byte[7]);
+        index.reconcile();
+
+        FileMetadataIndex restarted = new FileMetadataIndex(songs.toString(), snapshot.toString(), false);
+
+        assertEquals(7, restarted.lookup(song).size());
+    }
+
+    @Test
+    void testSnapshot_CorruptFileIsIgnored() throws IOException {
+        Files.createDirectories(snapshot.getParent());
+        Files.writeString(snapshot, "not-a-number\t1\ttrue\t/x.mp3\n");
+
+        FileMetadataIndex restarted = new FileMetadataIndex(songs.toString(), snapshot.toString(), false);
+
+        assertEquals(0, restarted.size());
+    }
+}
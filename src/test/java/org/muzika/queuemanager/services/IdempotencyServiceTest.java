@@ -0,0 +1,239 @@
+package org.muzika.queuemanager.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.muzika.queuemanager.dto.SongIdRequest;
+import org.muzika.queuemanager.entities.IdempotencyRecord;
+import org.muzika.queuemanager.repository.IdempotencyRecordRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final String SCOPE = "alice:queue/finished";
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    private IdempotencyService idempotencyService;
+    private SongIdRequest request;
+    private AtomicInteger executions;
+    /** Rows of the idempotency_keys table, keyed like its primary key. */
+    private Map<String, IdempotencyRecord> table;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = newService();
+        request = new SongIdRequest();
+        request.setSongId(UUID.randomUUID());
+        executions = new AtomicInteger();
+        table = new HashMap<>();
+
+        Mockito.lenient().doAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            if (table.containsKey(key)) {
+                throw new DataIntegrityViolationException("duplicate key " + key);
+            }
+            table.put(key, new IdempotencyRecord(key, invocation.getArgument(1), IdempotencyRecord.PENDING,
+                    null, null, invocation.getArgument(2), invocation.getArgument(3)));
+            return null;
+        }).when(repository).insertPending(anyString(), anyString(), any(), any());
+        Mockito.lenient().when(repository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+        Mockito.lenient().when(repository.complete(anyString(), anyInt(), any(), any(), any())).thenAnswer(invocation -> {
+            IdempotencyRecord record = table.get(invocation.<String>getArgument(0));
+            record.setStatusCode(invocation.getArgument(1));
+            record.setContentType(invocation.getArgument(2));
+            record.setResponseBody(invocation.getArgument(3));
+            record.setExpiresAt(invocation.getArgument(4));
+            return 1;
+        });
+        Mockito.lenient().when(repository.deletePending(anyString())).thenAnswer(invocation ->
+                table.remove(invocation.<String>getArgument(0)) != null ? 1 : 0);
+        Mockito.lenient().when(repository.deleteExpired(anyString(), any())).thenAnswer(invocation ->
+                table.remove(invocation.<String>getArgument(0)) != null ? 1 : 0);
+    }
+
+    @Test
+    void testExecute_RetryWithSameKeyReplaysFirstResponse() {
+        ResponseEntity<?> first = idempotencyService.execute(SCOPE, "key-1", request, this::ok);
+        ResponseEntity<?> retry = idempotencyService.execute(SCOPE, "key-1", request, this::ok);
+
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        verify(repository, times(1)).insertPending(anyString(), anyString(), any(), any());
+        verify(repository, times(1)).complete(anyString(), eq(200), any(), any(), any());
+    }
+
+    @Test
+    void testExecute_SameKeyDifferentRequestIsRejected() {
+        idempotencyService.execute(SCOPE, "key-1", request, this::ok);
+
+        SongIdRequest other = new SongIdRequest();
+        other.setSongId(UUID.randomUUID());
+        ResponseEntity<?> response = idempotencyService.execute(SCOPE, "key-1", other, this::ok);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testExecute_KeysAreScopedPerUserAndOperation() {
+        idempotencyService.execute(SCOPE, "key-1", request, this::ok);
+        idempotencyService.execute("alice:queue/skipped", "key-1", request, this::ok);
+        idempotencyService.execute("bob:queue/finished", "key-1", request, this::ok);
+
+        assertEquals(3, executions.get());
+        assertEquals(3, table.size());
+    }
+
+    @Test
+    void testExecute_ServerErrorIsNotStoredSoRetryRunsAgain() {
+        ResponseEntity<?> failed = idempotencyService.execute(SCOPE, "key-1", request, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("boom");
+        });
+        assertTrue(table.isEmpty());
+        ResponseEntity<?> retry = idempotencyService.execute(SCOPE, "key-1", request, this::ok);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, failed.getStatusCode());
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testExecute_ExceptionReleasesClaimSoRetryRunsAgain() {
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute(SCOPE, "key-1", request, () -> {
+            executions.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+        assertTrue(table.isEmpty());
+
+        ResponseEntity<?> retry = idempotencyService.execute(SCOPE, "key-1", request, this::ok);
+
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testExecute_JsonBodyStoredAndReplayedFromStore() {
+        ResponseEntity<?> first = idempotencyService.execute(SCOPE, "key-1", request, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.ok(Map.of("removed", true));
+        });
+        IdempotencyRecord saved = table.values().iterator().next();
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, saved.getContentType());
+        assertEquals("{\"removed\":true}", saved.getResponseBody());
+
+        // A fresh instance (restart, or another replica) only has the table
+        IdempotencyService restarted = newService();
+        ResponseEntity<?> retry = restarted.execute(SCOPE, "key-1", request, this::ok);
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(1, executions.get());
+        assertEquals(MediaType.APPLICATION_JSON, retry.getHeaders().getContentType());
+        assertEquals("{\"removed\":true}", retry.getBody());
+    }
+
+    @Test
+    void testExecute_ExpiredRecordIsReplaced() {
+        idempotencyService.execute(SCOPE, "key-1", request, this::ok);
+        IdempotencyRecord stored = table.values().iterator().next();
+        stored.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+
+        ResponseEntity<?> response = newService().execute(SCOPE, "key-1", request, this::ok);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(2, executions.get());
+        verify(repository).deleteExpired(eq(stored.getRecordKey()), any());
+    }
+
+    @Test
+    void testExecute_DuplicateWhileInFlightIsRejected() {
+        ResponseEntity<?> outer = idempotencyService.execute(SCOPE, "key-1", request, () -> {
+            ResponseEntity<?> inner = idempotencyService.execute(SCOPE, "key-1", request, this::ok);
+            assertEquals(HttpStatus.CONFLICT, inner.getStatusCode());
+            return ok();
+        });
+
+        assertEquals(HttpStatus.OK, outer.getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testExecute_KeyClaimedByAnotherInstanceIsRejected() {
+        // The other replica inserted its pending row and is still running the request
+        newService().execute(SCOPE, "key-1", request, () -> {
+            ResponseEntity<?> duplicate = idempotencyService.execute(SCOPE, "key-1", request, this::ok);
+            assertEquals(HttpStatus.CONFLICT, duplicate.getStatusCode());
+
+            SongIdRequest other = new SongIdRequest();
+            other.setSongId(UUID.randomUUID());
+            ResponseEntity<?> different = idempotencyService.execute(SCOPE, "key-1", other, this::ok);
+            assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, different.getStatusCode());
+            return ok();
+        });
+
+        ResponseEntity<?> retry = idempotencyService.execute(SCOPE, "key-1", request, this::ok);
+
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testExecute_InvalidKeyIsRejectedWithoutRunning() {
+        ResponseEntity<?> blank = idempotencyService.execute(SCOPE, " ", request, this::ok);
+        ResponseEntity<?> tooLong = idempotencyService.execute(SCOPE, "k".repeat(129), request, this::ok);
+
+        assertEquals(HttpStatus.BAD_REQUEST, blank.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, tooLong.getStatusCode());
+        assertEquals(0, executions.get());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testExecute_PersistFailureStillReplaysFromMemory() {
+        doThrow(new RuntimeException("db down")).when(repository).complete(anyString(), anyInt(), any(), any(), any());
+
+        idempotencyService.execute(SCOPE, "key-1", request, this::ok);
+        ResponseEntity<?> retry = idempotencyService.execute(SCOPE, "key-1", request, this::ok);
+
+        assertEquals(1, executions.get());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    private IdempotencyService newService() {
+        return new IdempotencyService(repository, new ObjectMapper(), new SimpleMeterRegistry(),
+                Duration.ofHours(1), Duration.ofMinutes(1), 100);
+    }
+
+    private ResponseEntity<?> ok() {
+        executions.incrementAndGet();
+        return ResponseEntity.ok().build();
+    }
+}
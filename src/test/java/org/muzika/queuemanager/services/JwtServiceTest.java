@@ -0,0 +1,112 @@
+package org.muzika.queuemanager.services;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.muzika.queuemanager.config.JwtConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "test-secret-key-that-is-long-enough-for-hs256!!";
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    private JwtConfig config;
+    private MutableClock clock;
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        config = new JwtConfig();
+        config.setSecret(SECRET);
+        config.setCacheTtl(Duration.ofMinutes(5));
+        config.setCacheMaxEntries(2);
+        clock = new MutableClock(NOW);
+        jwtService = new JwtService(config, clock);
+    }
+
+    @Test
+    void testAuthenticate_ValidTokenReturnsSubjectAndIsCached() {
+        String token = token("alice", NOW.plus(Duration.ofHours(1)), SECRET);
+
+        assertEquals("alice", jwtService.authenticate(token).orElseThrow());
+        assertEquals("alice", jwtService.authenticate(token).orElseThrow());
+        assertEquals(1, jwtService.cachedTokenCount());
+        assertTrue(jwtService.validateToken(token));
+        assertEquals("alice", jwtService.extractUsername(token));
+    }
+
+    @Test
+    void testAuthenticate_RejectsBadSignatureAndGarbage() {
+        assertTrue(jwtService.authenticate(token("alice", NOW.plus(Duration.ofHours(1)),
+                "another-secret-key-that-is-long-enough-for-hs256")).isEmpty());
+        assertTrue(jwtService.authenticate("not.a.jwt").isEmpty());
+        assertTrue(jwtService.authenticate(null).isEmpty());
+        assertEquals(0, jwtService.cachedTokenCount());
+        assertThrows(IllegalArgumentException.class, () -> jwtService.extractUsername("not.a.jwt"));
+    }
+
+    @Test
+    void testAuthenticate_CachedTokenStopsWorkingAtItsExpiry() {
+        String token = token("alice", NOW.plus(Duration.ofMinutes(1)), SECRET);
+        assertTrue(jwtService.authenticate(token).isPresent());
+
+        clock.advance(Duration.ofMinutes(2));
+
+        assertTrue(jwtService.authenticate(token).isEmpty());
+    }
+
+    @Test
+    void testAuthenticate_CacheIsBounded() {
+        for (String user : new String[]{"a", "b", "c", "d"}) {
+            assertTrue(jwtService.authenticate(token(user, NOW.plus(Duration.ofHours(1)), SECRET)).isPresent());
+        }
+
+        assertTrue(jwtService.cachedTokenCount() <= 2);
+    }
+
+    private static String token(String subject, Instant expiresAt, String secret) {
+        return Jwts.builder()
+                .subject(subject)
+                .issuedAt(Date.from(NOW))
+                .expiration(Date.from(expiresAt))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
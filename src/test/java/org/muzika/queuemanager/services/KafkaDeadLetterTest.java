@@ -0,0 +1,142 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.muzika.queuemanager.config.ExecutorConfig;
+import org.muzika.queuemanager.config.KafkaConfig;
+import org.muzika.queuemanager.config.KafkaConsumerConfig;
+import org.muzika.queuemanager.config.KafkaProducerProperties;
+import org.muzika.queuemanager.config.KafkaRetryConfig;
+import org.muzika.queuemanager.kafkaMassages.RequestSlskdSong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the shared retry policy from {@link KafkaRetryConfig} against an embedded broker:
+ * a record whose listener keeps failing goes through every retry topic and ends up in the
+ * DLT, where {@link KafkaConsumerService#handleDeadLetter} counts it.
+ */
+@SpringJUnitConfig({KafkaConfig.class, KafkaProducerProperties.class, KafkaConsumerConfig.class, KafkaRetryConfig.class,
+        ExecutorConfig.class, KafkaConsumerService.class, DeadLetterMonitor.class, KafkaDeadLetterTest.Metrics.class})
+@EmbeddedKafka(partitions = 1, topics = {"loaded-song", "request-slskd-song", "user-created"})
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "kafka.retry.attempts=3",
+        "kafka.retry.initial-delay-ms=100",
+        "kafka.retry.multiplier=2",
+        "kafka.retry.max-delay-ms=500"
+})
+class KafkaDeadLetterTest {
+
+    private static final String REQUEST_DLT = "request-slskd-song" + DeadLetterMonitor.DLT_SUFFIX;
+
+    @Configuration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        // Splits the comma separated kafka.retry.topics like Boot's conversion service does
+        @Bean
+        static ConversionService conversionService() {
+            return new DefaultConversionService();
+        }
+    }
+
+    @MockitoBean
+    private QueueManagerService queueManagerService;
+
+    @MockitoBean
+    private QueueCheckerService queueCheckerService;
+
+    @MockitoBean
+    private UserOnboardingService userOnboardingService;
+
+    @MockitoBean
+    private MessageDeduplicationService deduplicationService;
+
+    @Autowired
+    private KafkaTemplate<UUID, Object> eventKafkaTemplate;
+
+    @Autowired
+    private DeadLetterMonitor deadLetterMonitor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @BeforeEach
+    void waitForAssignment() {
+        // Listeners start at the latest offset, so the retry and DLT consumers must be in first
+        listenerRegistry.getListenerContainers()
+                .forEach(container -> ContainerTestUtils.waitForAssignment(container, 1));
+    }
+
+    @Test
+    void testFailingListener_RecordReachesDeadLetterTopicAfterEveryAttempt() {
+        doThrow(new IllegalStateException("song not committed yet"))
+                .when(queueManagerService).songFound(any(RequestSlskdSong.class));
+        RequestSlskdSong request = new RequestSlskdSong(UUID.randomUUID(), "Title", "Artist");
+
+        eventKafkaTemplate.send("request-slskd-song", request.getId(), request);
+
+        await().atMost(Duration.ofSeconds(30)).untilAsserted(() -> {
+            Counter deadLetters = meterRegistry.find("queuemanager.kafka.dlt.records").tag("topic", REQUEST_DLT).counter();
+            assertNotNull(deadLetters);
+            assertEquals(1.0, deadLetters.count());
+        });
+        // First delivery plus one per retry topic, nothing after the DLT
+        verify(queueManagerService, times(3)).songFound(request);
+
+        deadLetterMonitor.refreshDepth();
+        assertEquals(1, deadLetterMonitor.getDepth(REQUEST_DLT));
+    }
+
+    @Test
+    void testRetryTopicNames_MatchProvisionedTopics() throws Exception {
+        // k8s/kafka-topics.yaml lists these names for the k8s setup, where nothing auto-creates them
+        Set<String> topics;
+        try (AdminClient admin = AdminClient.create(
+                Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()))) {
+            topics = admin.listTopics().names().get();
+        }
+
+        // kafka.retry.attempts=3 here: two retries
+        assertTrue(topics.containsAll(Set.of("request-slskd-song-retry-0", "request-slskd-song-retry-1",
+                REQUEST_DLT, "loaded-song-retry-0", "loaded-song-retry-1", "loaded-song" + DeadLetterMonitor.DLT_SUFFIX)),
+                topics.toString());
+        assertFalse(topics.contains("request-slskd-song-retry-2"));
+    }
+}
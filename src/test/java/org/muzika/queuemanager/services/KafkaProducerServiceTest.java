@@ -0,0 +1,98 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.muzika.queuemanager.kafkaMassages.LikedSongEvent;
+import org.muzika.queuemanager.kafkaMassages.RequestRandomSong;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class KafkaProducerServiceTest {
+
+    private KafkaTemplate<UUID, Object> kafkaTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private KafkaProducerService kafkaProducerService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        kafkaProducerService = new KafkaProducerService(kafkaTemplate, meterRegistry);
+    }
+
+    @Test
+    void testSend_AllEventTypesUseSharedTemplate() {
+        when(kafkaTemplate.send(anyString(), any(UUID.class), any())).thenReturn(new CompletableFuture<>());
+
+        kafkaProducerService.send("request-random-song", UUID.randomUUID(), new RequestRandomSong(UUID.randomUUID(), "rock"));
+        kafkaProducerService.sendLikedSongEvent("liked", UUID.randomUUID(), new LikedSongEvent(UUID.randomUUID(), "user", UUID.randomUUID()));
+
+        verify(kafkaTemplate, times(1)).send(eq("request-random-song"), any(UUID.class), any(RequestRandomSong.class));
+        verify(kafkaTemplate, times(1)).send(eq("liked"), any(UUID.class), any(LikedSongEvent.class));
+    }
+
+    @Test
+    void testSongsLiked_OneLikedEventPerSong() {
+        when(kafkaTemplate.send(anyString(), any(UUID.class), any())).thenReturn(new CompletableFuture<>());
+        UUID userId = UUID.randomUUID();
+        UUID songA = UUID.randomUUID();
+        UUID songB = UUID.randomUUID();
+
+        kafkaProducerService.onSongsLiked(new SongsLikedEvent(userId, "user", new LinkedHashSet<>(List.of(songA, songB))));
+
+        verify(kafkaTemplate).send("liked", userId, new LikedSongEvent(userId, "user", songA));
+        verify(kafkaTemplate).send("liked", userId, new LikedSongEvent(userId, "user", songB));
+    }
+
+    @Test
+    void testSend_SuccessRecordsLatencyAndClearsInFlight() {
+        CompletableFuture<SendResult<UUID, Object>> future = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), any(UUID.class), any())).thenReturn(future);
+
+        kafkaProducerService.sendEvent("liked", UUID.randomUUID(), "event");
+        assertEquals(1.0, meterRegistry.get("queuemanager.kafka.producer.in-flight").tag("topic", "liked").gauge().value());
+
+        future.complete(null);
+
+        assertEquals(1, meterRegistry.get("queuemanager.kafka.producer.send")
+                .tag("topic", "liked").tag("outcome", "success").timer().count());
+        assertEquals(0.0, meterRegistry.get("queuemanager.kafka.producer.in-flight").tag("topic", "liked").gauge().value());
+    }
+
+    @Test
+    void testSend_FailureCountsErrorPerTopic() {
+        CompletableFuture<SendResult<UUID, Object>> future = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), any(UUID.class), any())).thenReturn(future);
+
+        kafkaProducerService.sendEvent("unliked", UUID.randomUUID(), "event");
+        future.completeExceptionally(new IllegalStateException("broker down"));
+
+        assertEquals(1, meterRegistry.get("queuemanager.kafka.producer.send")
+                .tag("topic", "unliked").tag("outcome", "error").timer().count());
+        assertEquals(1.0, meterRegistry.get("queuemanager.kafka.producer.errors")
+                .tag("topic", "unliked").counter().count());
+    }
+
+    @Test
+    void testSend_SynchronousFailureIsRecordedAndRethrown() {
+        when(kafkaTemplate.send(anyString(), any(UUID.class), any())).thenThrow(new IllegalStateException("buffer full"));
+
+        assertThrows(IllegalStateException.class,
+                () -> kafkaProducerService.sendEvent("liked", UUID.randomUUID(), "event"));
+
+        assertEquals(1.0, meterRegistry.get("queuemanager.kafka.producer.errors").tag("topic", "liked").counter().count());
+        assertEquals(0.0, meterRegistry.get("queuemanager.kafka.producer.in-flight").tag("topic", "liked").gauge().value());
+    }
+}
@@ -183,5 +183,64 @@ class LocalFileStorageServiceTest {
         assertNotNull(resource);
         assertTrue(resource.exists());
     }
-}
 
+    @Test
+    void testGetFile_WithKnownSize_ResolvesRelativePath() throws IOException {
+        Path testFile = tempDir.resolve("known-size.flac");
+        Files.write(testFile, "test content".getBytes());
+
+        Resource resource = fileStorageService.getFile("known-size.flac", 12L);
+
+        assertEquals(testFile.toFile().getCanonicalPath(), resource.getFile().getCanonicalPath());
+        assertEquals(12L, resource.contentLength());
+    }
+
+    @Test
+    void testGetFile_WithKnownSize_MissingFileFailsOnOpen() throws IOException {
+        Resource resource = fileStorageService.getFile("missing.flac", 12L);
+
+        assertThrows(IOException.class, resource::getInputStream);
+    }
+
+    @Test
+    void testPrefetch_ReadsExistingFile() throws IOException {
+        Files.write(tempDir.resolve("next.flac"), new byte[4096]);
+
+        assertDoesNotThrow(() -> fileStorageService.prefetch("next.flac", 4096L).join());
+    }
+
+    @Test
+    void testPrefetch_MissingFileCompletesExceptionally() {
+        assertTrue(fileStorageService.prefetch("missing.flac", null).isCompletedExceptionally());
+    }
+
+    @Test
+    void testGetFile_ServesMetadataFromIndexWithoutStat() throws IOException {
+        Path testFile = tempDir.resolve("indexed.mp3").toAbsolutePath().normalize();
+        Files.write(testFile, "test content".getBytes());
+        FileMetadataIndex index = new FileMetadataIndex(basePath, tempDir.resolve("index.tsv").toString(), false);
+        index.reconcile();
+        LocalFileStorageService indexed = new LocalFileStorageService(basePath, index);
+
+        // The index answers even though the file changed behind its back
+        Files.write(testFile, "changed".getBytes());
+        Resource resource = indexed.getFile("indexed.mp3");
+
+        assertEquals(12L, resource.contentLength());
+        assertTrue(indexed.fileExists("indexed.mp3"));
+    }
+
+    @Test
+    void testGetFile_IndexMissIsStatedAndRecorded() throws IOException {
+        Path testFile = tempDir.resolve("late.mp3").toAbsolutePath().normalize();
+        FileMetadataIndex index = new FileMetadataIndex(basePath, tempDir.resolve("index.tsv").toString(), false);
+        LocalFileStorageService indexed = new LocalFileStorageService(basePath, index);
+        assertFalse(indexed.fileExists("late.mp3"));
+
+        Files.write(testFile, "test content".getBytes());
+        Resource resource = indexed.getFile("late.mp3");
+
+        assertEquals(12L, resource.contentLength());
+        assertEquals(12L, index.lookup(testFile).size());
+    }
+}
@@ -0,0 +1,135 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedHotFileCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private MappedHotFileCache cache;
+    private Path a;
+    private Path b;
+    private Path c;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cache = new MappedHotFileCache(new SimpleMeterRegistry(), true, 2, 25, 2);
+        a = write("a.mp3", "aaaaaaaaaa");
+        b = write("b.mp3", "bbbbbbbbbb");
+        c = write("c.mp3", "cccccccccc");
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void testRebalance_MapsMostRequestedFilesWithinLimits() {
+        request(a, 5);
+        request(b, 4);
+        request(c, 3);
+
+        cache.rebalance();
+
+        assertEquals(20, cache.getMappedBytes());
+        assertTrue(lease(a).isPresent());
+        assertTrue(lease(b).isPresent());
+        assertTrue(lease(c).isEmpty());
+    }
+
+    @Test
+    void testRebalance_IgnoresRarelyRequestedFiles() {
+        request(a, 1);
+
+        cache.rebalance();
+
+        assertEquals(0, cache.getMappedBytes());
+    }
+
+    @Test
+    void testLease_StaysReadableAfterFileIsRetired() {
+        request(a, 4);
+        cache.rebalance();
+        Optional<MappedHotFileCache.Lease> lease = lease(a);
+        assertTrue(lease.isPresent());
+
+        // c overtakes a; decay halved a to 2 (+1 from the lease above)
+        request(b, 10);
+        request(c, 10);
+        cache.rebalance();
+
+        assertEquals(20, cache.getMappedBytes());
+        ByteBuffer buffer = lease.get().buffer();
+        assertEquals("aaaaaaaaaa", StandardCharsets.US_ASCII.decode(buffer).toString());
+        lease.get().close();
+        assertTrue(lease(a).isEmpty());
+    }
+
+    @Test
+    void testLease_RetiredFileStaysReadableUntilLastLeaseCloses() {
+        request(a, 4);
+        cache.rebalance();
+        MappedHotFileCache.Lease lease = lease(a).orElseThrow();
+        ByteBuffer buffer = lease.buffer();
+
+        cache.shutdown();
+        assertEquals(0, cache.getMappedBytes());
+        assertTrue(lease(a).isEmpty());
+        assertEquals('a', buffer.get(0));
+        lease.close();
+    }
+
+    @Test
+    void testLease_BuffersAreIndependentViews() {
+        request(a, 4);
+        cache.rebalance();
+
+        try (MappedHotFileCache.Lease first = lease(a).orElseThrow();
+             MappedHotFileCache.Lease second = lease(a).orElseThrow()) {
+            ByteBuffer one = first.buffer();
+            one.position(5);
+
+            assertEquals(0, second.buffer().position());
+            assertTrue(one.isReadOnly());
+        }
+    }
+
+    @Test
+    void testAcquire_SizeMismatchIsMiss() {
+        request(a, 3);
+        cache.rebalance();
+
+        assertTrue(cache.acquire(a, 11).isEmpty());
+    }
+
+    private void request(Path file, int times) {
+        for (int i = 0; i < times; i++) {
+            cache.acquire(file, 10).ifPresent(MappedHotFileCache.Lease::close);
+        }
+    }
+
+    private Optional<MappedHotFileCache.Lease> lease(Path file) {
+        return cache.acquire(file, 10);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path path = tempDir.resolve(name);
+        Files.writeString(path, content);
+        return path;
+    }
+}
@@ -0,0 +1,116 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.muzika.queuemanager.entities.ProcessedMessage;
+import org.muzika.queuemanager.repository.ProcessedMessageRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageDeduplicationServiceTest {
+
+    @Mock
+    private ProcessedMessageRepository processedMessageRepository;
+
+    private MessageDeduplicationService deduplicationService;
+    private String messageKey;
+
+    @BeforeEach
+    void setUp() {
+        deduplicationService = new MessageDeduplicationService(processedMessageRepository,
+                new SimpleMeterRegistry(), Duration.ofHours(1), 2);
+        messageKey = MessageDeduplicationService.userCreatedKey(UUID.randomUUID());
+    }
+
+    @Test
+    void testIsDuplicate_NewMessageIsMiss() {
+        when(processedMessageRepository.findById(messageKey)).thenReturn(Optional.empty());
+
+        assertFalse(deduplicationService.isDuplicate(messageKey));
+        assertEquals(0.0, deduplicationService.getHitRatio());
+    }
+
+    @Test
+    void testIsDuplicate_AfterMarkProcessed_HitsMemoryWithoutStore() {
+        deduplicationService.markProcessed(messageKey);
+
+        assertTrue(deduplicationService.isDuplicate(messageKey));
+        verify(processedMessageRepository, times(1)).save(any(ProcessedMessage.class));
+        verify(processedMessageRepository, never()).findById(any());
+        assertEquals(1.0, deduplicationService.getHitRatio());
+    }
+
+    @Test
+    void testIsDuplicate_PersistedEntryFoundAfterRestart() {
+        LocalDateTime now = LocalDateTime.now();
+        when(processedMessageRepository.findById(messageKey))
+                .thenReturn(Optional.of(new ProcessedMessage(messageKey, now, now.plusMinutes(30))));
+
+        assertTrue(deduplicationService.isDuplicate(messageKey));
+        // Second lookup is answered from memory
+        assertTrue(deduplicationService.isDuplicate(messageKey));
+        verify(processedMessageRepository, times(1)).findById(messageKey);
+    }
+
+    @Test
+    void testIsDuplicate_ExpiredEntryIsMiss() {
+        LocalDateTime now = LocalDateTime.now();
+        when(processedMessageRepository.findById(messageKey))
+                .thenReturn(Optional.of(new ProcessedMessage(messageKey, now.minusHours(2), now.minusHours(1))));
+
+        assertFalse(deduplicationService.isDuplicate(messageKey));
+    }
+
+    @Test
+    void testMemoryFront_EvictsLeastRecentlyUsed() {
+        String first = MessageDeduplicationService.userCreatedKey(UUID.randomUUID());
+        String second = MessageDeduplicationService.userCreatedKey(UUID.randomUUID());
+        String third = MessageDeduplicationService.userCreatedKey(UUID.randomUUID());
+        deduplicationService.markProcessed(first);
+        deduplicationService.markProcessed(second);
+        deduplicationService.markProcessed(third);
+        when(processedMessageRepository.findById(first)).thenReturn(Optional.empty());
+
+        assertFalse(deduplicationService.isDuplicate(first));
+        assertTrue(deduplicationService.isDuplicate(third));
+    }
+
+    @Test
+    void testMarkProcessed_StoreFailureStillRemembersInMemory() {
+        when(processedMessageRepository.save(any(ProcessedMessage.class))).thenThrow(new RuntimeException("db down"));
+
+        deduplicationService.markProcessed(messageKey);
+
+        assertTrue(deduplicationService.isDuplicate(messageKey));
+    }
+
+    @Test
+    void testFindDuplicates_ChecksMemoryThenStoreInOneQuery() {
+        String remembered = MessageDeduplicationService.userCreatedKey(UUID.randomUUID());
+        String stored = MessageDeduplicationService.userCreatedKey(UUID.randomUUID());
+        String fresh = MessageDeduplicationService.userCreatedKey(UUID.randomUUID());
+        deduplicationService.markProcessed(remembered);
+        when(processedMessageRepository.findAllById(List.of(stored, fresh))).thenReturn(List.of(
+                new ProcessedMessage(stored, LocalDateTime.now(), LocalDateTime.now().plusHours(1))));
+
+        Set<String> duplicates = deduplicationService.findDuplicates(List.of(remembered, stored, fresh));
+
+        assertEquals(Set.of(remembered, stored), duplicates);
+        verify(processedMessageRepository, times(1)).findAllById(any());
+        verify(processedMessageRepository, never()).findById(any());
+    }
+}
@@ -0,0 +1,86 @@
+package org.muzika.queuemanager.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.muzika.queuemanager.dto.QueueChange;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueChangeLogTest {
+
+    private QueueChangeLog changeLog;
+    private UUID queueId;
+
+    @BeforeEach
+    void setUp() {
+        changeLog = new QueueChangeLog(3, 2);
+        queueId = UUID.randomUUID();
+    }
+
+    @Test
+    void testChangesSince_ReturnsChangesInVersionOrder() {
+        QueueChange first = removed();
+        QueueChange second = removed();
+        QueueChange third = removed();
+        changeLog.record(queueId, 1, List.of(first));
+        // Commits may be recorded out of version order
+        changeLog.record(queueId, 3, List.of(third));
+        changeLog.record(queueId, 2, List.of(second));
+
+        assertEquals(List.of(first, second, third), changeLog.changesSince(queueId, 0, 3).orElseThrow());
+        assertEquals(List.of(third), changeLog.changesSince(queueId, 2, 3).orElseThrow());
+        assertEquals(3, changeLog.latestVersion(queueId));
+    }
+
+    @Test
+    void testChangesSince_EmptyListWhenUpToDate() {
+        assertEquals(Optional.of(List.of()), changeLog.changesSince(queueId, 7, 7));
+    }
+
+    @Test
+    void testChangesSince_RequiresReloadWhenVersionsAreMissing() {
+        changeLog.record(queueId, 1, List.of(removed()));
+        changeLog.record(queueId, 3, List.of(removed()));
+
+        assertTrue(changeLog.changesSince(queueId, 0, 3).isEmpty());
+        // Nothing recorded at all, e.g. after a restart
+        assertTrue(changeLog.changesSince(UUID.randomUUID(), 4, 5).isEmpty());
+        // Client ahead of the store
+        assertTrue(changeLog.changesSince(queueId, 9, 3).isEmpty());
+    }
+
+    @Test
+    void testRecord_KeepsOnlyTheNewestVersions() {
+        for (long version = 1; version <= 5; version++) {
+            changeLog.record(queueId, version, List.of(removed()));
+        }
+
+        assertTrue(changeLog.changesSince(queueId, 1, 5).isEmpty());
+        assertEquals(3, changeLog.changesSince(queueId, 2, 5).orElseThrow().size());
+    }
+
+    @Test
+    void testRecord_EvictsLeastRecentlyUsedQueue() {
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        changeLog.record(queueId, 1, List.of(removed()));
+        changeLog.record(second, 1, List.of(removed()));
+        // Reading the first queue makes the second one the least recently used
+        assertEquals(1, changeLog.latestVersion(queueId));
+
+        changeLog.record(third, 1, List.of(removed()));
+
+        assertEquals(1, changeLog.latestVersion(queueId));
+        assertEquals(-1, changeLog.latestVersion(second));
+        assertTrue(changeLog.changesSince(second, 0, 1).isEmpty());
+        assertEquals(1, changeLog.latestVersion(third));
+    }
+
+    private static QueueChange removed() {
+        return QueueChange.removed(UUID.randomUUID(), UUID.randomUUID());
+    }
+}
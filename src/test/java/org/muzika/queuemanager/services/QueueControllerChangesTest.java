@@ -0,0 +1,118 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.muzika.queuemanager.config.ExecutorConfig;
+import org.muzika.queuemanager.dto.QueueChange;
+import org.muzika.queuemanager.repository.QueueVersion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = QueueController.class)
+@Import({AudioStreamingService.class, MappedHotFileCache.class, SimpleMeterRegistry.class, ExecutorConfig.class,
+        QueueChangeLog.class})
+@AutoConfigureMockMvc(addFilters = false)
+class QueueControllerChangesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private QueueChangeLog queueChangeLog;
+
+    @MockitoBean
+    private QueueService queueService;
+
+    @MockitoBean
+    private QueueCheckerService queueCheckerService;
+
+    @MockitoBean
+    private SongService songService;
+
+    @MockitoBean
+    private FileStorageService fileStorageService;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private JwtService jwtService;
+
+    @MockitoBean
+    private QueuePrefetchService queuePrefetchService;
+
+    @MockitoBean
+    private StreamTokenService streamTokenService;
+
+    @MockitoBean
+    private QueueEventBroadcaster queueEventBroadcaster;
+
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    private UUID queueId;
+
+    @BeforeEach
+    void setUp() {
+        queueId = UUID.randomUUID();
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void testGetQueueChanges_ReturnsOnlyNewerChanges() throws Exception {
+        QueueChange older = QueueChange.removed(UUID.randomUUID(), UUID.randomUUID());
+        QueueChange newer = QueueChange.removed(UUID.randomUUID(), UUID.randomUUID());
+        queueChangeLog.record(queueId, 1, List.of(older));
+        queueChangeLog.record(queueId, 2, List.of(newer));
+        when(queueService.getQueueVersion("testuser")).thenReturn(new QueueVersion(queueId, 2L));
+
+        mockMvc.perform(get("/api/queue/queue/changes").param("since", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(jsonPath("$.version").value(2))
+                .andExpect(jsonPath("$.changes.length()").value(1))
+                .andExpect(jsonPath("$.changes[0].type").value("REMOVED"))
+                .andExpect(jsonPath("$.changes[0].queueEntryId").value(newer.getQueueEntryId().toString()));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void testGetQueueChanges_NotModifiedWhenUpToDate() throws Exception {
+        when(queueService.getQueueVersion("testuser")).thenReturn(new QueueVersion(queueId, 5L));
+
+        mockMvc.perform(get("/api/queue/queue/changes").param("since", "5"))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void testGetQueueChanges_GoneWhenChangesAreNoLongerHeld() throws Exception {
+        when(queueService.getQueueVersion("testuser")).thenReturn(new QueueVersion(queueId, 5L));
+
+        mockMvc.perform(get("/api/queue/queue/changes").param("since", "3"))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void testGetQueueChanges_UserWithoutQueue() throws Exception {
+        when(queueService.getQueueVersion("testuser")).thenReturn(null);
+
+        mockMvc.perform(get("/api/queue/queue/changes").param("since", "0"))
+                .andExpect(status().isNotModified());
+    }
+}
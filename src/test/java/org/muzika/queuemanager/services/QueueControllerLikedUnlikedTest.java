@@ -1,11 +1,14 @@
 package org.muzika.queuemanager.services;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.muzika.queuemanager.config.ExecutorConfig;
 import org.muzika.queuemanager.services.JwtService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -22,6 +25,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = QueueController.class)
+@Import({AudioStreamingService.class, MappedHotFileCache.class, SimpleMeterRegistry.class, ExecutorConfig.class})
 @AutoConfigureMockMvc(addFilters = false)
 class QueueControllerLikedUnlikedTest {
 
@@ -46,6 +50,21 @@ class QueueControllerLikedUnlikedTest {
     @MockitoBean
     private JwtService jwtService;
 
+    @MockitoBean
+    private QueuePrefetchService queuePrefetchService;
+
+    @MockitoBean
+    private StreamTokenService streamTokenService;
+
+    @MockitoBean
+    private QueueEventBroadcaster queueEventBroadcaster;
+
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    @MockitoBean
+    private QueueChangeLog queueChangeLog;
+
     private UUID songId;
     private String username;
 
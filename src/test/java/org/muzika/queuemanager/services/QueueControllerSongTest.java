@@ -1,12 +1,15 @@
 package org.muzika.queuemanager.services;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.muzika.queuemanager.config.ExecutorConfig;
 import org.muzika.queuemanager.entities.Song;
 import org.muzika.queuemanager.services.JwtService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.core.io.FileSystemResource;
@@ -19,14 +22,22 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.UUID;
 
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = QueueController.class)
+@Import({AudioStreamingService.class, MappedHotFileCache.class, SimpleMeterRegistry.class, ExecutorConfig.class})
 class QueueControllerSongTest {
 
     @Autowired
@@ -50,6 +61,21 @@ class QueueControllerSongTest {
     @MockitoBean
     private JwtService jwtService;
 
+    @MockitoBean
+    private QueuePrefetchService queuePrefetchService;
+
+    @MockitoBean
+    private StreamTokenService streamTokenService;
+
+    @MockitoBean
+    private QueueEventBroadcaster queueEventBroadcaster;
+
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    @MockitoBean
+    private QueueChangeLog queueChangeLog;
+
     @TempDir
     Path tempDir;
 
@@ -265,6 +291,80 @@ class QueueControllerSongTest {
                 .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"test-song.mp3\""));
     }
 
+    @Test
+    @WithMockUser(username = "testuser")
+    void testGetSong_StoredFileFacts_SkipStorageChecks() throws Exception {
+        song.setUrl("test-song.bin");
+        song.setSizeBytes(16L);
+        song.setCodec("flac");
+        when(songService.findByUUID(songId)).thenReturn(song);
+        when(fileStorageService.getFile("test-song.bin", 16L)).thenReturn(mockResource);
+
+        mockMvc.perform(get("/api/queue/songs/{id}", songId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "16"))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.parseMediaType("audio/flac").toString()));
+
+        verify(fileStorageService, times(1)).getFile("test-song.bin", 16L);
+        verify(fileStorageService, never()).getFile("test-song.bin");
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void testGetSong_RangeRequest_ReturnsPartialContent() throws Exception {
+        when(songService.findByUUID(songId)).thenReturn(song);
+        when(fileStorageService.getFile("test-song.mp3")).thenReturn(mockResource);
+
+        mockMvc.perform(get("/api/queue/songs/{id}", songId).header(HttpHeaders.RANGE, "bytes=5-7"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 5-7/16"))
+                .andExpect(header().exists(HttpHeaders.CONTENT_DISPOSITION))
+                .andExpect(content().string("mp3"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void testGetSong_FileMissingOnOpen_ReturnsNotFound() throws Exception {
+        song.setSizeBytes(16L);
+        when(songService.findByUUID(songId)).thenReturn(song);
+        when(fileStorageService.getFile("test-song.mp3", 16L))
+                .thenReturn(new FileSystemResource(tempDir.resolve("gone.mp3")));
+
+        mockMvc.perform(get("/api/queue/songs/{id}", songId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void testGetSong_SendsValidatorsAndBackfillsFileFacts() throws Exception {
+        when(songService.findByUUID(songId)).thenReturn(song);
+        when(fileStorageService.getFile("test-song.mp3")).thenReturn(mockResource);
+
+        mockMvc.perform(get("/api/queue/songs/{id}", songId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"" + songId + "-10-")))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, private, immutable"));
+
+        verify(songService, times(1)).updateFileMetadata(eq(songId), eq(16L), anyLong());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void testGetSong_IfNoneMatch_ReturnsNotModifiedWithoutStat() throws Exception {
+        song.setSizeBytes(16L);
+        song.setFileModifiedAt(0x1234L);
+        when(songService.findByUUID(songId)).thenReturn(song);
+        when(fileStorageService.getFile("test-song.mp3", 16L)).thenReturn(mockResource);
+
+        mockMvc.perform(get("/api/queue/songs/{id}", songId)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + songId + "-10-1234\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(songService, never()).updateFileMetadata(any(), anyLong(), anyLong());
+    }
+
     @Test
     @WithMockUser(username = "testuser")
     void testGetSong_UnexpectedException() throws Exception {
@@ -276,5 +376,48 @@ class QueueControllerSongTest {
 
         verify(songService, times(1)).findByUUID(songId);
     }
-}
 
+    @Test
+    @WithMockUser(username = "testuser")
+    void testIssueStreamToken_QueuedSong() throws Exception {
+        song.setSizeBytes(16L);
+        song.setFileModifiedAt(0x1234L);
+        when(queueService.isQueued("testuser", songId)).thenReturn(true);
+        when(songService.findByUUID(songId)).thenReturn(song);
+        when(streamTokenService.issue(song))
+                .thenReturn(new StreamTokenService.IssuedToken("payload.mac", Instant.parse("2025-01-01T10:00:00Z")));
+
+        mockMvc.perform(post("/api/queue/songs/{id}/stream-token", songId).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("payload.mac"))
+                .andExpect(jsonPath("$.url").value("/api/stream/payload.mac"));
+
+        verify(fileStorageService, never()).getFile(anyString());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void testIssueStreamToken_BackfillsFileMetadata() throws Exception {
+        when(queueService.isQueued("testuser", songId)).thenReturn(true);
+        when(songService.findByUUID(songId)).thenReturn(song);
+        when(fileStorageService.getFile("test-song.mp3")).thenReturn(mockResource);
+        when(streamTokenService.issue(song))
+                .thenReturn(new StreamTokenService.IssuedToken("payload.mac", Instant.parse("2025-01-01T10:00:00Z")));
+
+        mockMvc.perform(post("/api/queue/songs/{id}/stream-token", songId).with(csrf()))
+                .andExpect(status().isOk());
+
+        verify(songService).updateFileMetadata(eq(songId), eq(16L), anyLong());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void testIssueStreamToken_SongNotQueued() throws Exception {
+        when(queueService.isQueued("testuser", songId)).thenReturn(false);
+
+        mockMvc.perform(post("/api/queue/songs/{id}/stream-token", songId).with(csrf()))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(streamTokenService);
+    }
+}
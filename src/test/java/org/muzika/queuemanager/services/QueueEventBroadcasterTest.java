@@ -0,0 +1,118 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.muzika.queuemanager.dto.QueueChange;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class QueueEventBroadcasterTest {
+
+    private QueueChangeLog changeLog;
+    private QueueEventBroadcaster broadcaster;
+    private List<Runnable> heartbeats;
+    private MockMvc mockMvc;
+    private UUID queueId;
+
+    @RestController
+    class EventsController {
+        @GetMapping("/events")
+        SseEmitter events(@RequestParam long version, @RequestParam(required = false) Long since) {
+            return broadcaster.subscribe(queueId, version, since);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        changeLog = new QueueChangeLog(16, 100);
+        heartbeats = new ArrayList<>();
+        broadcaster = new QueueEventBroadcaster(changeLog, new SimpleMeterRegistry(), heartbeats::add, 60_000);
+        mockMvc = MockMvcBuilders.standaloneSetup(new EventsController()).build();
+        queueId = UUID.randomUUID();
+    }
+
+    @Test
+    void testSubscribe_WithoutVersionAsksForReload() throws Exception {
+        MvcResult result = subscribe("/events?version=4");
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("id:4\nevent:resync\n"), body);
+        assertEquals(1, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void testSubscribe_ReplaysMissedChanges() throws Exception {
+        QueueChange removed = QueueChange.removed(UUID.randomUUID(), UUID.randomUUID());
+        changeLog.record(queueId, 5, List.of(removed));
+
+        MvcResult result = subscribe("/events?version=5&since=4");
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("id:5\nevent:queue-changed\n"), body);
+        assertTrue(body.contains(removed.getQueueEntryId().toString()), body);
+        assertFalse(body.contains("resync"), body);
+    }
+
+    @Test
+    void testOnQueueChanged_PushesCommittedChangesOnce() throws Exception {
+        MvcResult result = subscribe("/events?version=2&since=2");
+        QueueChange removed = QueueChange.removed(UUID.randomUUID(), UUID.randomUUID());
+        QueueChangedEvent event = new QueueChangedEvent(queueId, 3, List.of(removed));
+        changeLog.onQueueChanged(event);
+
+        broadcaster.onQueueChanged(event);
+        broadcaster.onQueueChanged(event);
+        broadcaster.onQueueChanged(new QueueChangedEvent(UUID.randomUUID(), 9, List.of()));
+
+        String body = result.getResponse().getContentAsString();
+        assertEquals(1, body.split("event:queue-changed", -1).length - 1, body);
+        assertTrue(body.contains("id:3\n"), body);
+        assertTrue(body.contains(removed.getQueueEntryId().toString()), body);
+    }
+
+    @Test
+    void testOnQueueChanged_SendsResyncWhenAVersionIsMissing() throws Exception {
+        MvcResult result = subscribe("/events?version=2&since=2");
+
+        broadcaster.onQueueChanged(new QueueChangedEvent(queueId, 4, List.of()));
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("id:4\nevent:resync\n"), body);
+    }
+
+    @Test
+    void testHeartbeat_WrittenOffTheSchedulerThreadOnePerSubscriber() throws Exception {
+        MvcResult result = subscribe("/events?version=1");
+
+        broadcaster.heartbeat();
+        broadcaster.heartbeat();
+
+        // Nothing written by the scheduler itself, and no second heartbeat while one is pending
+        assertEquals(1, heartbeats.size());
+        assertFalse(result.getResponse().getContentAsString().contains(":heartbeat"));
+
+        heartbeats.remove(0).run();
+        broadcaster.heartbeat();
+
+        assertTrue(result.getResponse().getContentAsString().contains(":heartbeat"));
+        assertEquals(1, heartbeats.size());
+    }
+
+    private MvcResult subscribe(String uri) throws Exception {
+        return mockMvc.perform(get(uri)).andExpect(request().asyncStarted()).andReturn();
+    }
+}
@@ -0,0 +1,73 @@
+package org.muzika.queuemanager.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.muzika.queuemanager.entities.User;
+import org.muzika.queuemanager.kafkaMassages.LoadedSong;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueueManagerServiceSongLoadedTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private SongService songService;
+
+    @Mock
+    private QueueService queueService;
+
+    @InjectMocks
+    private QueueManagerService queueManagerService;
+
+    @Test
+    void testSongLoaded_WithUserContext_SkipsUserLookup() {
+        UUID songId = UUID.randomUUID();
+        UUID userUuid = UUID.randomUUID();
+        LoadedSong loadedSong = new LoadedSong(songId, "a/b.flac", LoadedSong.Status.COMPLETED,
+                userUuid, "alice", 1234L, 180000L, "flac");
+
+        String username = queueManagerService.songLoaded(loadedSong);
+
+        assertEquals("alice", username);
+        verify(songService, times(1)).updateLoadedSong(loadedSong);
+        verify(queueService, times(1)).addToQueueByUserUuid(songId, userUuid);
+        verify(userService, never()).getUserBySongID(any());
+        verify(queueService, never()).addToQueue(any(), anyString());
+    }
+
+    @Test
+    void testSongLoaded_LegacyMessage_FallsBackToUserSongLookup() {
+        UUID songId = UUID.randomUUID();
+        User user = new User(UUID.randomUUID(), "bob");
+        when(userService.getUserBySongID(songId)).thenReturn(user);
+
+        String username = queueManagerService.songLoaded(new LoadedSong(songId, "a/b.mp3", LoadedSong.Status.COMPLETED));
+
+        assertEquals("bob", username);
+        verify(queueService, times(1)).addToQueue(songId, "bob");
+        verify(queueService, never()).addToQueueByUserUuid(any(), any());
+    }
+
+    @Test
+    void testDelete_WithUserContext_SkipsUserLookup() {
+        UUID songId = UUID.randomUUID();
+        LoadedSong loadedSong = new LoadedSong(songId, null, LoadedSong.Status.ERROR);
+        loadedSong.setUsername("alice");
+
+        assertEquals("alice", queueManagerService.delete(loadedSong));
+
+        verify(userService, never()).getUserBySongID(any());
+        verify(userService, times(1)).deleteUserSongBySongId(songId);
+        verify(songService, times(1)).delete(songId);
+    }
+}
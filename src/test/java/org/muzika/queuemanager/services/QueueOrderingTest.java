@@ -0,0 +1,75 @@
+package org.muzika.queuemanager.services;
+
+import org.junit.jupiter.api.Test;
+import org.muzika.queuemanager.entities.QueueSong;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueOrderingTest {
+
+    @Test
+    void testBetween_PicksKeyInsideTheGap() {
+        assertEquals(0, QueueOrdering.between(null, null));
+        assertEquals(-QueueOrdering.GAP, QueueOrdering.between(null, 0));
+        assertEquals(2048, QueueOrdering.between(1024, null));
+        assertEquals(512, QueueOrdering.between(0, 1024));
+    }
+
+    @Test
+    void testBetween_NullWhenThereIsNoRoom() {
+        assertNull(QueueOrdering.between(5, 6));
+        assertNull(QueueOrdering.between(Integer.MAX_VALUE - 10, null));
+        assertNull(QueueOrdering.between(null, Integer.MIN_VALUE + 10));
+    }
+
+    @Test
+    void testInsert_TouchesOnlyTheNewEntry() {
+        List<QueueSong> queue = entries(0, 1024, 2048);
+
+        QueueSong inserted = new QueueSong();
+        QueueOrdering.insert(queue, 1, inserted);
+
+        assertEquals(List.of(0, 512, 1024, 2048), keys(queue));
+        assertSame(inserted, queue.get(1));
+    }
+
+    @Test
+    void testInsert_RespacesWhenNeighboursAreAdjacent() {
+        // Positions written before ordering keys were gapped
+        List<QueueSong> queue = entries(0, 1, 2);
+
+        QueueOrdering.insert(queue, 1, new QueueSong());
+
+        assertEquals(List.of(0, 1024, 2048, 3072), keys(queue));
+    }
+
+    @Test
+    void testRepeatedInsertsAtTheSameSpotStayOrdered() {
+        List<QueueSong> queue = entries(0, 1024);
+        for (int i = 0; i < 50; i++) {
+            QueueOrdering.insert(queue, 1, new QueueSong());
+        }
+
+        List<Integer> keys = keys(queue);
+        for (int i = 1; i < keys.size(); i++) {
+            assertTrue(keys.get(i - 1) < keys.get(i), keys.toString());
+        }
+    }
+
+    private static List<QueueSong> entries(int... keys) {
+        List<QueueSong> entries = new ArrayList<>();
+        for (int key : keys) {
+            QueueSong queueSong = new QueueSong();
+            queueSong.setPosition(key);
+            entries.add(queueSong);
+        }
+        return entries;
+    }
+
+    private static List<Integer> keys(List<QueueSong> entries) {
+        return entries.stream().map(QueueSong::getPosition).toList();
+    }
+}
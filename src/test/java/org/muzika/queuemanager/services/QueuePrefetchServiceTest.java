@@ -0,0 +1,137 @@
+package org.muzika.queuemanager.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.muzika.queuemanager.entities.Song;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueuePrefetchServiceTest {
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private QueueService queueService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private QueuePrefetchService prefetchService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        prefetchService = new QueuePrefetchService(fileStorageService, queueService, meterRegistry,
+                true, 2, 2, 256, Long.MAX_VALUE, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        prefetchService.shutdown();
+    }
+
+    @Test
+    void testPrefetch_WarmsOnlyTheHeadOfTheQueue() {
+        when(fileStorageService.prefetch(anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        prefetchService.prefetch(List.of(song("a.mp3"), song("b.mp3"), song("c.mp3")));
+
+        verify(fileStorageService, timeout(1000)).prefetch("a.mp3", 100L);
+        verify(fileStorageService, timeout(1000)).prefetch("b.mp3", 100L);
+        verify(fileStorageService, after(100).never()).prefetch(eq("c.mp3"), any());
+    }
+
+    @Test
+    void testPrefetch_RecentlyWarmedFileIsSkipped() {
+        when(fileStorageService.prefetch(anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        Song song = song("a.mp3");
+
+        prefetchService.prefetch(List.of(song));
+        prefetchService.prefetch(List.of(song));
+
+        verify(fileStorageService, after(200).times(1)).prefetch("a.mp3", 100L);
+        assertEquals(1.0, meterRegistry.get("queuemanager.prefetch.files").tag("result", "skipped").counter().count());
+    }
+
+    @Test
+    void testPrefetchNext_LoadsUpcomingSongsInBackground() {
+        when(queueService.getUpcomingSongs("alice", 2)).thenReturn(List.of(song("a.mp3")));
+        when(fileStorageService.prefetch(anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        prefetchService.prefetchNext("alice");
+
+        verify(fileStorageService, timeout(1000)).prefetch("a.mp3", 100L);
+    }
+
+    @Test
+    void testPrefetch_FailedWarmIsRetriedOnNextChange() {
+        when(fileStorageService.prefetch(anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("share unavailable")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        Song song = song("a.mp3");
+
+        prefetchService.prefetch(List.of(song));
+        verify(fileStorageService, timeout(1000)).prefetch("a.mp3", 100L);
+        await(() -> meterRegistry.find("queuemanager.prefetch.files").tag("result", "failed").counter() != null);
+        prefetchService.prefetch(List.of(song));
+
+        verify(fileStorageService, timeout(1000).times(2)).prefetch("a.mp3", 100L);
+    }
+
+    @Test
+    void testPrefetch_DroppedWarmIsRetriedOnNextChange() {
+        // One worker, one pending slot: a blocks the worker, b waits, c is rejected
+        prefetchService.shutdown();
+        prefetchService = new QueuePrefetchService(fileStorageService, queueService, meterRegistry,
+                true, 2, 1, 1, Long.MAX_VALUE, Duration.ofMinutes(10));
+        CompletableFuture<Void> blocked = new CompletableFuture<>();
+        when(fileStorageService.prefetch(anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(fileStorageService.prefetch(eq("a.mp3"), any())).thenReturn(blocked);
+
+        prefetchService.prefetch(List.of(song("a.mp3")));
+        verify(fileStorageService, timeout(1000)).prefetch("a.mp3", 100L);
+        prefetchService.prefetch(List.of(song("b.mp3"), song("c.mp3")));
+        prefetchService.prefetchNext("alice");
+
+        assertEquals(2.0, meterRegistry.get("queuemanager.prefetch.files").tag("result", "dropped").counter().count());
+        verifyNoInteractions(queueService);
+
+        blocked.complete(null);
+        verify(fileStorageService, timeout(1000)).prefetch("b.mp3", 100L);
+        prefetchService.prefetch(List.of(song("c.mp3")));
+
+        verify(fileStorageService, timeout(1000)).prefetch("c.mp3", 100L);
+    }
+
+    private static Song song(String url) {
+        Song song = new Song();
+        song.setId(UUID.randomUUID());
+        song.setUrl(url);
+        song.setSizeBytes(100L);
+        return song;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,168 @@
+package org.muzika.queuemanager.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.muzika.queuemanager.dto.QueueChange;
+import org.muzika.queuemanager.dto.QueueDelta;
+import org.muzika.queuemanager.dto.QueueOperation;
+import org.muzika.queuemanager.entities.Queue;
+import org.muzika.queuemanager.entities.QueueSong;
+import org.muzika.queuemanager.entities.Song;
+import org.muzika.queuemanager.repository.QueueRepository;
+import org.muzika.queuemanager.repository.QueueSongRepository;
+import org.muzika.queuemanager.repository.QueueVersion;
+import org.muzika.queuemanager.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueueServiceBatchTest {
+
+    private static final String USERNAME = "alice";
+
+    @Mock
+    private QueueRepository queueRepository;
+
+    @Mock
+    private QueueSongRepository queueSongRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private SongService songService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private QueueService queueService;
+
+    private UUID queueId;
+    private Queue queue;
+    private List<QueueSong> entries;
+
+    @BeforeEach
+    void setUp() {
+        queueId = UUID.randomUUID();
+        queue = new Queue();
+        queue.setUserUuid(queueId);
+        queue.setUuid(queueId);
+        entries = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            entries.add(entry(i));
+        }
+        queue.setQueueSongs(entries);
+
+        lenient().when(queueRepository.findVersionByUserName(USERNAME)).thenReturn(new QueueVersion(queueId, 7L));
+        lenient().when(queueRepository.findVersion(queueId)).thenReturn(8L);
+        lenient().when(queueRepository.findById(queueId)).thenReturn(Optional.of(queue));
+    }
+
+    @Test
+    void testApplyBatch_AppliesOperationsInOrderWithOneVersionBump() {
+        QueueSong first = entries.get(0);
+        QueueSong middle = entries.get(1);
+        QueueSong last = entries.get(2);
+        Song song = song();
+        when(songService.findAllByIds(anyCollection())).thenReturn(Map.of(song.getId(), song));
+        when(queueSongRepository.save(any(QueueSong.class))).thenAnswer(invocation -> {
+            QueueSong saved = invocation.getArgument(0);
+            saved.setId(UUID.randomUUID());
+            return saved;
+        });
+
+        QueueDelta delta = queueService.applyBatch(USERNAME, List.of(
+                new QueueOperation(QueueOperation.Type.MOVE, null, last.getId(), 0),
+                new QueueOperation(QueueOperation.Type.REMOVE, null, first.getId(), null),
+                new QueueOperation(QueueOperation.Type.ADD, song.getId(), null, 1)), 7L);
+
+        assertEquals(8, delta.getVersion());
+        assertEquals(List.of(QueueChange.Type.MOVED, QueueChange.Type.REMOVED, QueueChange.Type.ADDED),
+                delta.getChanges().stream().map(QueueChange::getType).toList());
+        assertEquals(List.of(last.getSongsId(), song.getId(), middle.getSongsId()),
+                entries.stream().map(QueueSong::getSongsId).toList());
+        // Only the moved and added entries got new keys
+        assertEquals(List.of(-QueueOrdering.GAP, 0, QueueOrdering.GAP), entries.stream().map(QueueSong::getPosition).toList());
+        assertNotNull(delta.getChanges().get(2).getQueueEntryId());
+        verify(queueRepository, times(1)).incrementVersion(queueId);
+        verify(queueSongRepository).deleteAll(List.of(first));
+
+        ArgumentCaptor<QueueChangedEvent> event = ArgumentCaptor.forClass(QueueChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(8, event.getValue().version());
+        assertEquals(delta.getChanges(), event.getValue().changes());
+    }
+
+    @Test
+    void testApplyBatch_ClearRemovesEveryEntry() {
+        QueueDelta delta = queueService.applyBatch(USERNAME,
+                List.of(new QueueOperation(QueueOperation.Type.CLEAR, null, null, null)), null);
+
+        assertTrue(entries.isEmpty());
+        assertEquals(List.of(QueueChange.cleared()), delta.getChanges());
+        verify(queueSongRepository).deleteAll(argThat(removed -> ((List<?>) removed).size() == 3));
+    }
+
+    @Test
+    void testApplyBatch_RejectsStaleVersion() {
+        assertThrows(OptimisticLockingFailureException.class, () -> queueService.applyBatch(USERNAME,
+                List.of(new QueueOperation(QueueOperation.Type.CLEAR, null, null, null)), 6L));
+
+        verify(queueSongRepository, never()).deleteAll(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testApplyBatch_RejectsUnknownEntry() {
+        assertThrows(IllegalArgumentException.class, () -> queueService.applyBatch(USERNAME,
+                List.of(new QueueOperation(QueueOperation.Type.REMOVE, null, UUID.randomUUID(), null)), null));
+
+        assertEquals(3, entries.size());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testApplyBatch_RejectsMoveOutOfBounds() {
+        assertThrows(IllegalArgumentException.class, () -> queueService.applyBatch(USERNAME,
+                List.of(new QueueOperation(QueueOperation.Type.MOVE, null, entries.get(0).getId(), 3)), null));
+    }
+
+    private QueueSong entry(int position) {
+        Song song = song();
+        QueueSong queueSong = new QueueSong();
+        queueSong.setId(UUID.randomUUID());
+        queueSong.setQueueUserUuid(queueId);
+        queueSong.setQueueUuid(queueId);
+        queueSong.setSongsId(song.getId());
+        queueSong.setSong(song);
+        queueSong.setPosition(position * QueueOrdering.GAP);
+        return queueSong;
+    }
+
+    private static Song song() {
+        Song song = new Song();
+        song.setId(UUID.randomUUID());
+        song.setTitle("title");
+        return song;
+    }
+}
@@ -0,0 +1,112 @@
+package org.muzika.queuemanager.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.muzika.queuemanager.dto.QueueChange;
+import org.muzika.queuemanager.dto.QueueDelta;
+import org.muzika.queuemanager.entities.QueueSong;
+import org.muzika.queuemanager.repository.QueueEntryKey;
+import org.muzika.queuemanager.repository.QueueRepository;
+import org.muzika.queuemanager.repository.QueueSongRepository;
+import org.muzika.queuemanager.repository.QueueVersion;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueueServiceMoveTest {
+
+    private static final String USERNAME = "alice";
+
+    @Mock
+    private QueueRepository queueRepository;
+
+    @Mock
+    private QueueSongRepository queueSongRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private QueueService queueService;
+
+    private UUID queueId;
+
+    @BeforeEach
+    void setUp() {
+        queueId = UUID.randomUUID();
+        lenient().when(queueRepository.findVersionByUserName(USERNAME)).thenReturn(new QueueVersion(queueId, 3L));
+        lenient().when(queueRepository.findVersion(queueId)).thenReturn(4L);
+    }
+
+    @Test
+    void testMoveQueueEntry_RewritesOnlyTheMovedEntry() {
+        List<QueueEntryKey> keys = keys(0, 1024, 2048, 3072);
+        when(queueSongRepository.findKeysByQueueUserUuid(queueId)).thenReturn(keys);
+        QueueEntryKey moved = keys.get(3);
+
+        QueueDelta delta = queueService.moveQueueEntry(USERNAME, moved.id(), 1);
+
+        // Between the first (0) and second (1024) of the remaining entries
+        verify(queueSongRepository, times(1)).updatePosition(moved.id(), 512);
+        verify(queueSongRepository, never()).findByQueueUserUuidOrderByPositionAsc(any());
+        verify(queueSongRepository, never()).saveAll(any());
+        assertEquals(4, delta.getVersion());
+        assertEquals(List.of(QueueChange.moved(moved.id(), moved.songId(), 1)), delta.getChanges());
+
+        ArgumentCaptor<QueueChangedEvent> event = ArgumentCaptor.forClass(QueueChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(delta.getChanges(), event.getValue().changes());
+    }
+
+    @Test
+    void testMoveQueueEntry_RespacesWhenThereIsNoRoom() {
+        List<QueueEntryKey> keys = keys(0, 1, 2);
+        when(queueSongRepository.findKeysByQueueUserUuid(queueId)).thenReturn(keys);
+        List<QueueSong> entries = new ArrayList<>();
+        for (QueueEntryKey key : keys) {
+            QueueSong queueSong = new QueueSong();
+            queueSong.setId(key.id());
+            queueSong.setSongsId(key.songId());
+            queueSong.setPosition(key.position());
+            entries.add(queueSong);
+        }
+        when(queueSongRepository.findByQueueUserUuidOrderByPositionAsc(queueId)).thenReturn(entries);
+
+        queueService.moveQueueEntry(USERNAME, keys.get(0).id(), 1);
+
+        verify(queueSongRepository, never()).updatePosition(any(), anyInt());
+        assertEquals(QueueOrdering.GAP, entries.get(0).getPosition());
+        assertEquals(0, entries.get(1).getPosition());
+        assertEquals(2 * QueueOrdering.GAP, entries.get(2).getPosition());
+    }
+
+    @Test
+    void testMoveQueueEntry_RejectsUnknownEntryAndBadPosition() {
+        List<QueueEntryKey> keys = keys(0, 1024);
+        when(queueSongRepository.findKeysByQueueUserUuid(queueId)).thenReturn(keys);
+
+        assertThrows(IllegalArgumentException.class, () -> queueService.moveQueueEntry(USERNAME, UUID.randomUUID(), 0));
+        assertThrows(IllegalArgumentException.class, () -> queueService.moveQueueEntry(USERNAME, keys.get(0).id(), 2));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    private static List<QueueEntryKey> keys(int... positions) {
+        List<QueueEntryKey> keys = new ArrayList<>();
+        for (int position : positions) {
+            keys.add(new QueueEntryKey(UUID.randomUUID(), UUID.randomUUID(), position));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,108 @@
+package org.muzika.queuemanager.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.muzika.queuemanager.entities.QueueSong;
+import org.muzika.queuemanager.repository.QueueRepository;
+import org.muzika.queuemanager.repository.QueueSongRepository;
+import org.muzika.queuemanager.repository.QueueVersion;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueueServicePageTest {
+
+    private static final String USERNAME = "alice";
+
+    @Mock
+    private QueueRepository queueRepository;
+
+    @Mock
+    private QueueSongRepository queueSongRepository;
+
+    @InjectMocks
+    private QueueService queueService;
+
+    private UUID queueId;
+
+    @BeforeEach
+    void setUp() {
+        queueId = UUID.randomUUID();
+        lenient().when(queueRepository.findVersionByUserName(USERNAME)).thenReturn(new QueueVersion(queueId, 9L));
+    }
+
+    @Test
+    void testGetQueuePage_FirstPageFetchesOneExtraRowForTheCursor() {
+        List<QueueSong> rows = entries(0, 4);
+        when(queueSongRepository.findPage(queueId, Limit.of(4))).thenReturn(rows);
+
+        QueuePage page = queueService.getQueuePage(USERNAME, null, 3);
+
+        assertEquals(9L, page.version());
+        assertEquals(rows.subList(0, 3), page.entries());
+        assertEquals(new QueueCursor(rows.get(2).getPosition(), rows.get(2).getId()), QueueCursor.decode(page.nextCursor()));
+        verify(queueSongRepository, never()).findByQueueUserUuidOrderByPositionAsc(any());
+        verify(queueRepository, never()).findByUser_UserName(any());
+    }
+
+    @Test
+    void testGetQueuePage_NextPageSeeksAfterTheCursor() {
+        List<QueueSong> rows = entries(3, 2);
+        QueueCursor cursor = new QueueCursor(2 * QueueOrdering.GAP, UUID.randomUUID());
+        when(queueSongRepository.findPageAfter(queueId, cursor.position(), cursor.entryId(), Limit.of(4))).thenReturn(rows);
+
+        QueuePage page = queueService.getQueuePage(USERNAME, cursor.encode(), 3);
+
+        assertEquals(rows, page.entries());
+        assertNull(page.nextCursor());
+        verify(queueSongRepository, never()).findPage(any(), any());
+    }
+
+    @Test
+    void testGetQueuePage_UserWithoutQueue() {
+        when(queueRepository.findVersionByUserName("bob")).thenReturn(null);
+
+        QueuePage page = queueService.getQueuePage("bob", null, 50);
+
+        assertEquals(0, page.version());
+        assertTrue(page.entries().isEmpty());
+        assertNull(page.nextCursor());
+        verifyNoInteractions(queueSongRepository);
+    }
+
+    @Test
+    void testGetQueuePage_MalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> queueService.getQueuePage(USERNAME, "not-a-cursor", 50));
+        assertThrows(IllegalArgumentException.class, () -> queueService.getQueuePage(USERNAME, "", 50));
+        verifyNoInteractions(queueSongRepository);
+    }
+
+    @Test
+    void testQueueCursor_RoundTripsNegativeKeys() {
+        QueueCursor cursor = new QueueCursor(-QueueOrdering.GAP, UUID.randomUUID());
+
+        assertEquals(cursor, QueueCursor.decode(cursor.encode()));
+    }
+
+    private static List<QueueSong> entries(int first, int count) {
+        List<QueueSong> entries = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            QueueSong queueSong = new QueueSong();
+            queueSong.setId(UUID.randomUUID());
+            queueSong.setPosition(i * QueueOrdering.GAP);
+            entries.add(queueSong);
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,152 @@
+package org.muzika.queuemanager.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.muzika.queuemanager.dto.PlayEvent;
+import org.muzika.queuemanager.dto.PlayEventBatchResponse;
+import org.muzika.queuemanager.dto.QueueChange;
+import org.muzika.queuemanager.repository.QueueEntryKey;
+import org.muzika.queuemanager.repository.QueueRepository;
+import org.muzika.queuemanager.repository.QueueSongRepository;
+import org.muzika.queuemanager.repository.QueueVersion;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueueServicePlayedEntriesTest {
+
+    private static final String USERNAME = "alice";
+
+    @Mock
+    private QueueRepository queueRepository;
+
+    @Mock
+    private QueueSongRepository queueSongRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private QueueService queueService;
+
+    private UUID queueId;
+    private UUID songA;
+    private UUID songB;
+    private List<QueueEntryKey> keys;
+
+    @BeforeEach
+    void setUp() {
+        queueId = UUID.randomUUID();
+        songA = UUID.randomUUID();
+        songB = UUID.randomUUID();
+        // songA is queued twice
+        keys = List.of(
+                new QueueEntryKey(UUID.randomUUID(), songA, 0),
+                new QueueEntryKey(UUID.randomUUID(), songB, 1024),
+                new QueueEntryKey(UUID.randomUUID(), songA, 2048));
+        lenient().when(queueRepository.findVersionByUserName(USERNAME)).thenReturn(new QueueVersion(queueId, 7L));
+        lenient().when(queueRepository.findVersion(queueId)).thenReturn(8L);
+        lenient().when(queueSongRepository.findKeysByQueueUserUuid(queueId)).thenReturn(keys);
+    }
+
+    @Test
+    void testRemovePlayedEntries_OneDeleteAndOneVersionForTheBatch() {
+        List<PlayEvent> events = List.of(
+                event(PlayEvent.Type.FINISHED, songA, null),
+                event(PlayEvent.Type.SKIPPED, songB, keys.get(1).id()),
+                event(PlayEvent.Type.FINISHED, songA, null));
+
+        int removed = queueService.removePlayedEntries(USERNAME, events);
+
+        assertEquals(3, removed);
+        verify(queueRepository, times(1)).incrementVersion(queueId);
+        verify(queueSongRepository, times(1)).deleteAllByIdInBatch(
+                List.of(keys.get(0).id(), keys.get(1).id(), keys.get(2).id()));
+        verify(queueSongRepository, never()).delete(any());
+
+        ArgumentCaptor<QueueChangedEvent> event = ArgumentCaptor.forClass(QueueChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(8L, event.getValue().version());
+        assertEquals(QueueChange.removed(keys.get(0).id(), songA), event.getValue().changes().get(0));
+        assertEquals(3, event.getValue().changes().size());
+    }
+
+    @Test
+    void testRecordPlayEvents_UnknownSongsAreNotRemovedFromQueue() {
+        UUID deleted = UUID.randomUUID();
+        List<PlayEvent> events = List.of(
+                event(PlayEvent.Type.FINISHED, songB, null),
+                event(PlayEvent.Type.FINISHED, deleted, null));
+        when(userService.applyPlayEvents(USERNAME, events)).thenReturn(Set.of(deleted));
+
+        PlayEventBatchResponse response = queueService.recordPlayEvents(USERNAME, events);
+
+        assertEquals(1, response.getApplied());
+        assertEquals(1, response.getRemovedFromQueue());
+        assertEquals(List.of(deleted), response.getUnknownSongs());
+        verify(queueSongRepository).deleteAllByIdInBatch(List.of(keys.get(1).id()));
+    }
+
+    @Test
+    void testRecordPlayEvents_InvalidBatchTouchesNoQueue() {
+        List<PlayEvent> events = List.of(event(PlayEvent.Type.FINISHED, songA, null));
+        when(userService.applyPlayEvents(USERNAME, events)).thenThrow(new IllegalArgumentException("User not found"));
+
+        assertThrows(IllegalArgumentException.class, () -> queueService.recordPlayEvents(USERNAME, events));
+        verifyNoInteractions(queueSongRepository, eventPublisher);
+    }
+
+    @Test
+    void testRemovePlayedEntries_NamedEntryIsNotTakenTwice() {
+        // The fallback for the second event must skip the entry the first one named
+        List<PlayEvent> events = List.of(
+                event(PlayEvent.Type.FINISHED, songA, keys.get(0).id()),
+                event(PlayEvent.Type.FINISHED, songA, null));
+
+        queueService.removePlayedEntries(USERNAME, events);
+
+        verify(queueSongRepository).deleteAllByIdInBatch(List.of(keys.get(0).id(), keys.get(2).id()));
+    }
+
+    @Test
+    void testRemovePlayedEntries_LikesAndEntriesAlreadyGoneChangeNothing() {
+        List<PlayEvent> events = List.of(
+                event(PlayEvent.Type.LIKED, songB, null),
+                event(PlayEvent.Type.FINISHED, UUID.randomUUID(), null),
+                event(PlayEvent.Type.SKIPPED, songB, UUID.randomUUID()));
+
+        int removed = queueService.removePlayedEntries(USERNAME, events);
+
+        assertEquals(0, removed);
+        verify(queueRepository, never()).incrementVersion(any());
+        verify(queueSongRepository, never()).deleteAllByIdInBatch(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testRemovePlayedEntries_UserWithoutQueue() {
+        when(queueRepository.findVersionByUserName("bob")).thenReturn(null);
+
+        assertEquals(0, queueService.removePlayedEntries("bob", List.of(event(PlayEvent.Type.FINISHED, songA, null))));
+        verifyNoInteractions(queueSongRepository, eventPublisher);
+    }
+
+    private static PlayEvent event(PlayEvent.Type type, UUID songId, UUID queueEntryId) {
+        return new PlayEvent(type, songId, queueEntryId, null);
+    }
+}
@@ -0,0 +1,126 @@
+package org.muzika.queuemanager.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.muzika.queuemanager.dto.QueueChange;
+import org.muzika.queuemanager.dto.QueueDelta;
+import org.muzika.queuemanager.repository.QueueEntryKey;
+import org.muzika.queuemanager.repository.QueueRepository;
+import org.muzika.queuemanager.repository.QueueSongRepository;
+import org.muzika.queuemanager.repository.QueueVersion;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueueServiceShuffleTest {
+
+    private static final String USERNAME = "alice";
+
+    @Mock
+    private QueueRepository queueRepository;
+
+    @Mock
+    private QueueSongRepository queueSongRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private QueueService queueService;
+
+    private UUID queueId;
+    private List<QueueEntryKey> keys;
+
+    @BeforeEach
+    void setUp() {
+        queueId = UUID.randomUUID();
+        keys = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            keys.add(new QueueEntryKey(UUID.randomUUID(), UUID.randomUUID(), i * 100));
+        }
+        lenient().when(queueRepository.findVersionByUserName(USERNAME)).thenReturn(new QueueVersion(queueId, 3L));
+        lenient().when(queueRepository.findVersion(queueId)).thenReturn(4L);
+        lenient().when(queueSongRepository.findKeysByQueueUserUuid(queueId)).thenReturn(keys);
+    }
+
+    @Test
+    void testShuffleQueue_RewritesEveryKeyInOneUpdate() {
+        QueueDelta delta = queueService.shuffleQueue(USERNAME, 42L);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<UUID, Integer>> positions = ArgumentCaptor.forClass(Map.class);
+        verify(queueSongRepository, times(1)).updatePositions(eq(queueId), positions.capture());
+        verify(queueSongRepository, never()).saveAll(any());
+        verify(queueSongRepository, never()).findByQueueUserUuidOrderByPositionAsc(any());
+        verify(queueRepository, times(1)).incrementVersion(queueId);
+
+        assertEquals(4, delta.getVersion());
+        assertEquals(keys.size(), delta.getChanges().size());
+        assertEquals(new HashSet<>(keys.stream().map(QueueEntryKey::id).toList()), positions.getValue().keySet());
+        for (int i = 0; i < delta.getChanges().size(); i++) {
+            QueueChange change = delta.getChanges().get(i);
+            assertEquals(QueueChange.Type.MOVED, change.getType());
+            assertEquals(i, change.getPosition());
+            assertEquals(i * QueueOrdering.GAP, positions.getValue().get(change.getQueueEntryId()));
+        }
+
+        ArgumentCaptor<QueueChangedEvent> event = ArgumentCaptor.forClass(QueueChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(delta.getChanges(), event.getValue().changes());
+    }
+
+    @Test
+    void testShuffleQueue_SameSeedSameOrder() {
+        List<QueueChange> first = queueService.shuffleQueue(USERNAME, 7L).getChanges();
+        List<QueueChange> second = queueService.shuffleQueue(USERNAME, 7L).getChanges();
+        List<QueueChange> other = queueService.shuffleQueue(USERNAME, 8L).getChanges();
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    void testShuffleQueue_NoQueue() {
+        when(queueRepository.findVersionByUserName("bob")).thenReturn(null);
+
+        assertThrows(IllegalArgumentException.class, () -> queueService.shuffleQueue("bob", null));
+        verifyNoInteractions(queueSongRepository, eventPublisher);
+    }
+
+    @Test
+    void testClearQueue_OneDeleteAndOneVersion() {
+        QueueDelta delta = queueService.clearQueue(USERNAME);
+
+        verify(queueSongRepository, times(1)).deleteByQueueUserUuid(queueId);
+        verify(queueSongRepository, never()).findKeysByQueueUserUuid(any());
+        verify(queueRepository, times(1)).incrementVersion(queueId);
+        assertEquals(4, delta.getVersion());
+        assertEquals(List.of(QueueChange.cleared()), delta.getChanges());
+        verify(eventPublisher, times(1)).publishEvent(any(QueueChangedEvent.class));
+    }
+
+    @Test
+    void testClearQueue_NoQueueIsNoOp() {
+        when(queueRepository.findVersionByUserName("bob")).thenReturn(null);
+
+        QueueDelta delta = queueService.clearQueue("bob");
+
+        assertEquals(0, delta.getVersion());
+        assertTrue(delta.getChanges().isEmpty());
+        verifyNoInteractions(queueSongRepository, eventPublisher);
+    }
+}
@@ -0,0 +1,170 @@
+package org.muzika.queuemanager.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.muzika.queuemanager.dto.QueueChange;
+import org.muzika.queuemanager.entities.Queue;
+import org.muzika.queuemanager.entities.QueueSong;
+import org.muzika.queuemanager.entities.Song;
+import org.muzika.queuemanager.repository.QueueEntryKey;
+import org.muzika.queuemanager.repository.QueueRepository;
+import org.muzika.queuemanager.repository.QueueSongRepository;
+import org.muzika.queuemanager.repository.QueueVersion;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The single-entry mutators bump the version (taking the queue row's lock) before they
+ * read the entries, so what they report matches the list concurrent changes left behind.
+ */
+@ExtendWith(MockitoExtension.class)
+class QueueServiceSingleEntryTest {
+
+    private static final String USERNAME = "alice";
+
+    @Mock
+    private QueueRepository queueRepository;
+
+    @Mock
+    private QueueSongRepository queueSongRepository;
+
+    @Mock
+    private SongService songService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private QueueService queueService;
+
+    private UUID queueId;
+    private Queue queue;
+    private Song song;
+
+    @BeforeEach
+    void setUp() {
+        queueId = UUID.randomUUID();
+        queue = new Queue();
+        queue.setUserUuid(queueId);
+        queue.setUuid(queueId);
+        song = new Song();
+        song.setId(UUID.randomUUID());
+        lenient().when(queueRepository.findVersionByUserName(USERNAME)).thenReturn(new QueueVersion(queueId, 6L));
+        lenient().when(queueRepository.incrementVersion(queueId)).thenReturn(1);
+        lenient().when(queueRepository.findVersion(queueId)).thenReturn(7L);
+        lenient().when(queueRepository.findById(queueId)).thenReturn(Optional.of(queue));
+        lenient().when(songService.findSongById(song.getId())).thenReturn(song);
+        lenient().when(songService.findByUUID(song.getId())).thenReturn(song);
+    }
+
+    @Test
+    void testAppend_IndexFromEntriesReadUnderTheLock() {
+        // Two entries before the lock, a third committed by a batch the append waited for
+        List<QueueSong> entries = entries(3);
+        when(queueSongRepository.findKeysByQueueUserUuid(queueId)).thenReturn(keys(entries.subList(0, 2)));
+        queue.setQueueSongs(new ArrayList<>(entries));
+
+        queueService.addToQueueByUserUuid(song.getId(), queueId);
+
+        InOrder order = inOrder(queueRepository);
+        order.verify(queueRepository).incrementVersion(queueId);
+        order.verify(queueRepository).findById(queueId);
+        QueueChangedEvent event = publishedEvent();
+        assertEquals(7L, event.version());
+        assertEquals(QueueChange.Type.ADDED, event.changes().get(0).getType());
+        assertEquals(3, event.changes().get(0).getPosition());
+        assertEquals(4, queue.getQueueSongs().size());
+    }
+
+    @Test
+    void testAppend_AlreadyQueuedDoesNotBumpVersion() {
+        List<QueueSong> entries = entries(1);
+        entries.get(0).setSongsId(song.getId());
+        when(queueSongRepository.findKeysByQueueUserUuid(queueId)).thenReturn(keys(entries));
+
+        queueService.addToQueue(song.getId(), USERNAME);
+
+        verify(queueRepository, never()).incrementVersion(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testAppend_QueuedConcurrentlyAnnouncesVersionWithoutChanges() {
+        List<QueueSong> entries = entries(1);
+        entries.get(0).setSongsId(song.getId());
+        when(queueSongRepository.findKeysByQueueUserUuid(queueId)).thenReturn(List.of());
+        queue.setQueueSongs(new ArrayList<>(entries));
+
+        queueService.addToQueue(song.getId(), USERNAME);
+
+        verify(queueSongRepository, never()).save(any());
+        QueueChangedEvent event = publishedEvent();
+        assertEquals(7L, event.version());
+        assertTrue(event.changes().isEmpty());
+    }
+
+    @Test
+    void testAddAtPosition_BoundsCheckedAgainstEntriesUnderTheLock() {
+        queue.setQueueSongs(new ArrayList<>(entries(2)));
+
+        assertThrows(IllegalArgumentException.class, () -> queueService.addToQueueAtPosition(USERNAME, song.getId(), 3));
+        queueService.addToQueueAtPosition(USERNAME, song.getId(), 2);
+
+        verify(queueRepository, times(2)).incrementVersion(queueId);
+        assertEquals(2, publishedEvent().changes().get(0).getPosition());
+    }
+
+    @Test
+    void testRemoveEntry_ReadsEntriesAfterBump() {
+        List<QueueSong> entries = entries(2);
+        queue.setQueueSongs(new ArrayList<>(entries));
+
+        queueService.removeQueueEntry(USERNAME, entries.get(1).getId());
+
+        InOrder order = inOrder(queueRepository);
+        order.verify(queueRepository).incrementVersion(queueId);
+        order.verify(queueRepository).findById(queueId);
+        verify(queueSongRepository).delete(entries.get(1));
+        assertEquals(List.of(QueueChange.removed(entries.get(1).getId(), entries.get(1).getSongsId())),
+                publishedEvent().changes());
+    }
+
+    private QueueChangedEvent publishedEvent() {
+        ArgumentCaptor<QueueChangedEvent> event = ArgumentCaptor.forClass(QueueChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        return event.getValue();
+    }
+
+    private List<QueueSong> entries(int count) {
+        List<QueueSong> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            QueueSong entry = new QueueSong();
+            entry.setId(UUID.randomUUID());
+            entry.setSongsId(UUID.randomUUID());
+            entry.setQueueUserUuid(queueId);
+            entry.setPosition(i * QueueOrdering.GAP);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static List<QueueEntryKey> keys(List<QueueSong> entries) {
+        return entries.stream()
+                .map(entry -> new QueueEntryKey(entry.getId(), entry.getSongsId(), entry.getPosition()))
+                .toList();
+    }
+}
@@ -0,0 +1,225 @@
+package org.muzika.queuemanager.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.muzika.queuemanager.config.ObjectStorageConfig;
+import org.muzika.queuemanager.config.ObjectStorageProperties;
+import org.springframework.core.io.Resource;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3FileStorageServiceTest {
+
+    private static final Instant MODIFIED = Instant.parse("2024-05-01T12:00:00Z");
+
+    private FakeS3 fakeS3;
+    private S3Client client;
+    private S3FileStorageService storage;
+    private byte[] song;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fakeS3 = new FakeS3();
+        song = new byte[1000];
+        for (int i = 0; i < song.length; i++) {
+            song[i] = (byte) i;
+        }
+        fakeS3.objects.put("library/artist/song.flac", song);
+
+        ObjectStorageProperties properties = properties();
+        client = ObjectStorageConfig.buildClient(properties);
+        storage = new S3FileStorageService(client, properties, "/mnt/azfiles/downloads");
+    }
+
+    private ObjectStorageProperties properties() {
+        ObjectStorageProperties properties = new ObjectStorageProperties();
+        properties.setBucket("songs");
+        properties.setEndpoint("http://localhost:" + fakeS3.server.getAddress().getPort());
+        properties.setPathStyleAccess(true);
+        properties.setAccessKey("test");
+        properties.setSecretKey("test");
+        properties.setKeyPrefix("library/");
+        properties.setPartSize(300);
+        properties.setParallelThreshold(500);
+        properties.setPartConcurrency(2);
+        return properties;
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+        client.close();
+        fakeS3.server.stop(0);
+    }
+
+    @Test
+    void testObjectKey_MapsAbsoluteAndRelativePaths() {
+        assertEquals("library/artist/song.flac", storage.objectKey("/mnt/azfiles/downloads/artist/song.flac"));
+        assertEquals("library/artist/song.flac", storage.objectKey("artist/song.flac"));
+        assertThrows(IllegalArgumentException.class, () -> storage.objectKey("/etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> storage.objectKey("../secrets"));
+    }
+
+    @Test
+    void testGetFile_ReturnsMetadataFromHead() throws IOException {
+        Resource resource = storage.getFile("/mnt/azfiles/downloads/artist/song.flac");
+
+        assertEquals(1000, resource.contentLength());
+        assertEquals(MODIFIED.toEpochMilli(), resource.lastModified());
+        assertEquals("song.flac", resource.getFilename());
+        assertFalse(resource.isFile());
+    }
+
+    @Test
+    void testGetFile_MissingObjectThrows() {
+        assertThrows(IOException.class, () -> storage.getFile("artist/missing.flac"));
+        assertFalse(storage.fileExists("artist/missing.flac"));
+        assertTrue(storage.fileExists("artist/song.flac"));
+    }
+
+    @Test
+    void testGetFile_WithKnownSize_SkipsHead() throws IOException {
+        Resource resource = storage.getFile("artist/song.flac", 1000L);
+
+        assertEquals(1000, resource.contentLength());
+        assertTrue(fakeS3.requests.isEmpty());
+    }
+
+    @Test
+    void testGetInputStream_ReadsWholeObject() throws IOException {
+        try (InputStream in = storage.getFile("artist/song.flac", 1000L).getInputStream()) {
+            assertArrayEquals(song, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void testCopyRange_SmallRangeIsOneRangedGet() throws IOException {
+        RangedResource resource = (RangedResource) storage.getFile("artist/song.flac", 1000L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        resource.copyRange(100, 199, out);
+
+        assertArrayEquals(Arrays.copyOfRange(song, 100, 200), out.toByteArray());
+        assertEquals(List.of("GET bytes=100-199"), fakeS3.requests);
+    }
+
+    @Test
+    void testCopyRange_LargeRangeIsFetchedInPartsAndWrittenInOrder() throws IOException {
+        RangedResource resource = (RangedResource) storage.getFile("artist/song.flac", 1000L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        resource.copyRange(50, 999, out);
+
+        assertArrayEquals(Arrays.copyOfRange(song, 50, 1000), out.toByteArray());
+        assertEquals(4, fakeS3.requests.size());
+        assertTrue(fakeS3.requests.containsAll(List.of(
+                "GET bytes=50-349", "GET bytes=350-649", "GET bytes=650-949", "GET bytes=950-999")));
+    }
+
+    @Test
+    void testCopyRange_WholeObjectIsOneStreamedGet() throws IOException {
+        RangedResource resource = (RangedResource) storage.getFile("artist/song.flac", 1000L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        resource.copyRange(0, 999, out);
+
+        assertArrayEquals(song, out.toByteArray());
+        assertEquals(List.of("GET bytes=0-999"), fakeS3.requests);
+    }
+
+    @Test
+    void testCopyRange_NoPrefetchPermitsLeft_WriterReadsEveryPartItself() throws IOException {
+        ObjectStorageProperties properties = properties();
+        properties.setMaxPrefetchedParts(0);
+        S3FileStorageService sequential = new S3FileStorageService(client, properties, "/mnt/azfiles/downloads");
+        try {
+            RangedResource resource = (RangedResource) sequential.getFile("artist/song.flac", 1000L);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            resource.copyRange(50, 999, out);
+
+            assertArrayEquals(Arrays.copyOfRange(song, 50, 1000), out.toByteArray());
+            assertEquals(List.of("GET bytes=50-349", "GET bytes=350-649", "GET bytes=650-949", "GET bytes=950-999"),
+                    fakeS3.requests);
+        } finally {
+            sequential.shutdown();
+        }
+    }
+
+    /**
+     * Minimal path-style S3 endpoint: HEAD and (ranged) GET on /{bucket}/{key}.
+     */
+    private static final class FakeS3 {
+        private final HttpServer server;
+        private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        private final List<String> requests = new CopyOnWriteArrayList<>();
+
+        private FakeS3() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/songs/", this::handle);
+            server.start();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String key = exchange.getRequestURI().getPath().substring("/songs/".length());
+            byte[] object = objects.get(key);
+            boolean head = "HEAD".equals(exchange.getRequestMethod());
+            if (object == null) {
+                byte[] error = ("<Error><Code>NoSuchKey</Code><Message>missing</Message><Key>" + key + "</Key></Error>")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/xml");
+                exchange.sendResponseHeaders(404, head ? -1 : error.length);
+                if (!head) {
+                    exchange.getResponseBody().write(error);
+                }
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("Last-Modified",
+                    DateTimeFormatter.RFC_1123_DATE_TIME.format(MODIFIED.atOffset(ZoneOffset.UTC)));
+            exchange.getResponseHeaders().set("ETag", "\"" + Arrays.hashCode(object) + "\"");
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+            if (head) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.length));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            requests.add("GET " + range);
+            int start = 0;
+            int end = object.length - 1;
+            int status = 200;
+            if (range != null) {
+                String[] bounds = range.substring("bytes=".length()).split("-");
+                start = Integer.parseInt(bounds[0]);
+                end = Math.min(end, Integer.parseInt(bounds[1]));
+                status = 206;
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + object.length);
+            }
+            exchange.sendResponseHeaders(status, end - start + 1);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(object, start, end - start + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.muzika.queuemanager.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.muzika.queuemanager.repository.SongRepository;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StarterSongPoolTest {
+
+    @Mock
+    private SongRepository songRepository;
+
+    @Test
+    void testRefresh_CapsPoolSize() {
+        when(songRepository.findAllIdsWithUrl()).thenReturn(randomIds(50));
+        StarterSongPool pool = new StarterSongPool(songRepository, 20);
+
+        pool.refresh();
+
+        assertEquals(20, pool.size());
+    }
+
+    @Test
+    void testDraw_ReturnsDistinctSongsFromPool() {
+        List<UUID> ids = randomIds(30);
+        when(songRepository.findAllIdsWithUrl()).thenReturn(ids);
+        StarterSongPool pool = new StarterSongPool(songRepository, 30);
+        pool.refresh();
+
+        List<UUID> drawn = pool.draw(10);
+
+        assertEquals(10, drawn.size());
+        assertEquals(10, new HashSet<>(drawn).size());
+        assertTrue(ids.containsAll(drawn));
+        verify(songRepository, times(1)).findAllIdsWithUrl();
+    }
+
+    @Test
+    void testDraw_EmptyPoolRefreshesAndReturnsWhatExists() {
+        when(songRepository.findAllIdsWithUrl()).thenReturn(randomIds(3));
+        StarterSongPool pool = new StarterSongPool(songRepository, 200);
+
+        assertEquals(3, pool.draw(10).size());
+    }
+
+    private static List<UUID> randomIds(int count) {
+        return Stream.generate(UUID::randomUUID).limit(count).toList();
+    }
+}
@@ -0,0 +1,133 @@
+package org.muzika.queuemanager.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.muzika.queuemanager.entities.Song;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StreamTokenServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    private SongService songService;
+    private StreamTokenService tokens;
+    private Song song;
+
+    @BeforeEach
+    void setUp() {
+        songService = mock(SongService.class);
+        tokens = tokenService("test-secret", NOW);
+        song = new Song();
+        song.setId(UUID.randomUUID());
+        song.setUrl("artist/Ælbum/01 – song 🎵.flac");
+        song.setSizeBytes(12_345_678L);
+        song.setFileModifiedAt(1_700_000_000_123L);
+        song.setCodec("flac");
+    }
+
+    @Test
+    void testVerify_RoundTripsGrant() {
+        StreamTokenService.IssuedToken issued = tokens.issue(song);
+
+        StreamTokenService.StreamGrant grant = tokens.verify(issued.token()).orElseThrow();
+
+        assertEquals(song.getId(), grant.songId());
+        assertEquals(12_345_678L, grant.sizeBytes());
+        assertEquals(1_700_000_000_123L, grant.fileModifiedAt());
+        assertEquals("flac", grant.codec());
+        assertEquals(NOW.plus(Duration.ofHours(1)), grant.expiresAt());
+        assertEquals(grant.expiresAt(), issued.expiresAt());
+    }
+
+    @Test
+    void testVerify_RejectsTamperedPayload() {
+        String token = tokens.issue(song).token();
+        char[] chars = token.toCharArray();
+        chars[5] = chars[5] == 'A' ? 'B' : 'A';
+
+        assertTrue(tokens.verify(new String(chars)).isEmpty());
+    }
+
+    @Test
+    void testVerify_RejectsTokenSignedWithOtherSecret() {
+        StreamTokenService other = tokenService("other-secret", NOW);
+
+        assertTrue(tokens.verify(other.issue(song).token()).isEmpty());
+    }
+
+    @Test
+    void testVerify_RejectsExpiredToken() {
+        String token = tokens.issue(song).token();
+        StreamTokenService later = tokenService("test-secret", NOW.plus(Duration.ofHours(2)));
+
+        assertTrue(later.verify(token).isEmpty());
+    }
+
+    @Test
+    void testVerify_RejectsMalformedTokens() {
+        assertTrue(tokens.verify(null).isEmpty());
+        assertTrue(tokens.verify("").isEmpty());
+        assertTrue(tokens.verify("no-dot").isEmpty());
+        assertTrue(tokens.verify("!!!.???").isEmpty());
+        assertTrue(tokens.verify("AQ.AAAA").isEmpty());
+    }
+
+    @Test
+    void testIssue_TokenDoesNotRevealPath() {
+        String token = tokens.issue(song).token();
+
+        String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8);
+        assertFalse(payload.contains("song"), payload);
+        assertFalse(payload.contains("artist"), payload);
+    }
+
+    @Test
+    void testResolvePath_IssuedHereNeedsNoLookup() {
+        StreamTokenService.StreamGrant grant = tokens.verify(tokens.issue(song).token()).orElseThrow();
+
+        assertEquals(Optional.of(song.getUrl()), tokens.resolvePath(grant));
+        verifyNoInteractions(songService);
+    }
+
+    @Test
+    void testResolvePath_IssuedElsewhereLooksUpSongOnce() {
+        StreamTokenService.StreamGrant grant = tokens.verify(tokenService("test-secret", NOW).issue(song).token())
+                .orElseThrow();
+        when(songService.findSongById(song.getId())).thenReturn(song);
+
+        assertEquals(Optional.of(song.getUrl()), tokens.resolvePath(grant));
+        assertEquals(Optional.of(song.getUrl()), tokens.resolvePath(grant));
+        verify(songService, times(1)).findSongById(song.getId());
+    }
+
+    @Test
+    void testResolvePath_ReplacedOrDeletedFileIsNotResolved() {
+        StreamTokenService.StreamGrant grant = tokens.verify(tokenService("test-secret", NOW).issue(song).token())
+                .orElseThrow();
+        Song replaced = new Song();
+        replaced.setId(song.getId());
+        replaced.setUrl("artist/Ælbum/01 – song 🎵 (re-download).flac");
+        replaced.setSizeBytes(song.getSizeBytes());
+        replaced.setFileModifiedAt(song.getFileModifiedAt() + 1000);
+        when(songService.findSongById(song.getId())).thenReturn(replaced).thenThrow(new RuntimeException());
+
+        assertTrue(tokens.resolvePath(grant).isEmpty());
+        assertTrue(tokens.resolvePath(grant).isEmpty());
+    }
+
+    private StreamTokenService tokenService(String secret, Instant now) {
+        return new StreamTokenService(songService, secret, Duration.ofHours(1), 100, Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
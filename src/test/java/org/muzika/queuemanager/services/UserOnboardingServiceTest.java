@@ -0,0 +1,76 @@
+package org.muzika.queuemanager.services;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.muzika.queuemanager.entities.Queue;
+import org.muzika.queuemanager.entities.QueueSong;
+import org.muzika.queuemanager.entities.User;
+import org.muzika.queuemanager.entities.UserSong;
+import org.muzika.queuemanager.kafkaMassages.UserCreatedEvent;
+import org.muzika.queuemanager.repository.UserRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserOnboardingServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private StarterSongPool starterSongPool;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private UserOnboardingService onboardingService;
+
+    @BeforeEach
+    void setUp() {
+        onboardingService = new UserOnboardingService(userRepository, starterSongPool, 2);
+        ReflectionTestUtils.setField(onboardingService, "entityManager", entityManager);
+    }
+
+    @Test
+    void testOnboard_CreatesOnlyNewUsersWithOneExistenceQuery() {
+        UserCreatedEvent existingEvent = new UserCreatedEvent(UUID.randomUUID(), "existing");
+        UserCreatedEvent newEvent = new UserCreatedEvent(UUID.randomUUID(), "new");
+        User existing = new User(UUID.randomUUID(), "existing");
+        existing.setUserId(existingEvent.getUserId());
+        when(userRepository.findAllByUserNameInOrUserIdIn(any(), any())).thenReturn(List.of(existing));
+        when(starterSongPool.draw(anyInt())).thenReturn(List.of(UUID.randomUUID(), UUID.randomUUID()));
+
+        List<UserCreatedEvent> created = onboardingService.onboard(List.of(existingEvent, newEvent, newEvent));
+
+        assertEquals(List.of(newEvent), created);
+        verify(userRepository, times(1)).findAllByUserNameInOrUserIdIn(any(), any());
+        verify(entityManager, times(1)).persist(any(User.class));
+        verify(entityManager, times(1)).persist(any(Queue.class));
+        verify(entityManager, times(2)).persist(any(UserSong.class));
+        verify(entityManager, times(2)).persist(any(QueueSong.class));
+        verify(entityManager, times(1)).flush();
+    }
+
+    @Test
+    void testOnboard_AllExisting_PersistsNothing() {
+        UserCreatedEvent event = new UserCreatedEvent(UUID.randomUUID(), "existing");
+        when(userRepository.findAllByUserNameInOrUserIdIn(any(), any()))
+                .thenReturn(List.of(new User(UUID.randomUUID(), "existing")));
+
+        assertTrue(onboardingService.onboard(List.of(event)).isEmpty());
+
+        verify(entityManager, never()).persist(any());
+        verify(starterSongPool, never()).draw(anyInt());
+    }
+}
@@ -0,0 +1,147 @@
+package org.muzika.queuemanager.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.muzika.queuemanager.dto.PlayEvent;
+import org.muzika.queuemanager.entities.Song;
+import org.muzika.queuemanager.entities.User;
+import org.muzika.queuemanager.entities.UserSong;
+import org.muzika.queuemanager.repository.UserRepository;
+import org.muzika.queuemanager.repository.UserSongRepository;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServicePlayEventsTest {
+
+    private static final String USERNAME = "alice";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserSongRepository userSongRepository;
+
+    @Mock
+    private SongService songService;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private UserService userService;
+
+    private User user;
+    private UUID knownSong;
+    private UUID newSong;
+    private UserSong existing;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUuid(UUID.randomUUID());
+        user.setUserId(UUID.randomUUID());
+        user.setUserName(USERNAME);
+        lenient().when(userRepository.findByUserName(USERNAME)).thenReturn(user);
+
+        knownSong = UUID.randomUUID();
+        newSong = UUID.randomUUID();
+        existing = new UserSong();
+        existing.setUserId(user.getUuid());
+        existing.setSongId(knownSong);
+        existing.setListenCount(2);
+    }
+
+    @Test
+    void testApplyPlayEvents_OneReadAndOneWriteForTheBatch() {
+        Instant early = Instant.parse("2025-01-01T10:00:00Z");
+        Instant late = Instant.parse("2025-01-01T11:00:00Z");
+        Song song = new Song();
+        song.setId(newSong);
+        when(userSongRepository.findAllByUserIdAndSongIdIn(eq(user.getUuid()), anyCollection())).thenReturn(List.of(existing));
+        when(songService.findAllByIds(Set.of(newSong))).thenReturn(Map.of(newSong, song));
+
+        Set<UUID> unknown = userService.applyPlayEvents(USERNAME, List.of(
+                new PlayEvent(PlayEvent.Type.FINISHED, knownSong, null, late),
+                new PlayEvent(PlayEvent.Type.FINISHED, knownSong, null, early),
+                new PlayEvent(PlayEvent.Type.SKIPPED, newSong, null, early),
+                new PlayEvent(PlayEvent.Type.LIKED, newSong, null, late),
+                new PlayEvent(PlayEvent.Type.LIKED, newSong, null, late)));
+
+        assertTrue(unknown.isEmpty());
+        verify(userSongRepository, times(1)).findAllByUserIdAndSongIdIn(eq(user.getUuid()), anyCollection());
+        verify(userSongRepository, never()).findById(any());
+        verify(userSongRepository, never()).save(any());
+        verify(userSongRepository, never()).saveAll(any());
+        // Only the new row is persisted; the loaded one is updated in place
+        List<UserSong> persisted = persistedUserSongs();
+        assertEquals(1, persisted.size());
+
+        assertEquals(4, existing.getListenCount());
+        assertEquals(LocalDateTime.ofInstant(early, ZoneId.systemDefault()), existing.getFirstListen());
+        assertEquals(LocalDateTime.ofInstant(late, ZoneId.systemDefault()), existing.getLastListen());
+
+        UserSong created = persisted.get(0);
+        assertEquals(newSong, created.getSongId());
+        assertTrue(created.getSkipped());
+        assertTrue(created.getLiked());
+        // Sent to Kafka by the listener once committed, not from inside the transaction
+        verify(eventPublisher, times(1)).publishEvent(new SongsLikedEvent(user.getUserId(), USERNAME, Set.of(newSong)));
+        verifyNoInteractions(kafkaProducerService);
+    }
+
+    @Test
+    void testApplyPlayEvents_UnknownSongsAreReportedAndIgnored() {
+        UUID deleted = UUID.randomUUID();
+        when(userSongRepository.findAllByUserIdAndSongIdIn(eq(user.getUuid()), anyCollection())).thenReturn(List.of(existing));
+        when(songService.findAllByIds(Set.of(deleted))).thenReturn(Map.of());
+
+        Set<UUID> unknown = userService.applyPlayEvents(USERNAME, List.of(
+                new PlayEvent(PlayEvent.Type.FINISHED, deleted, null, null),
+                new PlayEvent(PlayEvent.Type.SKIPPED, knownSong, null, null)));
+
+        assertEquals(Set.of(deleted), unknown);
+        assertTrue(persistedUserSongs().isEmpty());
+        assertTrue(existing.getSkipped());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testApplyPlayEvents_InvalidEventRejectsWholeBatch() {
+        List<PlayEvent> events = List.of(
+                new PlayEvent(PlayEvent.Type.FINISHED, knownSong, null, null),
+                new PlayEvent(null, knownSong, null, null));
+
+        assertThrows(IllegalArgumentException.class, () -> userService.applyPlayEvents(USERNAME, events));
+        assertThrows(IllegalArgumentException.class, () -> userService.applyPlayEvents(USERNAME, List.of()));
+        verifyNoInteractions(userSongRepository);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<UserSong> persistedUserSongs() {
+        ArgumentCaptor<Collection<UserSong>> persisted = ArgumentCaptor.forClass(Collection.class);
+        verify(userSongRepository, times(1)).persistAll(persisted.capture());
+        return new ArrayList<>(persisted.getValue());
+    }
+}